@@ -0,0 +1,90 @@
+package com.server.eventi.catalog;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.server.eventi.dto.RestaurantSuggestion;
+
+// suggest su un catalogo sintetico: 50 citta', 12 cucine, 8 tag alimentari con frequenze diverse,
+// ristoranti sparsi nel nord Italia. "rare" chiede intolleranze che pochi ristoranti supportano, il caso
+// peggiore per la scansione; near* cercano per distanza nel KD-tree.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantCatalogBenchmark {
+
+	private static final String[] CUISINES = {"italiana", "giapponese", "vegetariana", "pizzeria", "cinese", "indiana",
+			"messicana", "greca", "carne", "pesce", "fusion", "mediterranea"};
+	private static final String[] TAGS = {"vegetariano", "gluten-free", "senzalattosio", "vegano", "halal", "kosher",
+			"bio", "senza-frutta-a-guscio"};
+	private static final GeoPoint MILANO = new GeoPoint(45.4642, 9.19);
+	private static final double[] TAG_FREQUENCY = {0.6, 0.4, 0.35, 0.15, 0.1, 0.03, 0.2, 0.05};
+
+	@Param({"10000", "100000"})
+	public int restaurants;
+
+	private RestaurantCatalog catalog;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		List<CatalogEntry> entries = new ArrayList<>(restaurants);
+		for (int i = 0; i < restaurants; i++) {
+			Set<String> supports = new LinkedHashSet<>();
+			for (int t = 0; t < TAGS.length; t++) {
+				if (random.nextDouble() < TAG_FREQUENCY[t]) {
+					supports.add(TAGS[t]);
+				}
+			}
+			GeoPoint point = new GeoPoint(44 + random.nextDouble() * 2, 7 + random.nextDouble() * 6);
+			entries.add(new CatalogEntry("Ristorante " + i, "Citta " + (i % 50), CUISINES[random.nextInt(CUISINES.length)],
+					"€€", supports, point));
+		}
+		catalog = new RestaurantCatalog(entries);
+	}
+
+	@Benchmark
+	public List<RestaurantSuggestion> common() {
+		return catalog.suggest("Via Roma 1, Citta 7", List.of("vegetariano"), Map.of("giapponese", 3, "italiana", 1), 5);
+	}
+
+	@Benchmark
+	public List<RestaurantSuggestion> rare() {
+		return catalog.suggest("Citta 7", List.of("kosher", "vegano", "gluten-free"), Map.of("indiana", 2), 5);
+	}
+
+	@Benchmark
+	public List<RestaurantSuggestion> near() {
+		return catalog.suggestNear(MILANO, 10, "Milano", List.of("vegetariano"), Map.of("giapponese", 3, "italiana", 1), 5);
+	}
+
+	@Benchmark
+	public List<RestaurantSuggestion> nearRare() {
+		return catalog.suggestNear(MILANO, 50, "Milano", List.of("kosher", "vegano", "gluten-free"), Map.of("indiana", 2), 5);
+	}
+
+	@Benchmark
+	public List<RestaurantSuggestion> unknownCity() {
+		return catalog.suggest("Altrove", List.of(), Map.of(), 5);
+	}
+}
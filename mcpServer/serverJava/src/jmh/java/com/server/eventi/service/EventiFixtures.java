@@ -0,0 +1,104 @@
+package com.server.eventi.service;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.eventi.catalog.Gazetteer;
+import com.server.eventi.catalog.RestaurantCatalog;
+import com.server.eventi.config.EventProperties;
+import com.server.eventi.model.DietaryTagEntity;
+import com.server.eventi.model.EventDietaryProfileEntity;
+import com.server.eventi.model.EventEntity;
+import com.server.eventi.model.ParticipantEntity;
+import com.server.eventi.repository.DietaryTagRepository;
+import com.server.eventi.repository.EventDietaryProfileRepository;
+import com.server.eventi.repository.EventRepository;
+import com.server.eventi.repository.ParticipantRepository;
+
+// EventiService su repository in memoria (proxy sui soli metodi usati in lettura e dai tag, transazioni comprese):
+// misura la logica del servizio senza JPA ne' contesto Spring. La cache degli eventi e' attiva come in
+// produzione: dopo la prima chiamata l'evento non viene piu' ricaricato.
+public final class EventiFixtures {
+
+	private static final String[][] INTOLERANCES = {{}, {"gluten-free"}, {"vegetariano"}, {"gluten-free", "vegetariano"}};
+	private static final String[][] PREFERENCES = {{"italiana"}, {"giapponese"}, {}, {"vegetariana", "italiana"}};
+
+	public final EventEntity event;
+	public final List<ParticipantEntity> participants;
+	public final EventiService service;
+	private final Map<String, DietaryTagEntity> tagTable = new HashMap<>();
+	private final EventDietaryProfileEntity profile;
+
+	public EventiFixtures(int participantCount, String location) {
+		event = new EventEntity();
+		event.setId(UUID.randomUUID());
+		event.setName("Cena di benchmark");
+		event.setLocation(location);
+		event.setCurrency("EUR");
+		participants = new ArrayList<>(participantCount);
+		profile = new EventDietaryProfileEntity(event.getId());
+		DietaryTags tags = new DietaryTags(repository(DietaryTagRepository.class), repository(PlatformTransactionManager.class));
+		for (int i = 0; i < participantCount; i++) {
+			Set<String> intolerances = DietaryTags.normalize(List.of(INTOLERANCES[i % INTOLERANCES.length]));
+			Set<String> preferences = DietaryTags.normalize(List.of(PREFERENCES[i % PREFERENCES.length]));
+			Map<String, Integer> ids = tags.intern(intolerances);
+			ids.putAll(tags.intern(preferences));
+			ParticipantEntity p = new ParticipantEntity();
+			p.setId(UUID.randomUUID());
+			p.setName("Partecipante " + i);
+			intolerances.forEach(tag -> p.getIntoleranceTags().add(ids.get(tag)));
+			preferences.forEach(tag -> p.getPreferenceTags().add(ids.get(tag)));
+			p.setWeight(1.0 + (i % 3) * 0.5);
+			p.setEvent(event);
+			participants.add(p);
+			event.getParticipants().add(p);
+			profile.add(p.getIntoleranceTags(), p.getPreferenceTags());
+		}
+		EventProperties properties = new EventProperties();
+		Gazetteer gazetteer = new Gazetteer(properties);
+		// Coordinate come le assegnerebbe createEvent: suggestRestaurants cerca per distanza
+		gazetteer.resolve(location).ifPresent(point -> {
+			event.setLatitude(point.latitude());
+			event.setLongitude(point.longitude());
+		});
+		service = new EventiService(repository(EventRepository.class), repository(ParticipantRepository.class),
+				repository(EventDietaryProfileRepository.class), tags, new RestaurantCatalog(properties, new ObjectMapper()), gazetteer,
+				new EventCache(properties), properties);
+	}
+
+	private <T> T repository(Class<T> type) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) ->
+				switch (method.getName()) {
+					case "findById" -> type == EventDietaryProfileRepository.class
+							? Optional.of(profile).filter(e -> e.getEventId().equals(args[0]))
+							: Optional.of(event).filter(e -> e.getId().equals(args[0]));
+					case "findWithParticipants" -> Optional.of(event).filter(e -> e.getId().equals(args[0]));
+					case "findByNameIn", "lockByNameIn" -> ((Collection<?>) args[0]).stream().map(tagTable::get).filter(t -> t != null).toList();
+					case "findAllById" -> tagTable.values().stream().filter(t -> ((Collection<?>) args[0]).contains(t.getId())).toList();
+					case "saveAndFlush" -> {
+						DietaryTagEntity tag = (DietaryTagEntity) args[0];
+						tag.setId(tagTable.size() + 1);
+						tagTable.put(tag.getName(), tag);
+						yield tag;
+					}
+					// Transazione dei tag nuovi: nessuna risorsa da gestire
+					case "getTransaction" -> new SimpleTransactionStatus();
+					case "commit", "rollback" -> null;
+					case "hashCode" -> System.identityHashCode(proxy);
+					case "equals" -> proxy == args[0];
+					case "toString" -> type.getSimpleName() + "(benchmark)";
+					default -> throw new UnsupportedOperationException(method.getName());
+				}));
+	}
+}
@@ -0,0 +1,77 @@
+package com.server.eventi.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.server.eventi.dto.BillItem;
+import com.server.eventi.dto.BillSplit;
+import com.server.eventi.dto.RestaurantSuggestion;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventiServiceBenchmark {
+
+	@Param({"10", "1000", "10000"})
+	public int participants;
+
+	private static final BigDecimal TOTAL = new BigDecimal("12345.67");
+
+	private EventiFixtures fixtures;
+	private List<BillItem> items;
+	private List<String> excluded;
+
+	// items: un piatto per un partecipante su quattro (per id) e una voce comune; alcuni esclusi. Totale = somma delle voci
+	@Setup
+	public void setUp() {
+		fixtures = new EventiFixtures(participants, "Milano");
+		items = new ArrayList<>();
+		excluded = new ArrayList<>();
+		for (int i = 0; i < participants; i++) {
+			String id = fixtures.participants.get(i).getId().toString();
+			if (i % 4 == 0) {
+				items.add(new BillItem("piatto " + i, new BigDecimal("12.50"), List.of(id)));
+			} else if (i % 10 == 1) {
+				excluded.add(id);
+			}
+		}
+		items.add(new BillItem("vino", new BigDecimal("84.00"), List.of()));
+	}
+
+	@Benchmark
+	public List<RestaurantSuggestion> suggestRestaurants() {
+		return fixtures.service.suggestRestaurants(fixtures.event.getId(), 5, null);
+	}
+
+	@Benchmark
+	public BillSplit splitBillEqual() {
+		return fixtures.service.splitBill(fixtures.event.getId(), TOTAL, "equal", List.of(), List.of());
+	}
+
+	@Benchmark
+	public BillSplit splitBillWeighted() {
+		return fixtures.service.splitBill(fixtures.event.getId(), TOTAL, "weighted", List.of(), List.of());
+	}
+
+	@Benchmark
+	public BillSplit splitBillItems() {
+		return fixtures.service.splitBill(fixtures.event.getId(), null, "items", items, excluded);
+	}
+}
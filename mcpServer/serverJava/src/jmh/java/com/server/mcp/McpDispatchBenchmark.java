@@ -0,0 +1,143 @@
+package com.server.mcp;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.server.eventi.mcp.EventiMcpTools;
+import com.server.eventi.service.EventiFixtures;
+import com.server.weather.formatter.WeatherFormatter;
+import com.server.weather.mcp.WeatherMcpTools;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Percorso completo di un frame stdio: lettura del frame, parsing, dispatch, serializzazione della risposta.
+// I tool meteo non sono invocati (richiederebbero NWS): sono registrati solo per tools/list.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class McpDispatchBenchmark {
+
+	@Param({"ping", "initialize", "tools/list", "split_bill", "suggest_restaurants"})
+	public String request;
+
+	@Param({"ndjson", "content-length"})
+	public String framing;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final McpProperties properties = new McpProperties();
+	private final McpMetrics metrics = new McpMetrics(new SimpleMeterRegistry());
+	private final McpTracing tracing = new McpTracing(properties, mapper);
+	private final McpResourceRegistry resources = new McpResourceRegistry(List.of(), mapper);
+	private final McpSession session = new McpSession("benchmark");
+	private McpDispatcher dispatcher;
+	private McpFrameReader reader;
+	private McpFrameWriter writer;
+
+	@Setup
+	public void setUp() {
+		EventiFixtures fixtures = new EventiFixtures(200, "Milano");
+		List<McpToolProvider> providers = List.of(
+				new WeatherMcpTools(null, new WeatherFormatter(), mapper, tracing),
+				new EventiMcpTools(() -> fixtures.service, mapper, metrics, tracing));
+		dispatcher = new McpDispatcher(new McpToolRegistry(providers, resources, mapper, properties), resources, mapper, properties, metrics, tracing);
+
+		String eventId = fixtures.event.getId().toString();
+		String body = switch (request) {
+			case "ping", "initialize", "tools/list" -> "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"" + request + "\"}";
+			case "split_bill" -> "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"split_bill\","
+					+ "\"arguments\":{\"event_id\":\"" + eventId + "\",\"total_amount\":480.5,\"mode\":\"weighted\"}}}";
+			case "suggest_restaurants" -> "{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{"
+					+ "\"name\":\"suggest_restaurants\",\"arguments\":{\"event_id\":\"" + eventId + "\",\"limit\":3}}}";
+			default -> throw new IllegalArgumentException(request);
+		};
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		String frame = framing.equals("ndjson")
+				? body + "\n"
+				: "Content-Length: " + bytes.length + "\r\n\r\n" + body;
+		reader = new McpFrameReader(new RepeatingChannel(frame.getBytes(StandardCharsets.UTF_8)),
+				(int) properties.getMaxFrameSize().toBytes());
+		writer = new McpFrameWriter(new DiscardingChannel(), mapper);
+	}
+
+	@Benchmark
+	public ObjectNode processFrame() throws Exception {
+		McpFrameReader.Frame frame = reader.next();
+		JsonNode parsed = mapper.readTree(frame.array(), frame.offset(), frame.length());
+		ObjectNode response = dispatcher.dispatch(parsed, session).block();
+		writer.write(response, frame.contentLength());
+		return response;
+	}
+
+	// Ripete all'infinito lo stesso frame, come un client che invia sempre la stessa richiesta.
+	private static final class RepeatingChannel implements ReadableByteChannel {
+
+		private final byte[] frame;
+		private int position;
+
+		RepeatingChannel(byte[] frame) {
+			this.frame = frame;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) {
+			int written = 0;
+			while (dst.hasRemaining()) {
+				int chunk = Math.min(dst.remaining(), frame.length - position);
+				dst.put(frame, position, chunk);
+				position = (position + chunk) % frame.length;
+				written += chunk;
+			}
+			return written;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private static final class DiscardingChannel implements WritableByteChannel {
+
+		@Override
+		public int write(ByteBuffer src) {
+			int remaining = src.remaining();
+			src.position(src.limit());
+			return remaining;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.server.mcp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Tempo dal lancio del processo alla risposta a tools/list, come lo vede un client MCP stdio.
+// Richiede il jar (mvn package); la variante fast richiede anche mvn -Pfast-startup package.
+// Solo questo benchmark: mvn -Pbenchmarks test-compile exec:exec@jmh -Djmh.args="McpStartup"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class McpStartupBenchmark {
+
+	private static final String JAR = "demojava-0.0.1-SNAPSHOT.jar";
+	private static final byte[] HANDSHAKE = ("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}\n"
+			+ "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"}\n").getBytes(StandardCharsets.UTF_8);
+
+	// jar: avvio completo con server web; stdio: profilo stdio; fast: profilo stdio + AOT + AppCDS
+	@Param({"jar", "stdio", "fast"})
+	public String launch;
+
+	private Process process;
+
+	@Benchmark
+	public String timeToToolsList() throws IOException {
+		process = new ProcessBuilder(command())
+				.redirectError(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		OutputStream in = process.getOutputStream();
+		in.write(HANDSHAKE);
+		in.flush();
+		BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+		String line;
+		while ((line = out.readLine()) != null) {
+			if (line.contains("\"id\":2")) {
+				return line;
+			}
+		}
+		throw new IllegalStateException("Processo MCP terminato prima di rispondere a tools/list.");
+	}
+
+	@TearDown(Level.Invocation)
+	public void stop() throws InterruptedException {
+		if (process != null) {
+			process.destroyForcibly().waitFor();
+		}
+	}
+
+	private List<String> command() {
+		Path target = Path.of("target");
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		switch (launch) {
+			case "jar" -> command.addAll(List.of("-jar", target.resolve(JAR).toString(), "--server.port=0"));
+			case "stdio" -> command.addAll(List.of("-Dspring.profiles.active=stdio", "-jar", target.resolve(JAR).toString()));
+			case "fast" -> {
+				Path dir = target.resolve("fast-startup");
+				if (!Files.exists(dir.resolve("demojava.jsa"))) {
+					throw new IllegalStateException("Archivio CDS assente: eseguire mvn -Pfast-startup package.");
+				}
+				command.addAll(List.of("-XX:SharedArchiveFile=" + dir.resolve("demojava.jsa"), "-Dspring.aot.enabled=true",
+						"-Dspring.profiles.active=stdio", "-jar", dir.resolve(JAR).toString()));
+			}
+			default -> throw new IllegalArgumentException(launch);
+		}
+		// Nessuna chiamata verso NWS durante la misura
+		command.addAll(List.of("--weather.alerts.poll-enabled=false", "--weather.http.prewarm-connections=0"));
+		return command;
+	}
+}
@@ -0,0 +1,51 @@
+package com.server.mcp;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.eventi.mcp.EventiMcpTools;
+import com.server.weather.formatter.WeatherFormatter;
+import com.server.weather.mcp.WeatherMcpTools;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Costruzione del registry: schemi dei provider, merge e serializzazione di tools/list e initialize.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class McpToolsListBenchmark {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final McpProperties properties = new McpProperties();
+	private final McpMetrics metrics = new McpMetrics(new SimpleMeterRegistry());
+	private final McpTracing tracing = new McpTracing(properties, mapper);
+	private final McpResourceRegistry resources = new McpResourceRegistry(List.of(), mapper);
+	private List<McpToolProvider> providers;
+
+	@Setup
+	public void setUp() {
+		providers = List.of(
+				new WeatherMcpTools(null, new WeatherFormatter(), mapper, tracing),
+				new EventiMcpTools(null, mapper, metrics, tracing));
+	}
+
+	@Benchmark
+	public McpToolRegistry buildToolsList() {
+		return new McpToolRegistry(providers, resources, mapper, properties);
+	}
+}
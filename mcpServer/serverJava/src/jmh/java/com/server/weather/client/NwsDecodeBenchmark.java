@@ -0,0 +1,62 @@
+package com.server.weather.client;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.weather.model.Alert;
+import com.server.weather.model.ForecastPeriod;
+
+// Decodifica streaming (NwsStreamDecoder) contro l'albero JsonNode completo, sugli stessi byte.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NwsDecodeBenchmark {
+
+	@Param({"10", "80"})
+	public int features;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final JsonFactory jsonFactory = mapper.getFactory();
+	private byte[] alerts;
+	private byte[] forecast;
+
+	@Setup
+	public void setUp() {
+		alerts = NwsFixtures.alertsJson(features, 120);
+		forecast = NwsFixtures.forecastJson(14);
+	}
+
+	@Benchmark
+	public List<Alert> alertsStreaming() {
+		return NwsStreamDecoder.alerts(jsonFactory, NwsFixtures.buffers(alerts, 8192)).collectList().block();
+	}
+
+	@Benchmark
+	public JsonNode alertsTree() throws Exception {
+		return mapper.readTree(alerts);
+	}
+
+	@Benchmark
+	public List<ForecastPeriod> forecastFirstThreePeriods() {
+		return NwsStreamDecoder.forecastPeriods(jsonFactory, NwsFixtures.buffers(forecast, 8192), 3)
+				.collectList().block();
+	}
+}
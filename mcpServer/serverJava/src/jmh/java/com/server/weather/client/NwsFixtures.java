@@ -0,0 +1,154 @@
+package com.server.weather.client;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.server.weather.model.Alert;
+import com.server.weather.model.ForecastPeriod;
+
+import reactor.core.publisher.Flux;
+
+// Payload con la stessa forma delle risposte NWS reali (GeoJSON con poligoni, geocode, parameters,
+// testi lunghi), generati in modo deterministico per non dipendere dalla rete.
+public final class NwsFixtures {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final String[] SEVERITIES = {"Extreme", "Severe", "Moderate", "Minor"};
+	private static final String[] EVENTS = {"Heat Advisory", "Flood Watch", "Red Flag Warning", "Wind Advisory",
+			"Winter Storm Warning", "Dense Fog Advisory"};
+	private static final String DESCRIPTION = "* WHAT...Temperatures up to 108 expected. "
+			+ "* WHERE...Portions of the San Joaquin Valley and the foothills of the Sierra Nevada. "
+			+ "* WHEN...From 11 AM Tuesday to 9 PM PDT Thursday. "
+			+ "* IMPACTS...Extreme heat will significantly increase the potential for heat related illnesses, "
+			+ "particularly for those working or participating in outdoor activities. ";
+
+	private NwsFixtures() {
+	}
+
+	public static byte[] alertsJson(int features, int polygonPoints) {
+		ObjectNode root = MAPPER.createObjectNode();
+		root.put("type", "FeatureCollection");
+		ArrayNode list = root.putArray("features");
+		for (int i = 0; i < features; i++) {
+			ObjectNode feature = list.addObject();
+			feature.put("id", "https://api.weather.gov/alerts/urn:oid:2.49.0.1.840.0." + i);
+			feature.put("type", "Feature");
+			ObjectNode geometry = feature.putObject("geometry");
+			geometry.put("type", "Polygon");
+			ArrayNode ring = geometry.putArray("coordinates").addArray();
+			for (int p = 0; p < polygonPoints; p++) {
+				ring.addArray().add(-120.0 - p * 0.0137).add(36.0 + p * 0.0091);
+			}
+			ObjectNode props = feature.putObject("properties");
+			props.put("@id", feature.get("id").asText());
+			props.put("@type", "wx:Alert");
+			props.put("id", "urn:oid:2.49.0.1.840.0." + i);
+			props.put("areaDesc", "Fresno County; Kern County; Tulare County Zone " + i);
+			ObjectNode geocode = props.putObject("geocode");
+			ArrayNode same = geocode.putArray("SAME");
+			ArrayNode ugc = geocode.putArray("UGC");
+			ArrayNode zones = props.putArray("affectedZones");
+			for (int z = 0; z < 8; z++) {
+				same.add("00601" + z);
+				ugc.add("CAZ3" + (10 + z));
+				zones.add("https://api.weather.gov/zones/forecast/CAZ3" + (10 + z));
+			}
+			props.putArray("references").addObject()
+					.put("@id", "https://api.weather.gov/alerts/urn:oid:2.49.0.1.840.0.ref" + i)
+					.put("sent", "2025-07-01T03:12:00-07:00");
+			props.put("sent", "2025-07-01T13:45:00-07:00");
+			props.put("effective", "2025-07-01T13:45:00-07:00");
+			props.put("onset", "2025-07-02T11:00:00-07:00");
+			props.put("expires", "2025-07-02T06:00:00-07:00");
+			props.put("ends", "2025-07-03T21:00:00-07:00");
+			props.put("status", "Actual");
+			props.put("messageType", "Alert");
+			props.put("category", "Met");
+			props.put("severity", SEVERITIES[i % SEVERITIES.length]);
+			props.put("certainty", "Likely");
+			props.put("urgency", "Expected");
+			props.put("event", EVENTS[i % EVENTS.length]);
+			props.put("sender", "w-nws.webmaster@noaa.gov");
+			props.put("senderName", "NWS San Joaquin Valley/Hanford CA");
+			props.put("headline", EVENTS[i % EVENTS.length] + " issued July 1 at 1:45PM PDT");
+			props.put("description", DESCRIPTION.repeat(3));
+			props.put("instruction", "Drink plenty of fluids, stay in an air-conditioned room, stay out of the sun.");
+			props.put("response", "Execute");
+			ObjectNode parameters = props.putObject("parameters");
+			parameters.putArray("AWIPSidentifier").add("NPWHNX");
+			parameters.putArray("WMOidentifier").add("WWUS76 KHNX 012045");
+			parameters.putArray("NWSheadline").add("HEAT ADVISORY IN EFFECT FROM 11 AM TUESDAY");
+			parameters.putArray("BLOCKCHANNEL").add("EAS").add("NWEM").add("CMAS");
+		}
+		root.put("title", "Current watches, warnings, and advisories for California");
+		root.put("updated", "2025-07-01T20:50:00+00:00");
+		return write(root);
+	}
+
+	public static byte[] forecastJson(int periods) {
+		ObjectNode root = MAPPER.createObjectNode();
+		root.put("type", "Feature");
+		ArrayNode ring = root.putObject("geometry").put("type", "Polygon").putArray("coordinates").addArray();
+		for (int p = 0; p < 5; p++) {
+			ring.addArray().add(-122.41 - p * 0.02).add(37.77 + p * 0.02);
+		}
+		ObjectNode props = root.putObject("properties");
+		props.put("units", "us");
+		props.put("forecastGenerator", "BaselineForecastGenerator");
+		props.put("generatedAt", "2025-07-01T20:12:04+00:00");
+		props.put("updateTime", "2025-07-01T19:51:40+00:00");
+		props.put("validTimes", "2025-07-01T13:00:00+00:00/P7DT12H");
+		props.putObject("elevation").put("unitCode", "wmoUnit:m").put("value", 44.8);
+		ArrayNode list = props.putArray("periods");
+		for (int i = 0; i < periods; i++) {
+			ObjectNode period = list.addObject();
+			period.put("number", i + 1);
+			period.put("name", i % 2 == 0 ? "Day " + i : "Night " + i);
+			period.put("startTime", "2025-07-01T14:00:00-07:00");
+			period.put("endTime", "2025-07-01T18:00:00-07:00");
+			period.put("isDaytime", i % 2 == 0);
+			period.put("temperature", 60 + i);
+			period.put("temperatureUnit", "F");
+			period.putNull("temperatureTrend");
+			period.putObject("probabilityOfPrecipitation").put("unitCode", "wmoUnit:percent").put("value", 20);
+			period.put("windSpeed", "5 to 10 mph");
+			period.put("windDirection", "WSW");
+			period.put("icon", "https://api.weather.gov/icons/land/day/few?size=medium");
+			period.put("shortForecast", "Sunny");
+			period.put("detailedForecast", "Sunny, with a high near 72. West southwest wind 5 to 10 mph, "
+					+ "with gusts as high as 20 mph.");
+		}
+		return write(root);
+	}
+
+	public static List<Alert> alerts(int features) {
+		return NwsStreamDecoder.alerts(MAPPER.getFactory(), buffers(alertsJson(features, 40), 8192))
+				.collectList().block();
+	}
+
+	public static List<ForecastPeriod> forecastPeriods(int periods) {
+		return NwsStreamDecoder.forecastPeriods(MAPPER.getFactory(), buffers(forecastJson(periods), 8192), periods)
+				.collectList().block();
+	}
+
+	// Spezza il payload in chunk come farebbe il client HTTP.
+	public static Flux<DataBuffer> buffers(byte[] payload, int chunkSize) {
+		return Flux.range(0, (payload.length + chunkSize - 1) / chunkSize)
+				.map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(payload, chunk * chunkSize,
+						Math.min(chunkSize, payload.length - chunk * chunkSize)).slice()));
+	}
+
+	private static byte[] write(ObjectNode root) {
+		try {
+			return MAPPER.writeValueAsBytes(root);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
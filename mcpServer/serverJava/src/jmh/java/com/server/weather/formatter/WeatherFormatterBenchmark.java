@@ -0,0 +1,55 @@
+package com.server.weather.formatter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.server.weather.client.NwsFixtures;
+import com.server.weather.model.Alert;
+import com.server.weather.model.ForecastBundle;
+import com.server.weather.model.Gridpoint;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherFormatterBenchmark {
+
+	@Param({"10", "80"})
+	public int alertCount;
+
+	private final WeatherFormatter formatter = new WeatherFormatter();
+	private List<Alert> alerts;
+	private ForecastBundle forecast;
+
+	@Setup
+	public void setUp() {
+		alerts = NwsFixtures.alerts(alertCount);
+		forecast = new ForecastBundle(
+				new Gridpoint("https://api.weather.gov/gridpoints/MTR/85,105/forecast", "MTR", 85, 105),
+				NwsFixtures.forecastPeriods(14));
+	}
+
+	@Benchmark
+	public String formatAlerts() {
+		return formatter.formatAlerts(alerts);
+	}
+
+	@Benchmark
+	public String formatForecast() {
+		return formatter.formatForecast(forecast);
+	}
+}
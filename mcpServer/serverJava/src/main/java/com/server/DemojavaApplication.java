@@ -3,12 +3,18 @@ package com.server;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 import com.server.eventi.config.EventProperties;
+import com.server.eventi.config.EventiRuntimeHints;
+import com.server.mcp.McpProperties;
+import com.server.mcp.McpRuntimeHints;
 import com.server.weather.config.WeatherClientProperties;
+import com.server.weather.config.WeatherRuntimeHints;
 
 @SpringBootApplication
-@EnableConfigurationProperties({WeatherClientProperties.class, EventProperties.class})
+@EnableConfigurationProperties({WeatherClientProperties.class, EventProperties.class, McpProperties.class})
+@ImportRuntimeHints({McpRuntimeHints.class, WeatherRuntimeHints.class, EventiRuntimeHints.class})
 public class DemojavaApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,9 @@
+package com.server.eventi.catalog;
+
+import java.util.Set;
+
+// Riga del catalogo gia' validata; city vuota = ristorante senza citta', proposto quando il luogo
+// dell'evento non corrisponde a nessuna citta' del catalogo. point null = senza coordinate, escluso
+// dalla ricerca per distanza.
+record CatalogEntry(String name, String city, String cuisine, String priceLevel, Set<String> supports, GeoPoint point) {
+}
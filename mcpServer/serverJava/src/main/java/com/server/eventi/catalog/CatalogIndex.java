@@ -0,0 +1,242 @@
+package com.server.eventi.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.server.eventi.dto.RestaurantSuggestion;
+
+// Indice immutabile del catalogo, ricostruito per intero a ogni reload.
+// - indice invertito citta' -> ristoranti, e dentro la citta' cucina -> ristoranti (id crescenti);
+// - supporti alimentari come bitset: ogni tag del catalogo ha un bit, ogni ristorante `words` long.
+//   "supporta tutte le intolleranze" e' un AND per parola.
+// Ranking: punteggio = partecipanti che preferiscono la cucina del ristorante. Le cucine si visitano
+// in ordine di punteggio decrescente e dentro ogni cucina i ristoranti in ordine di catalogo, quindi
+// i primi K che passano il filtro sono gia' i top-K: nessun ordinamento dei candidati.
+// Con le coordinate dell'evento si cerca prima per distanza nel GeoIndex (vedi suggestNear).
+final class CatalogIndex {
+
+    // Sconto massimo sulla distanza per la cucina piu' preferita: a 2 km conta come a 1 km.
+    static final double PREFERENCE_WEIGHT = 0.5;
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int[] NONE = new int[0];
+
+    private record Postings(int[] all, Map<Integer, int[]> byCuisine) {
+    }
+
+    private final RestaurantSuggestion[] restaurants;
+    private final int[] cuisineOf;
+    private final long[] support;
+    private final int words;
+    private final Map<String, Integer> supportBits;
+    private final Map<String, Integer> cuisineIds;
+    private final Map<String, Postings> cities;
+    private final Postings uncategorized;
+    private final int maxCityWords;
+    private final GeoIndex geo;
+
+    CatalogIndex(List<CatalogEntry> entries) {
+        int n = entries.size();
+        supportBits = new HashMap<>();
+        cuisineIds = new HashMap<>();
+        for (CatalogEntry entry : entries) {
+            entry.supports().forEach(tag -> supportBits.putIfAbsent(tag, supportBits.size()));
+            cuisineIds.putIfAbsent(entry.cuisine(), cuisineIds.size());
+        }
+        words = Math.max(1, (supportBits.size() + 63) / 64);
+        restaurants = new RestaurantSuggestion[n];
+        cuisineOf = new int[n];
+        support = new long[n * words];
+
+        Map<String, List<Integer>> cityMembers = new LinkedHashMap<>();
+        Map<String, String> cityNames = new HashMap<>();
+        List<Integer> noCity = new ArrayList<>();
+        List<Integer> located = new ArrayList<>();
+        int longestCity = 1;
+        for (int id = 0; id < n; id++) {
+            CatalogEntry entry = entries.get(id);
+            String cityKey = key(entry.city());
+            if (cityKey.isEmpty()) {
+                noCity.add(id);
+            } else {
+                cityMembers.computeIfAbsent(cityKey, k -> new ArrayList<>()).add(id);
+                cityNames.putIfAbsent(cityKey, entry.city().trim());
+                longestCity = Math.max(longestCity, cityKey.split(" ").length);
+            }
+            if (entry.point() != null) {
+                located.add(id);
+            }
+            cuisineOf[id] = cuisineIds.get(entry.cuisine());
+            for (String tag : entry.supports()) {
+                int bit = supportBits.get(tag);
+                support[id * words + (bit >>> 6)] |= 1L << bit;
+            }
+            String location = cityKey.isEmpty() ? "N/D" : cityNames.get(cityKey);
+            restaurants[id] = new RestaurantSuggestion(entry.name(), entry.cuisine(), entry.priceLevel(),
+                    String.join(",", entry.supports()), location, null);
+        }
+        cities = new HashMap<>();
+        cityMembers.forEach((city, ids) -> cities.put(city, postings(ids)));
+        uncategorized = postings(noCity);
+        maxCityWords = longestCity;
+        geo = new GeoIndex(located.stream().mapToInt(Integer::intValue).toArray(),
+                located.stream().map(id -> entries.get(id).point()).toArray(GeoPoint[]::new));
+    }
+
+    int size() {
+        return restaurants.length;
+    }
+
+    int cities() {
+        return cities.size();
+    }
+
+    int located() {
+        return geo.size();
+    }
+
+    // Entro radiusKm dal punto, per distanza scontata fino a PREFERENCE_WEIGHT in proporzione ai
+    // partecipanti che preferiscono la cucina. Le intolleranze restano un vincolo: se nel raggio non
+    // c'e' nessun ristorante compatibile si torna alla ricerca per citta' di suggest.
+    List<RestaurantSuggestion> suggestNear(GeoPoint point, double radiusKm, String location, Collection<String> intolerances,
+                                           Map<String, Integer> preferences, int limit) {
+        long[] required = required(intolerances);
+        if (point == null || limit <= 0 || required == null || geo.size() == 0) {
+            return suggest(location, intolerances, preferences, limit);
+        }
+        double[] factors = new double[cuisineIds.size()];
+        Arrays.fill(factors, 1.0);
+        int top = preferences.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        preferences.forEach((cuisine, count) -> {
+            Integer id = cuisineIds.get(cuisine);
+            if (id != null && count > 0) {
+                factors[id] = 1.0 - PREFERENCE_WEIGHT * count / top;
+            }
+        });
+        List<GeoIndex.Hit> hits = geo.nearest(point, radiusKm, limit, 1.0 - PREFERENCE_WEIGHT,
+                id -> supportsAll(id, required) ? factors[cuisineOf[id]] : -1);
+        if (hits.isEmpty()) {
+            return suggest(location, intolerances, preferences, limit);
+        }
+        List<RestaurantSuggestion> result = new ArrayList<>(hits.size());
+        for (GeoIndex.Hit hit : hits) {
+            RestaurantSuggestion r = restaurants[hit.id()];
+            result.add(new RestaurantSuggestion(r.name(), r.cuisine(), r.priceLevel(), r.supports(), r.location(), hit.km()));
+        }
+        return result;
+    }
+
+    // intolerances e preferences sono tag normalizzati; preferences: cucina -> partecipanti.
+    // Se nessun ristorante soddisfa tutte le intolleranze si ripiega sul ranking senza vincoli.
+    List<RestaurantSuggestion> suggest(String location, Collection<String> intolerances, Map<String, Integer> preferences, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Postings postings = city(location);
+        long[] required = required(intolerances);
+        List<RestaurantSuggestion> result = required != null ? rank(postings, required, preferences, limit) : List.of();
+        return result.isEmpty() ? rank(postings, new long[words], preferences, limit) : result;
+    }
+
+    private List<RestaurantSuggestion> rank(Postings postings, long[] required, Map<String, Integer> preferences, int limit) {
+        List<RestaurantSuggestion> result = new ArrayList<>(Math.min(limit, postings.all().length));
+        boolean[] visited = new boolean[cuisineIds.size()];
+        for (int cuisine : preferredCuisines(preferences)) {
+            visited[cuisine] = true;
+            if (collect(postings.byCuisine().getOrDefault(cuisine, NONE), required, null, result, limit)) {
+                return result;
+            }
+        }
+        collect(postings.all(), required, visited, result, limit);
+        return result;
+    }
+
+    // true quando result e' pieno.
+    private boolean collect(int[] ids, long[] required, boolean[] skipCuisines, List<RestaurantSuggestion> result, int limit) {
+        for (int id : ids) {
+            if (skipCuisines != null && skipCuisines[cuisineOf[id]]) {
+                continue;
+            }
+            if (supportsAll(id, required)) {
+                result.add(restaurants[id]);
+                if (result.size() == limit) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean supportsAll(int id, long[] required) {
+        int base = id * words;
+        for (int w = 0; w < words; w++) {
+            if ((support[base + w] & required[w]) != required[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // null se un'intolleranza non e' supportata da nessun ristorante del catalogo.
+    private long[] required(Collection<String> intolerances) {
+        long[] mask = new long[words];
+        for (String tag : intolerances) {
+            Integer bit = supportBits.get(tag);
+            if (bit == null) {
+                return null;
+            }
+            mask[bit >>> 6] |= 1L << bit;
+        }
+        return mask;
+    }
+
+    // Cucine note al catalogo, per punteggio decrescente; a parita' per nome.
+    private int[] preferredCuisines(Map<String, Integer> preferences) {
+        return preferences.entrySet().stream()
+                .filter(e -> e.getValue() > 0 && cuisineIds.containsKey(e.getKey()))
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .mapToInt(e -> cuisineIds.get(e.getKey()))
+                .toArray();
+    }
+
+    // La citta' piu' lunga (in parole) contenuta nel luogo: "Sesto San Giovanni" batte "San Giovanni".
+    // A parita' vince l'ultima, come negli indirizzi: "Via Roma 3, Milano" e' Milano.
+    private Postings city(String location) {
+        String[] tokens = key(location).split(" ");
+        for (int size = Math.min(maxCityWords, tokens.length); size > 0; size--) {
+            for (int start = tokens.length - size; start >= 0; start--) {
+                Postings postings = cities.get(String.join(" ", Arrays.copyOfRange(tokens, start, start + size)));
+                if (postings != null) {
+                    return postings;
+                }
+            }
+        }
+        return uncategorized;
+    }
+
+    // Minuscolo, senza accenti ne' punteggiatura: "Forlì," e "forli" sono la stessa chiave.
+    static String key(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private Postings postings(List<Integer> ids) {
+        Map<Integer, List<Integer>> grouped = new HashMap<>();
+        ids.forEach(id -> grouped.computeIfAbsent(cuisineOf[id], c -> new ArrayList<>()).add(id));
+        Map<Integer, int[]> byCuisine = new HashMap<>();
+        grouped.forEach((cuisine, members) -> byCuisine.put(cuisine, members.stream().mapToInt(Integer::intValue).toArray()));
+        return new Postings(ids.stream().mapToInt(Integer::intValue).toArray(), byCuisine);
+    }
+}
@@ -0,0 +1,177 @@
+package com.server.eventi.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.eventi.service.DietaryTags;
+
+// Legge il catalogo ristoranti da CSV (intestazione name,city,cuisine,price_level,supports[,latitude,longitude];
+// supports separati da ';' o '|') oppure da JSON (array di oggetti con le stesse chiavi, supports stringa
+// o array). Le righe senza nome o cucina, o con coordinate non valide, vengono scartate con un warning,
+// senza far fallire il caricamento.
+final class CatalogLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogLoader.class);
+    private static final List<String> COLUMNS = List.of("name", "city", "cuisine", "price_level", "supports", "latitude", "longitude");
+
+    private final ObjectMapper mapper;
+
+    CatalogLoader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    List<CatalogEntry> load(String source, InputStream in) throws IOException {
+        return source.toLowerCase(Locale.ROOT).endsWith(".json") ? loadJson(source, in) : loadCsv(source, in);
+    }
+
+    private List<CatalogEntry> loadCsv(String source, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return List.of();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("cuisine")) {
+            throw new IOException("Catalogo " + source + ": intestazione CSV senza colonne name/cuisine (attese " + COLUMNS + ")");
+        }
+        List<CatalogEntry> entries = new ArrayList<>();
+        int skipped = 0;
+        String line;
+        int number = 1;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsv(line);
+            CatalogEntry entry = entry(column(fields, columns, "name"), column(fields, columns, "city"),
+                    column(fields, columns, "cuisine"), column(fields, columns, "price_level"),
+                    Arrays.asList(column(fields, columns, "supports").split("[;|]")),
+                    column(fields, columns, "latitude"), column(fields, columns, "longitude"));
+            if (entry == null) {
+                skipped = skip(source, number, skipped);
+            } else {
+                entries.add(entry);
+            }
+        }
+        return done(source, entries, skipped);
+    }
+
+    private List<CatalogEntry> loadJson(String source, InputStream in) throws IOException {
+        JsonNode root = mapper.readTree(in);
+        if (!root.isArray()) {
+            throw new IOException("Catalogo " + source + ": atteso un array JSON di ristoranti");
+        }
+        List<CatalogEntry> entries = new ArrayList<>(root.size());
+        int skipped = 0;
+        int number = 0;
+        for (JsonNode node : root) {
+            number++;
+            JsonNode supportsNode = node.path("supports");
+            List<String> supports = new ArrayList<>();
+            if (supportsNode.isArray()) {
+                supportsNode.forEach(tag -> supports.add(tag.asText()));
+            } else {
+                supports.addAll(Arrays.asList(supportsNode.asText("").split("[;|,]")));
+            }
+            CatalogEntry entry = entry(node.path("name").asText(""), node.path("city").asText(""),
+                    node.path("cuisine").asText(""), node.path("price_level").asText(""), supports,
+                    node.path("latitude").asText(""), node.path("longitude").asText(""));
+            if (entry == null) {
+                skipped = skip(source, number, skipped);
+            } else {
+                entries.add(entry);
+            }
+        }
+        return done(source, entries, skipped);
+    }
+
+    private static CatalogEntry entry(String name, String city, String cuisine, String priceLevel, List<String> supports,
+                                      String latitude, String longitude) {
+        Set<String> cuisines = DietaryTags.normalize(List.of(cuisine));
+        if (name.isBlank() || cuisines.isEmpty()) {
+            return null;
+        }
+        try {
+            return new CatalogEntry(name.trim(), city.trim(), cuisines.iterator().next(), priceLevel.trim(),
+                    DietaryTags.normalize(supports), point(latitude, longitude));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Entrambe vuote = nessuna coordinata; una sola o fuori intervallo = riga non valida.
+    static GeoPoint point(String latitude, String longitude) {
+        if (latitude.isBlank() && longitude.isBlank()) {
+            return null;
+        }
+        return new GeoPoint(Double.parseDouble(latitude.trim()), Double.parseDouble(longitude.trim()));
+    }
+
+    private static int skip(String source, int number, int skipped) {
+        if (skipped < 10) {
+            log.warn("Catalogo {}: riga {} scartata (nome o cucina mancanti, tag o coordinate non validi).", source, number);
+        }
+        return skipped + 1;
+    }
+
+    private static List<CatalogEntry> done(String source, List<CatalogEntry> entries, int skipped) {
+        if (skipped > 0) {
+            log.warn("Catalogo {}: {} righe scartate.", source, skipped);
+        }
+        return entries;
+    }
+
+    private static String column(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < fields.size() ? fields.get(index) : "";
+    }
+
+    // CSV RFC 4180 su una riga: virgolette per i campi con virgole, "" per una virgoletta.
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,161 @@
+package com.server.eventi.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.server.eventi.config.EventProperties;
+
+// Dizionario offline luogo -> coordinate, da CSV name,latitude,longitude (eventi.catalog.gazetteer-file,
+// altrimenti quello incluso con i principali comuni italiani). Nel testo del luogo si cerca il nome piu'
+// lungo in parole, a parita' l'ultimo; i nomi di almeno 5 lettere tollerano un errore di battitura
+// (due oltre le 8 lettere): "Sesto San Giovani" trova Sesto San Giovanni.
+@Component
+public class Gazetteer {
+
+    private static final Logger log = LoggerFactory.getLogger(Gazetteer.class);
+    static final String BUNDLED = "eventi/gazetteer.csv";
+
+    private final Map<String, GeoPoint> places = new HashMap<>();
+    // Nomi per numero di parole, per il confronto approssimato
+    private final Map<Integer, List<String>> byWords = new HashMap<>();
+    private int maxWords = 1;
+
+    public Gazetteer(EventProperties properties) {
+        String file = properties.getCatalog().getGazetteerFile();
+        String source = file == null || file.isBlank() ? BUNDLED : file.trim();
+        try (InputStream in = file == null || file.isBlank()
+                ? Gazetteer.class.getClassLoader().getResourceAsStream(BUNDLED)
+                : Files.newInputStream(Path.of(source))) {
+            if (in == null) {
+                throw new IllegalStateException("Gazetteer di esempio assente dal classpath: " + BUNDLED);
+            }
+            load(source, in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Gazetteer non leggibile: " + source, e);
+        }
+        log.debug("Gazetteer {}: {} luoghi.", source, places.size());
+    }
+
+    public Optional<GeoPoint> resolve(String location) {
+        String[] tokens = CatalogIndex.key(location).split(" ");
+        for (int size = Math.min(maxWords, tokens.length); size > 0; size--) {
+            for (int start = tokens.length - size; start >= 0; start--) {
+                String candidate = String.join(" ", Arrays.copyOfRange(tokens, start, start + size));
+                GeoPoint exact = places.get(candidate);
+                if (exact != null) {
+                    return Optional.of(exact);
+                }
+                String closest = closest(candidate, size);
+                if (closest != null) {
+                    return Optional.of(places.get(closest));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    int size() {
+        return places.size();
+    }
+
+    // Il nome con meno errori entro la tolleranza, a parita' il primo del file; null se nessuno.
+    private String closest(String candidate, int words) {
+        int allowed = allowedTypos(candidate.length());
+        String best = null;
+        for (String name : allowed == 0 ? List.<String>of() : byWords.getOrDefault(words, List.of())) {
+            if (Math.abs(name.length() - candidate.length()) > allowed) {
+                continue;
+            }
+            int distance = distance(candidate, name, allowed);
+            if (distance <= allowed) {
+                best = name;
+                allowed = distance - 1;
+            }
+        }
+        return best;
+    }
+
+    private void load(String source, InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.readLine(); // intestazione
+        String line;
+        int skipped = 0;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = CatalogLoader.splitCsv(line);
+            String key = CatalogIndex.key(fields.get(0));
+            GeoPoint point;
+            try {
+                point = key.isEmpty() || fields.size() < 3 ? null : CatalogLoader.point(fields.get(1), fields.get(2));
+            } catch (IllegalArgumentException e) {
+                point = null;
+            }
+            if (point == null) {
+                skipped++;
+            } else if (places.putIfAbsent(key, point) == null) {
+                int words = key.split(" ").length;
+                byWords.computeIfAbsent(words, n -> new ArrayList<>()).add(key);
+                maxWords = Math.max(maxWords, words);
+            }
+        }
+        if (skipped > 0) {
+            log.warn("Gazetteer {}: {} righe scartate (nome o coordinate non validi).", source, skipped);
+        }
+    }
+
+    private static int allowedTypos(int length) {
+        return length < 5 ? 0 : length <= 8 ? 1 : 2;
+    }
+
+    // Distanza di Damerau-Levenshtein ristretta (scambio di lettere adiacenti = 1); oltre max restituisce max + 1.
+    static int distance(String a, String b, int max) {
+        if (max < 0) {
+            return Integer.MAX_VALUE;
+        }
+        int[] before = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = before;
+            before = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,221 @@
+package com.server.eventi.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+// KD-tree statico sui ristoranti con coordinate. I punti sono vettori unitari 3D: la distanza euclidea
+// (corda) cresce con quella sulla sfera, quindi niente casi speciali ai poli o sull'antimeridiano.
+// L'albero e' implicito negli array: il nodo [lo, hi) ha il mediano in (lo + hi) / 2 sull'asse di
+// massima estensione del nodo (su un'area piccola una delle tre coordinate quasi non varia), a sinistra
+// i punti <= e a destra i >=.
+final class GeoIndex {
+
+    record Hit(int id, double km) {
+    }
+
+    private final int[] ids;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final byte[] axes;
+
+    GeoIndex(int[] ids, GeoPoint[] points) {
+        int n = ids.length;
+        this.ids = ids.clone();
+        x = new double[n];
+        y = new double[n];
+        z = new double[n];
+        axes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(points[i].latitude());
+            double lon = Math.toRadians(points[i].longitude());
+            x[i] = Math.cos(lat) * Math.cos(lon);
+            y[i] = Math.cos(lat) * Math.sin(lon);
+            z[i] = Math.sin(lat);
+        }
+        build(0, n);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    // I k ristoranti entro radiusKm con il punteggio minore, punteggio = distanza * factor(id).
+    // factor negativo esclude il ristorante; minFactor e' il minimo che factor puo' restituire e
+    // serve a scartare i rami dell'albero che non possono piu' entrare nei primi k.
+    List<Hit> nearest(GeoPoint point, double radiusKm, int k, double minFactor, IntToDoubleFunction factor) {
+        Query query = new Query(point, radiusKm, k, minFactor, factor);
+        search(0, ids.length, query);
+        List<Hit> hits = new ArrayList<>(query.size);
+        for (int i = 0; i < query.size; i++) {
+            hits.add(new Hit(query.found[i], chordToKm(query.chords[i])));
+        }
+        return hits;
+    }
+
+    private void search(int lo, int hi, Query query) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        query.consider(ids[mid], x[mid], y[mid], z[mid]);
+        int axis = axes[mid];
+        double diff = coordinate(axis, mid) - query.target[axis];
+        if (diff > 0) {
+            search(lo, mid, query);
+            if (query.reachable(diff)) {
+                search(mid + 1, hi, query);
+            }
+        } else {
+            search(mid + 1, hi, query);
+            if (query.reachable(-diff)) {
+                search(lo, mid, query);
+            }
+        }
+    }
+
+    private static final class Query {
+        final double[] target = new double[3];
+        final double radius;
+        final int k;
+        final double minFactor;
+        final IntToDoubleFunction factor;
+        // Primi k in ordine di punteggio crescente (a parita', id crescente)
+        final int[] found;
+        final double[] scores;
+        final double[] chords;
+        int size;
+
+        Query(GeoPoint point, double radiusKm, int k, double minFactor, IntToDoubleFunction factor) {
+            double lat = Math.toRadians(point.latitude());
+            double lon = Math.toRadians(point.longitude());
+            target[0] = Math.cos(lat) * Math.cos(lon);
+            target[1] = Math.cos(lat) * Math.sin(lon);
+            target[2] = Math.sin(lat);
+            this.radius = 2 * Math.sin(Math.min(radiusKm / GeoPoint.EARTH_RADIUS_KM, Math.PI) / 2);
+            this.k = k;
+            this.minFactor = minFactor;
+            this.factor = factor;
+            found = new int[k];
+            scores = new double[k];
+            chords = new double[k];
+        }
+
+        // Il piano di taglio dista gap: nessun punto oltre puo' essere piu' vicino di cosi'.
+        boolean reachable(double gap) {
+            return gap <= radius && (size < k || gap * minFactor <= scores[size - 1]);
+        }
+
+        void consider(int id, double px, double py, double pz) {
+            double dx = px - target[0];
+            double dy = py - target[1];
+            double dz = pz - target[2];
+            double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (chord > radius) {
+                return;
+            }
+            double f = factor.applyAsDouble(id);
+            if (f < 0) {
+                return;
+            }
+            double score = chord * f;
+            int at = size;
+            while (at > 0 && (scores[at - 1] > score || scores[at - 1] == score && found[at - 1] > id)) {
+                at--;
+            }
+            if (at == k) {
+                return;
+            }
+            int last = Math.min(size, k - 1);
+            System.arraycopy(found, at, found, at + 1, last - at);
+            System.arraycopy(scores, at, scores, at + 1, last - at);
+            System.arraycopy(chords, at, chords, at + 1, last - at);
+            found[at] = id;
+            scores[at] = score;
+            chords[at] = chord;
+            size = Math.min(size + 1, k);
+        }
+    }
+
+    private static double chordToKm(double chord) {
+        return 2 * GeoPoint.EARTH_RADIUS_KM * Math.asin(Math.min(1, chord / 2));
+    }
+
+    private double coordinate(int axis, int i) {
+        return axis == 0 ? x[i] : axis == 1 ? y[i] : z[i];
+    }
+
+    private void build(int lo, int hi) {
+        if (hi - lo < 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int axis = widestAxis(lo, hi);
+        axes[mid] = (byte) axis;
+        select(lo, hi - 1, mid, axis);
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    private int widestAxis(int lo, int hi) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double c = coordinate(axis, i);
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+            if (max - min > widestSpread) {
+                widest = axis;
+                widestSpread = max - min;
+            }
+        }
+        return widest;
+    }
+
+    // Quickselect: porta in k l'elemento che ci starebbe con l'intervallo ordinato sull'asse.
+    private void select(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            double pivot = coordinate(axis, (lo + hi) >>> 1);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinate(axis, i) < pivot) {
+                    i++;
+                }
+                while (coordinate(axis, j) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double t = x[a];
+        x[a] = x[b];
+        x[b] = t;
+        t = y[a];
+        y[a] = y[b];
+        y[b] = t;
+        t = z[a];
+        z[a] = z[b];
+        z[b] = t;
+    }
+}
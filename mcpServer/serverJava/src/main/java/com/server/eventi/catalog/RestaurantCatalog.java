@@ -0,0 +1,152 @@
+package com.server.eventi.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.eventi.config.EventProperties;
+import com.server.eventi.dto.RestaurantSuggestion;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Catalogo ristoranti in memoria. Con eventi.catalog.file il file viene controllato a intervallo fisso
+// (data di modifica e dimensione) e, se cambia, riletto e indicizzato fuori dal percorso delle richieste;
+// il nuovo indice sostituisce il vecchio in un solo passo. Un file illeggibile lascia in uso l'ultimo
+// indice valido.
+@Component
+public class RestaurantCatalog implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RestaurantCatalog.class);
+    static final String BUNDLED = "eventi/restaurants.csv";
+
+    private final CatalogLoader loader;
+    private final Path file;
+    private final Duration reloadInterval;
+    private volatile CatalogIndex index;
+    private volatile FileStamp stamp;
+    private Disposable polling;
+
+    private record FileStamp(long modified, long size) {
+    }
+
+    @Autowired
+    public RestaurantCatalog(EventProperties properties, ObjectMapper mapper) {
+        EventProperties.Catalog config = properties.getCatalog();
+        this.loader = new CatalogLoader(mapper);
+        this.file = config.getFile() == null || config.getFile().isBlank() ? null : Path.of(config.getFile().trim());
+        this.reloadInterval = config.getReloadInterval();
+        if (file == null) {
+            this.index = loadBundled();
+        } else {
+            try {
+                reload();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Catalogo ristoranti non leggibile: " + file, e);
+            }
+        }
+    }
+
+    // Catalogo fisso, senza file: per test e benchmark.
+    RestaurantCatalog(List<CatalogEntry> entries) {
+        this.loader = null;
+        this.file = null;
+        this.reloadInterval = Duration.ZERO;
+        this.index = new CatalogIndex(entries);
+    }
+
+    public List<RestaurantSuggestion> suggest(String location, Collection<String> intolerances,
+                                              Map<String, Integer> preferences, int limit) {
+        return index.suggest(location, intolerances, preferences, limit);
+    }
+
+    // Per distanza da point entro radiusKm; senza point, o senza risultati nel raggio, come suggest.
+    public List<RestaurantSuggestion> suggestNear(GeoPoint point, double radiusKm, String location,
+                                                  Collection<String> intolerances, Map<String, Integer> preferences, int limit) {
+        return index.suggestNear(point, radiusKm, location, intolerances, preferences, limit);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (file == null || reloadInterval == null || reloadInterval.isZero() || reloadInterval.isNegative()) {
+            return;
+        }
+        polling = Flux.interval(reloadInterval, reloadInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> Mono.fromCallable(this::reloadIfChanged)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(error -> {
+                            log.warn("Reload catalogo ristoranti {} fallito, resta in uso quello precedente: {}", file, error.getMessage());
+                            return Mono.just(false);
+                        }), 1)
+                .subscribe();
+    }
+
+    // true se il file era cambiato ed e' stato ricaricato.
+    boolean reloadIfChanged() throws IOException {
+        if (file == null || current().equals(stamp)) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    private void reload() throws IOException {
+        // Registrato prima di leggere: un file rotto si riprova solo alla modifica successiva
+        stamp = current();
+        List<CatalogEntry> entries;
+        try (InputStream in = Files.newInputStream(file)) {
+            entries = loader.load(file.getFileName().toString(), in);
+        }
+        index = new CatalogIndex(entries);
+        log.info("Catalogo ristoranti caricato da {}: {} ristoranti in {} citta', {} con coordinate.", file, index.size(),
+                index.cities(), index.located());
+    }
+
+    private FileStamp current() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new FileStamp(attributes.lastModifiedTime().toMillis(), attributes.size());
+    }
+
+    private CatalogIndex loadBundled() {
+        try (InputStream in = RestaurantCatalog.class.getClassLoader().getResourceAsStream(BUNDLED)) {
+            if (in == null) {
+                throw new IllegalStateException("Catalogo di esempio assente dal classpath: " + BUNDLED);
+            }
+            CatalogIndex bundled = new CatalogIndex(loader.load(BUNDLED, in));
+            log.debug("Catalogo ristoranti di esempio: {} ristoranti.", bundled.size());
+            return bundled;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (polling != null) {
+            polling.dispose();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.server.eventi.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "eventi")
@@ -7,6 +9,10 @@ public class EventProperties {
 
     private String defaultCurrency = "EUR";
     private int suggestionLimit = 5;
+    // Raggio di ricerca per gli eventi con coordinate
+    private double suggestionRadiusKm = 10;
+    private final Catalog catalog = new Catalog();
+    private final Cache cache = new Cache();
 
     public String getDefaultCurrency() {
         return defaultCurrency;
@@ -23,4 +29,86 @@ public class EventProperties {
     public void setSuggestionLimit(int suggestionLimit) {
         this.suggestionLimit = suggestionLimit;
     }
+
+    public double getSuggestionRadiusKm() {
+        return suggestionRadiusKm;
+    }
+
+    public void setSuggestionRadiusKm(double suggestionRadiusKm) {
+        this.suggestionRadiusKm = suggestionRadiusKm;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public static class Cache {
+
+        private boolean enabled = true;
+        private int maxEntries = 1000;
+        // Limite alla durata di una voce: copre le modifiche fatte da altre istanze sullo stesso database
+        private Duration ttl = Duration.ofSeconds(60);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    public static class Catalog {
+
+        // File CSV o JSON dei ristoranti; vuoto = catalogo di esempio incluso nel jar
+        private String file = "";
+        // Controllo di modifica del file; zero o negativo disattiva il reload
+        private Duration reloadInterval = Duration.ofSeconds(30);
+        // CSV name,latitude,longitude per geolocalizzare il luogo degli eventi; vuoto = comuni italiani inclusi
+        private String gazetteerFile = "";
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public Duration getReloadInterval() {
+            return reloadInterval;
+        }
+
+        public void setReloadInterval(Duration reloadInterval) {
+            this.reloadInterval = reloadInterval;
+        }
+
+        public String getGazetteerFile() {
+            return gazetteerFile;
+        }
+
+        public void setGazetteerFile(String gazetteerFile) {
+            this.gazetteerFile = gazetteerFile;
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.server.eventi.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.server.eventi.model.DietaryTagEntity;
+import com.server.eventi.model.EventDietaryProfileEntity;
+import com.server.eventi.model.EventEntity;
+import com.server.eventi.model.ParticipantEntity;
+import com.server.eventi.model.TagCountsConverter;
+
+// Hint per l'immagine nativa. Senza bytecode enhancement Hibernate accede alle entita' via
+// reflection (campi privati, costruttore vuoto) e non puo' generare proxy a runtime: le
+// associazioni LAZY verso un singolo evento vengono caricate subito. JpaQueryCounter
+// e il converter dei conteggi per tag sono istanziati da Hibernate per nome di classe. Il catalogo
+// ristoranti e il gazetteer di esempio vengono letti dal classpath.
+public class EventiRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> entity : new Class<?>[] {EventEntity.class, ParticipantEntity.class,
+                DietaryTagEntity.class, EventDietaryProfileEntity.class}) {
+            hints.reflection().registerType(entity, MemberCategory.ACCESS_DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        hints.reflection().registerType(JpaQueryCounter.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(TagCountsConverter.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("eventi/restaurants.csv");
+        hints.resources().registerPattern("eventi/gazetteer.csv");
+    }
+}
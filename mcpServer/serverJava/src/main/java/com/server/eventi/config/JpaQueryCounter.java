@@ -0,0 +1,62 @@
+package com.server.eventi.config;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Conta le istruzioni SQL preparate da Hibernate sul thread corrente, solo dentro measure().
+// Registrato con spring.jpa.properties.hibernate.session_factory.statement_inspector: Hibernate lo
+// istanzia da se', quindi lo stato e' statico. I tool eventi sono bloccanti e girano interi su un
+// solo thread virtuale, per cui il conteggio per thread coincide con quello per chiamata.
+// L'inspector vede l'SQL quando viene preparato, non quando termina: per il tracing ogni istruzione
+// e' un evento puntuale, non uno span con durata.
+public class JpaQueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<Measure> CURRENT = new ThreadLocal<>();
+
+    private static final class Measure {
+
+        final Consumer<String> statements;
+        long count;
+
+        Measure(Consumer<String> statements) {
+            this.statements = statements;
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Measure measure = CURRENT.get();
+        if (measure != null) {
+            measure.count++;
+            if (measure.statements != null) {
+                measure.statements.accept(sql);
+            }
+        }
+        return sql;
+    }
+
+    public static <T> T measure(Callable<T> work, LongConsumer queries) throws Exception {
+        return measure(work, null, queries);
+    }
+
+    // statements (opzionale) riceve ogni SQL preparato dentro work.
+    public static <T> T measure(Callable<T> work, Consumer<String> statements, LongConsumer queries) throws Exception {
+        Measure previous = CURRENT.get();
+        Measure measure = new Measure(statements);
+        CURRENT.set(measure);
+        try {
+            return work.call();
+        } finally {
+            if (previous != null) {
+                previous.count += measure.count;
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            queries.accept(measure.count);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.server.eventi.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Voce del conto per lo split "items": participants sono id o nomi; vuoto = tutti i non esclusi.
+public record BillItem(
+        String description,
+        BigDecimal amount,
+        List<String> participants) {
+}
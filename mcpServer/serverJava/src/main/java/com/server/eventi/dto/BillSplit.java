@@ -0,0 +1,19 @@
+package com.server.eventi.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// Importi in unita' minime della valuta (centesimi per EUR, fractionDigits = 2): la somma delle quote e'
+// sempre totalMinor. Le quote seguono l'ordine dei partecipanti per nome; gli esclusi compaiono con
+// excluded = true (e importo 0, salvo voci assegnate a loro).
+public record BillSplit(
+        UUID eventId,
+        String mode,
+        String currency,
+        int fractionDigits,
+        long totalMinor,
+        List<Share> shares) {
+
+    public record Share(UUID participantId, String name, long amountMinor, boolean excluded) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.server.eventi.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Evento con partecipanti e aggregato alimentare, letto con una sola query e immutabile: e' il valore
+// condiviso dalla cache degli eventi. intoleranceTags/preferenceCounts vengono da event_dietary_profiles.
+public record EventDetails(
+        UUID id,
+        String name,
+        String dateTime,
+        String location,
+        Double latitude,
+        Double longitude,
+        BigDecimal budget,
+        String currency,
+        String notes,
+        List<ParticipantDetails> participants,
+        Set<Integer> intoleranceTags,
+        Map<Integer, Integer> preferenceCounts) {
+}
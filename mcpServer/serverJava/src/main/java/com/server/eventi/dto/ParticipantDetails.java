@@ -0,0 +1,12 @@
+package com.server.eventi.dto;
+
+import java.util.Set;
+import java.util.UUID;
+
+public record ParticipantDetails(
+        UUID id,
+        String name,
+        Set<Integer> intoleranceTags,
+        Set<Integer> preferenceTags,
+        double weight) {
+}
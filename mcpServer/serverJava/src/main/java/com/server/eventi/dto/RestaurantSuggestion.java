@@ -5,5 +5,6 @@ public record RestaurantSuggestion(
         String cuisine,
         String priceLevel,
         String supports,
-        String location) {
+        String location,
+        Double distanceKm) {
 }
@@ -0,0 +1,333 @@
+package com.server.eventi.mcp;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.server.eventi.catalog.GeoPoint;
+import com.server.eventi.config.JpaQueryCounter;
+import com.server.eventi.dto.BillItem;
+import com.server.eventi.dto.BillSplit;
+import com.server.eventi.dto.EventDetails;
+import com.server.eventi.service.BillSplitter;
+import com.server.eventi.service.EventiService;
+import com.server.mcp.McpMetrics;
+import com.server.mcp.McpTool;
+import com.server.mcp.McpToolHandler;
+import com.server.mcp.McpToolProvider;
+import com.server.mcp.McpTracing;
+
+import io.micrometer.observation.Observation;
+
+@Component
+@ConditionalOnProperty(name = "eventi.mcp-stdio-enabled", havingValue = "true", matchIfMissing = true)
+public class EventiMcpTools implements McpToolProvider {
+
+    private final ObjectFactory<EventiService> service;
+    private final ObjectMapper mapper;
+    private final McpMetrics metrics;
+    private final McpTracing tracing;
+
+    // Servizio risolto alla prima chiamata: con il profilo stdio tools/list non aspetta i repository JPA.
+    public EventiMcpTools(ObjectFactory<EventiService> service, ObjectMapper mapper, McpMetrics metrics,
+                          McpTracing tracing) {
+        this.service = service;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public List<McpTool> tools() {
+        return List.of(
+                tool("create_event", "Crea un evento", obj(
+                        prop("name", "string", "Nome evento"),
+                        prop("date", "string", "Data/ora testuale"),
+                        prop("location", "string", "Luogo"),
+                        prop("latitude", "number", "Latitudine (con longitude; altrimenti dal luogo)", false),
+                        prop("longitude", "number", "Longitudine", false),
+                        prop("budget", "number", "Budget totale", false),
+                        prop("notes", "string", "Note", false)
+                ), List.of("name", "date", "location"), args -> respondText(createEvent(args))),
+
+                tool("add_participant", "Aggiunge partecipante", obj(
+                        prop("event_id", "string", "ID evento"),
+                        prop("name", "string", "Nome partecipante"),
+                        prop("intolerances", "array", "Intolleranze/allergie", false),
+                        prop("preferences", "array", "Preferenze cucina", false),
+                        prop("weight", "number", "Peso per split", false)
+                ), List.of("event_id", "name"), args -> respondText(addParticipant(args))),
+
+                tool("update_preferences", "Aggiorna preferenze partecipante", obj(
+                        prop("event_id", "string", "ID evento"),
+                        prop("participant_id", "string", "ID partecipante"),
+                        prop("intolerances", "array", "Intolleranze/allergie", false),
+                        prop("preferences", "array", "Preferenze cucina", false),
+                        prop("weight", "number", "Peso per split", false)
+                ), List.of("event_id", "participant_id"), args -> respondText(updateParticipant(args))),
+
+                tool("event_summary", "Riepilogo evento e partecipanti", obj(
+                        prop("event_id", "string", "ID evento")
+                ), List.of("event_id"), args -> respondText(eventSummary(args))),
+
+                tool("suggest_restaurants", "Suggerimenti ristoranti compatibili", obj(
+                        prop("event_id", "string", "ID evento"),
+                        prop("limit", "integer", "Numero massimo", false),
+                        prop("radius_km", "number", "Raggio in km per gli eventi con coordinate", false)
+                ), List.of("event_id"), args -> respondText(suggest(args))),
+
+                tool("split_bill", "Divide il conto", obj(
+                        prop("event_id", "string", "ID evento"),
+                        prop("total_amount", "number", "Importo totale (default: budget; con items la somma delle voci)", false),
+                        prop("mode", "string", "equal|weighted|items", false),
+                        prop("items", "array", "Voci per items: {description, amount, participants (id o nomi, vuoto = tutti)}", false),
+                        prop("exclude", "array", "Partecipanti (id o nomi) esclusi dalle parti comuni", false),
+                        prop("format", "string", "text|json", false)
+                ), List.of("event_id"), args -> respondText(split(args))));
+    }
+
+    private McpTool tool(String name, String description, ObjectNode schema, List<String> required, McpToolHandler handler) {
+        schema.set("required", mapper.valueToTree(required));
+        return McpTool.blocking(name, description, schema, args -> traced(name, handler, args));
+    }
+
+    // Span eventi.service sotto il dispatch, con un evento jpa.query per ogni SQL preparato da Hibernate.
+    private Object traced(String name, McpToolHandler handler, JsonNode args) throws Exception {
+        Observation span = tracing.start("eventi.service", tracing.current());
+        if (span.isNoop()) {
+            return JpaQueryCounter.measure(() -> handler.call(args), queries -> metrics.recordQueries(name, queries));
+        }
+        try (Observation.Scope scope = span.openScope()) {
+            return JpaQueryCounter.measure(() -> handler.call(args),
+                    sql -> span.event(Observation.Event.of("jpa.query", sql)),
+                    queries -> {
+                        metrics.recordQueries(name, queries);
+                        span.highCardinalityKeyValue("db.statements", String.valueOf(queries));
+                    });
+        } catch (Exception | Error error) {
+            span.error(error);
+            throw error;
+        } finally {
+            span.stop();
+        }
+    }
+
+    private ObjectNode obj(ObjectNode... props) {
+        ObjectNode schema = mapper.createObjectNode();
+        schema.put("type", "object");
+        ObjectNode properties = mapper.createObjectNode();
+        for (ObjectNode prop : props) {
+            properties.set(prop.path("_name").asText(), prop.without("_name"));
+        }
+        schema.set("properties", properties);
+        return schema;
+    }
+
+    private ObjectNode prop(String name, String type, String description) {
+        return prop(name, type, description, true);
+    }
+
+    private ObjectNode prop(String name, String type, String description, boolean required) {
+        ObjectNode p = mapper.createObjectNode();
+        p.put("_name", name);
+        p.put("type", type);
+        p.put("description", description);
+        if (!required) {
+            p.put("nullable", true);
+        }
+        return p;
+    }
+
+    private String createEvent(JsonNode args) {
+        String name = args.path("name").asText();
+        String date = args.path("date").asText();
+        String location = args.path("location").asText();
+        BigDecimal budget = args.has("budget") && !args.get("budget").isNull() ? args.get("budget").decimalValue() : null;
+        String notes = args.has("notes") && !args.get("notes").isNull() ? args.get("notes").asText() : null;
+        var ev = service.getObject().createEvent(name, date, location, point(args), budget, notes);
+        return "Evento creato: %s (id=%s) a %s il %s. Budget: %s %s%s".formatted(
+                ev.getName(), ev.getId(), ev.getLocation(), ev.getDateTime(), ev.getBudget() != null ? ev.getBudget() : "n.d.", ev.getCurrency(),
+                ev.getLatitude() != null ? ". Coordinate: " + ev.getLatitude() + ", " + ev.getLongitude() : "");
+    }
+
+    private GeoPoint point(JsonNode args) {
+        boolean latitude = args.has("latitude") && !args.get("latitude").isNull();
+        boolean longitude = args.has("longitude") && !args.get("longitude").isNull();
+        if (latitude != longitude) {
+            throw new IllegalArgumentException("latitude e longitude vanno indicate insieme.");
+        }
+        return latitude ? new GeoPoint(args.get("latitude").asDouble(), args.get("longitude").asDouble()) : null;
+    }
+
+    private String addParticipant(JsonNode args) {
+        UUID eventId = UUID.fromString(args.path("event_id").asText());
+        String name = args.path("name").asText();
+        List<String> intolerances = jsonArrayToList(args.path("intolerances"));
+        List<String> preferences = jsonArrayToList(args.path("preferences"));
+        Double weight = args.has("weight") && !args.get("weight").isNull() ? args.get("weight").asDouble() : null;
+        var p = service.getObject().addParticipant(eventId, name, intolerances, preferences, weight);
+        return "Aggiunto %s (id=%s) a evento %s.".formatted(p.getName(), p.getId(), eventId);
+    }
+
+    private String updateParticipant(JsonNode args) {
+        UUID eventId = UUID.fromString(args.path("event_id").asText());
+        UUID participantId = UUID.fromString(args.path("participant_id").asText());
+        List<String> intolerances = jsonArrayToList(args.path("intolerances"));
+        List<String> preferences = jsonArrayToList(args.path("preferences"));
+        Double weight = args.has("weight") && !args.get("weight").isNull() ? args.get("weight").asDouble() : null;
+        var p = service.getObject().updateParticipant(eventId, participantId, intolerances, preferences, weight);
+        return "Aggiornato %s (id=%s) per evento %s.".formatted(p.getName(), p.getId(), eventId);
+    }
+
+    private String eventSummary(JsonNode args) {
+        UUID eventId = UUID.fromString(args.path("event_id").asText());
+        EventDetails ev = service.getObject().getEventDetails(eventId);
+        Set<Integer> tagIds = new HashSet<>();
+        ev.participants().forEach(p -> {
+            tagIds.addAll(p.intoleranceTags());
+            tagIds.addAll(p.preferenceTags());
+        });
+        Map<Integer, String> tagNames = service.getObject().resolveTags(tagIds);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Evento: ").append(ev.name()).append(" (").append(ev.id()).append(")\n")
+                .append("Data: ").append(ev.dateTime()).append("\n")
+                .append("Luogo: ").append(ev.location())
+                .append(ev.latitude() != null ? " (" + ev.latitude() + ", " + ev.longitude() + ")" : "").append("\n")
+                .append("Budget: ").append(ev.budget() != null ? ev.budget() : "n.d.").append(" ").append(ev.currency()).append("\n")
+                .append("Note: ").append(ev.notes() != null ? ev.notes() : "-").append("\n")
+                .append("Partecipanti:\n");
+        if (ev.participants().isEmpty()) {
+            sb.append("Nessuno.");
+        } else {
+            for (var p : ev.participants()) {
+                sb.append("- ").append(p.name()).append(" (intolleranze: ").append(tagList(p.intoleranceTags(), tagNames))
+                        .append(", preferenze: ").append(tagList(p.preferenceTags(), tagNames))
+                        .append(", peso: ").append(p.weight()).append(")\n");
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    private static String tagList(Set<Integer> tagIds, Map<Integer, String> names) {
+        return tagIds.isEmpty() ? "nessuna"
+                : String.join(",", tagIds.stream().map(names::get).filter(Objects::nonNull).sorted().toList());
+    }
+
+    private String suggest(JsonNode args) {
+        UUID eventId = UUID.fromString(args.path("event_id").asText());
+        Integer limit = args.has("limit") && !args.get("limit").isNull() ? args.get("limit").asInt() : null;
+        Double radiusKm = args.has("radius_km") && !args.get("radius_km").isNull() ? args.get("radius_km").asDouble() : null;
+        var suggestions = service.getObject().suggestRestaurants(eventId, limit, radiusKm);
+        if (suggestions.isEmpty()) {
+            return "Nessun suggerimento disponibile.";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (var s : suggestions) {
+            sb.append(s.name()).append(" (").append(s.cuisine()).append(", ").append(s.priceLevel()).append(") - supporta: ")
+                    .append(s.supports()).append(" - luogo: ").append(s.location());
+            if (s.distanceKm() != null) {
+                sb.append(" - distanza: ").append(Math.round(s.distanceKm() * 10) / 10.0).append(" km");
+            }
+            sb.append("\n");
+        }
+        return sb.toString().trim();
+    }
+
+    private String split(JsonNode args) throws JsonProcessingException {
+        UUID eventId = UUID.fromString(args.path("event_id").asText());
+        BigDecimal totalAmount = decimal(args.path("total_amount"), "total_amount");
+        String mode = args.has("mode") && !args.get("mode").isNull() ? args.get("mode").asText().toLowerCase(Locale.ROOT) : "equal";
+        List<BillItem> items = new ArrayList<>();
+        for (JsonNode item : args.path("items")) {
+            items.add(new BillItem(item.path("description").asText(""), decimal(item.path("amount"), "amount"),
+                    jsonArrayToList(item.path("participants"))));
+        }
+        BillSplit split = service.getObject().splitBill(eventId, totalAmount, mode, items, jsonArrayToList(args.path("exclude")));
+        return "json".equalsIgnoreCase(args.path("format").asText("text")) ? splitJson(split) : splitText(split);
+    }
+
+    private static String splitText(BillSplit split) {
+        StringBuilder sb = new StringBuilder(32 * (split.shares().size() + 1));
+        for (BillSplit.Share share : split.shares()) {
+            sb.append(share.name()).append(": ");
+            BillSplitter.appendAmount(sb, share.amountMinor(), split.fractionDigits()).append(' ').append(split.currency());
+            if (share.excluded()) {
+                sb.append(" (escluso)");
+            }
+            sb.append('\n');
+        }
+        sb.append("Totale: ");
+        BillSplitter.appendAmount(sb, split.totalMinor(), split.fractionDigits()).append(' ').append(split.currency());
+        return sb.toString();
+    }
+
+    // Importi come decimali esatti (amount) e in unita' minime della valuta (amount_minor).
+    private String splitJson(BillSplit split) throws JsonProcessingException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("event_id", split.eventId().toString());
+        root.put("mode", split.mode());
+        root.put("currency", split.currency());
+        root.put("total", BigDecimal.valueOf(split.totalMinor(), split.fractionDigits()));
+        root.put("total_minor", split.totalMinor());
+        ArrayNode shares = root.putArray("shares");
+        for (BillSplit.Share share : split.shares()) {
+            shares.addObject()
+                    .put("participant_id", share.participantId().toString())
+                    .put("name", share.name())
+                    .put("amount", BigDecimal.valueOf(share.amountMinor(), split.fractionDigits()))
+                    .put("amount_minor", share.amountMinor())
+                    .put("excluded", share.excluded());
+        }
+        return mapper.writeValueAsString(root);
+    }
+
+    // Numero JSON o stringa decimale, senza passare da double; null se assente.
+    private static BigDecimal decimal(JsonNode node, String field) {
+        if (node.isMissingNode() || node.isNull()) {
+            return null;
+        }
+        if (node.isNumber()) {
+            return node.decimalValue();
+        }
+        try {
+            return new BigDecimal(node.asText().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Importo non valido per " + field + ": " + node.asText());
+        }
+    }
+
+    private List<String> jsonArrayToList(JsonNode node) {
+        if (node == null || node.isMissingNode() || node.isNull()) {
+            return List.of();
+        }
+        var list = new ArrayList<String>();
+        node.forEach(n -> list.add(n.asText()));
+        return list;
+    }
+
+    private ObjectNode respondText(String text) {
+        ObjectNode response = mapper.createObjectNode();
+        var content = mapper.createArrayNode();
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("type", "text");
+        entry.put("text", text);
+        content.add(entry);
+        response.set("content", content);
+        return response;
+    }
+}
@@ -0,0 +1,95 @@
+package com.server.eventi.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Aggregato alimentare di un evento, aggiornato a ogni aggiunta o modifica di un partecipante:
+// i suggerimenti leggono questa riga invece di tutti i partecipanti. Le intolleranze sono conteggi,
+// per poter togliere quelle di un partecipante che le cambia; l'unione sono le chiavi. Le mappe si
+// sostituiscono a ogni modifica, cosi' Hibernate vede il cambiamento confrontando i valori convertiti.
+@Entity
+@Table(name = "event_dietary_profiles")
+public class EventDietaryProfileEntity {
+
+    // Tag distinti per evento e per tipo: 8 byte ciascuno nella colonna dei conteggi
+    public static final int MAX_TAGS = 1024;
+    private static final int COUNTS_BYTES = MAX_TAGS * TagCountsConverter.ENTRY_BYTES;
+
+    @Id
+    @Column(name = "event_id")
+    private UUID eventId;
+
+    private int participants;
+
+    @Convert(converter = TagCountsConverter.class)
+    @Column(name = "intolerance_counts", length = COUNTS_BYTES)
+    private Map<Integer, Integer> intoleranceCounts = new TreeMap<>();
+
+    @Convert(converter = TagCountsConverter.class)
+    @Column(name = "preference_counts", length = COUNTS_BYTES)
+    private Map<Integer, Integer> preferenceCounts = new TreeMap<>();
+
+    protected EventDietaryProfileEntity() {
+    }
+
+    public EventDietaryProfileEntity(UUID eventId) {
+        this.eventId = eventId;
+    }
+
+    // Oltre MAX_TAGS l'aggregato resta invariato e la modifica del partecipante fallisce.
+    public void add(Set<Integer> intolerances, Set<Integer> preferences) {
+        Map<Integer, Integer> updatedIntolerances = adjust(intoleranceCounts, intolerances, 1);
+        preferenceCounts = adjust(preferenceCounts, preferences, 1);
+        intoleranceCounts = updatedIntolerances;
+        participants++;
+    }
+
+    public void remove(Set<Integer> intolerances, Set<Integer> preferences) {
+        participants = Math.max(0, participants - 1);
+        intoleranceCounts = adjust(intoleranceCounts, intolerances, -1);
+        preferenceCounts = adjust(preferenceCounts, preferences, -1);
+    }
+
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    public int getParticipants() {
+        return participants;
+    }
+
+    // Unione delle intolleranze dei partecipanti, in ordine di id.
+    public Set<Integer> intolerances() {
+        return Collections.unmodifiableSet(intoleranceCounts.keySet());
+    }
+
+    // Tag preferito -> numero di partecipanti che lo indicano.
+    public Map<Integer, Integer> preferenceCounts() {
+        return Collections.unmodifiableMap(preferenceCounts);
+    }
+
+    private static Map<Integer, Integer> adjust(Map<Integer, Integer> counts, Set<Integer> tags, int delta) {
+        Map<Integer, Integer> updated = new TreeMap<>(counts);
+        for (Integer tag : tags) {
+            int count = updated.getOrDefault(tag, 0) + delta;
+            if (count > 0) {
+                updated.put(tag, count);
+            } else {
+                updated.remove(tag);
+            }
+        }
+        if (updated.size() > MAX_TAGS) {
+            throw new IllegalArgumentException("L'evento supererebbe " + MAX_TAGS + " tag alimentari distinti.");
+        }
+        return updated;
+    }
+}
@@ -25,6 +25,9 @@ public class EventEntity {
     private String name;
     private String dateTime;
     private String location;
+    // Dal client o dal gazetteer; null se il luogo non e' stato riconosciuto
+    private Double latitude;
+    private Double longitude;
     private BigDecimal budget;
     private String currency;
 
@@ -66,6 +69,22 @@ public class EventEntity {
         this.location = location;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     public BigDecimal getBudget() {
         return budget;
     }
@@ -1,13 +1,21 @@
 package com.server.eventi.model;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -22,11 +30,21 @@ public class ParticipantEntity {
 
     private String name;
 
-    @Column(length = 512)
-    private String intolerances;
-
-    @Column(length = 512)
-    private String preferences;
+    // Id dei tag in dietary_tags; l'indice su tag_id serve a cercare i partecipanti per tag. Caricati
+    // insieme al partecipante, con una sola query per tutti i partecipanti di una lista.
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "participant_intolerances", joinColumns = @JoinColumn(name = "participant_id"),
+            indexes = @Index(name = "idx_participant_intolerances_tag", columnList = "tag_id"))
+    @Column(name = "tag_id", nullable = false)
+    @Fetch(FetchMode.SUBSELECT)
+    private Set<Integer> intoleranceTags = new HashSet<>();
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "participant_preferences", joinColumns = @JoinColumn(name = "participant_id"),
+            indexes = @Index(name = "idx_participant_preferences_tag", columnList = "tag_id"))
+    @Column(name = "tag_id", nullable = false)
+    @Fetch(FetchMode.SUBSELECT)
+    private Set<Integer> preferenceTags = new HashSet<>();
 
     private double weight = 1.0;
 
@@ -50,20 +68,20 @@ public class ParticipantEntity {
         this.name = name;
     }
 
-    public String getIntolerances() {
-        return intolerances;
+    public Set<Integer> getIntoleranceTags() {
+        return intoleranceTags;
     }
 
-    public void setIntolerances(String intolerances) {
-        this.intolerances = intolerances;
+    public void setIntoleranceTags(Set<Integer> intoleranceTags) {
+        this.intoleranceTags = intoleranceTags;
     }
 
-    public String getPreferences() {
-        return preferences;
+    public Set<Integer> getPreferenceTags() {
+        return preferenceTags;
     }
 
-    public void setPreferences(String preferences) {
-        this.preferences = preferences;
+    public void setPreferenceTags(Set<Integer> preferenceTags) {
+        this.preferenceTags = preferenceTags;
     }
 
     public double getWeight() {
@@ -0,0 +1,34 @@
+package com.server.eventi.model;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Conteggi per tag (id -> partecipanti) in una sola colonna binaria: coppie di int ordinate per id.
+@Converter
+public class TagCountsConverter implements AttributeConverter<Map<Integer, Integer>, byte[]> {
+
+    static final int ENTRY_BYTES = 2 * Integer.BYTES;
+
+    @Override
+    public byte[] convertToDatabaseColumn(Map<Integer, Integer> counts) {
+        ByteBuffer out = ByteBuffer.allocate(counts.size() * ENTRY_BYTES);
+        new TreeMap<>(counts).forEach((tag, count) -> out.putInt(tag).putInt(count));
+        return out.array();
+    }
+
+    @Override
+    public Map<Integer, Integer> convertToEntityAttribute(byte[] column) {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        if (column != null) {
+            ByteBuffer in = ByteBuffer.wrap(column);
+            while (in.remaining() >= ENTRY_BYTES) {
+                counts.put(in.getInt(), in.getInt());
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,23 @@
+package com.server.eventi.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.server.eventi.model.DietaryTagEntity;
+
+import jakarta.persistence.LockModeType;
+
+public interface DietaryTagRepository extends JpaRepository<DietaryTagEntity, Integer> {
+    List<DietaryTagEntity> findByNameIn(Collection<String> names);
+
+    // Lettura con lock dei tag creati da altre transazioni: su MySQL (REPEATABLE READ) li vede anche
+    // se sono stati inseriti dopo l'inizio della transazione, a differenza di una lettura normale.
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select t from DietaryTagEntity t where t.name in :names")
+    List<DietaryTagEntity> lockByNameIn(@Param("names") Collection<String> names);
+}
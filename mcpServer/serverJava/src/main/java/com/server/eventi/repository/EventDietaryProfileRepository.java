@@ -0,0 +1,20 @@
+package com.server.eventi.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.server.eventi.model.EventDietaryProfileEntity;
+
+import jakarta.persistence.LockModeType;
+
+public interface EventDietaryProfileRepository extends JpaRepository<EventDietaryProfileEntity, UUID> {
+    // Lock di riga: aggiunte concorrenti allo stesso evento non perdono aggiornamenti dell'aggregato.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from EventDietaryProfileEntity p where p.eventId = :eventId")
+    Optional<EventDietaryProfileEntity> findForUpdate(@Param("eventId") UUID eventId);
+}
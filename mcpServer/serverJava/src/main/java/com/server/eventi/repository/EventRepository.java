@@ -1,10 +1,21 @@
 package com.server.eventi.repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.server.eventi.model.EventEntity;
 
 public interface EventRepository extends JpaRepository<EventEntity, UUID> {
+
+    // Evento e partecipanti in un solo SELECT, una riga per partecipante. I tag non entrano nel join
+    // (moltiplicherebbero le righe per ogni coppia intolleranza/preferenza): li carica il fetch SUBSELECT
+    // di ParticipantEntity, una query per insieme di tag valida per tutti i partecipanti.
+    @Transactional(readOnly = true)
+    @Query("select e from EventEntity e left join fetch e.participants where e.id = :id")
+    Optional<EventEntity> findWithParticipants(@Param("id") UUID id);
 }
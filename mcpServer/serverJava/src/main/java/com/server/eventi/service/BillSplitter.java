@@ -0,0 +1,314 @@
+package com.server.eventi.service;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import com.server.eventi.dto.BillItem;
+import com.server.eventi.dto.BillSplit;
+import com.server.eventi.dto.ParticipantDetails;
+
+// Divisione del conto in unita' minime della valuta (long), senza double: le quote sommano sempre al totale.
+// Modalita': equal (quote uguali), weighted (per peso), items (ogni voce tra chi l'ha consumata, l'eventuale
+// differenza fino al totale in parti uguali). Gli esclusi non partecipano alle parti comuni.
+// I centesimi che avanzano vanno con il metodo del resto maggiore (vedi distribute); i partecipanti sono
+// ordinati per nome e id, quindi lo stesso evento da' sempre la stessa divisione.
+public final class BillSplitter {
+
+    // Pesi arrotondati al milionesimo e ridotti al massimo comun divisore (1, 1.5, 2 -> 2, 3, 4)
+    private static final double WEIGHT_SCALE = 1_000_000;
+
+    private static final Comparator<ParticipantDetails> ORDER = Comparator
+            .comparing(ParticipantDetails::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(ParticipantDetails::name)
+            .thenComparing(ParticipantDetails::id);
+
+    private BillSplitter() {
+    }
+
+    // total null: budget assente (equal/weighted) o somma delle voci (items). mode, items ed excluded null
+    // valgono come nel tool MCP: equal, nessuna voce, nessun escluso.
+    public static BillSplit split(UUID eventId, List<ParticipantDetails> participants, String currency, BigDecimal total,
+                                  String mode, List<BillItem> items, Collection<String> excluded) {
+        mode = mode != null ? mode : "equal";
+        items = items != null ? items : List.of();
+        excluded = excluded != null ? excluded : List.of();
+        if (participants.isEmpty()) {
+            throw new IllegalArgumentException("Nessun partecipante per questo evento.");
+        }
+        if (total != null && total.signum() < 0) {
+            throw new IllegalArgumentException("L'importo totale deve essere non negativo.");
+        }
+        List<ParticipantDetails> ordered = new ArrayList<>(participants);
+        ordered.sort(ORDER);
+        int n = ordered.size();
+        int digits = fractionDigits(currency);
+        References references = new References(ordered);
+        boolean[] out = new boolean[n];
+        for (String reference : excluded) {
+            out[references.index(reference)] = true;
+        }
+        int[] included = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!out[i]) {
+                included[count++] = i;
+            }
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("Tutti i partecipanti sono esclusi.");
+        }
+        included = Arrays.copyOf(included, count);
+
+        long[] amounts = new long[n];
+        long totalMinor;
+        switch (mode) {
+            case "equal", "weighted" -> {
+                if (total == null) {
+                    throw new IllegalArgumentException("Importo totale mancante: indicare total_amount o il budget dell'evento.");
+                }
+                totalMinor = toMinor(total, digits, "totale");
+                long[] weights = new long[count];
+                if (mode.equals("equal")) {
+                    Arrays.fill(weights, 1);
+                } else {
+                    long gcd = 0;
+                    for (int k = 0; k < count; k++) {
+                        weights[k] = Math.round(ordered.get(included[k]).weight() * WEIGHT_SCALE);
+                        gcd = gcd(gcd, weights[k]);
+                    }
+                    for (int k = 0; k < count && gcd > 1; k++) {
+                        weights[k] /= gcd;
+                    }
+                }
+                add(amounts, included, distribute(totalMinor, weights));
+            }
+            case "items" -> {
+                if (items.isEmpty()) {
+                    throw new IllegalArgumentException("Modalita' items senza voci: indicare items.");
+                }
+                long itemsMinor = 0;
+                for (int v = 0; v < items.size(); v++) {
+                    BillItem item = items.get(v);
+                    String label = item.description() != null && !item.description().isBlank()
+                            ? "voce '" + item.description() + "'" : "voce " + (v + 1);
+                    if (item.amount() == null) {
+                        throw new IllegalArgumentException("Importo mancante per la " + label + ".");
+                    }
+                    long itemMinor = toMinor(item.amount(), digits, label);
+                    int[] consumers = item.participants().isEmpty() ? included : references.indexes(item.participants());
+                    add(amounts, consumers, distribute(itemMinor, ones(consumers.length)));
+                    itemsMinor = Math.addExact(itemsMinor, itemMinor);
+                }
+                totalMinor = total != null ? toMinor(total, digits, "totale") : itemsMinor;
+                if (totalMinor < itemsMinor) {
+                    StringBuilder message = new StringBuilder("Il totale (");
+                    appendAmount(message, totalMinor, digits);
+                    message.append(") e' inferiore alla somma delle voci (");
+                    appendAmount(message, itemsMinor, digits);
+                    throw new IllegalArgumentException(message.append(").").toString());
+                }
+                // Servizio, mancia e simili: in parti uguali tra i non esclusi
+                add(amounts, included, distribute(totalMinor - itemsMinor, ones(count)));
+            }
+            default -> throw new IllegalArgumentException("Modalita' di split non supportata (equal|weighted|items).");
+        }
+
+        List<BillSplit.Share> shares = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ParticipantDetails p = ordered.get(i);
+            shares.add(new BillSplit.Share(p.id(), p.name(), amounts[i], out[i]));
+        }
+        return new BillSplit(eventId, mode, currency, digits, totalMinor, List.copyOf(shares));
+    }
+
+    // Metodo del resto maggiore: ognuno riceve la parte intera di total * peso / somma pesi, le unita'
+    // rimaste (meno dei pesi) vanno ai resti piu' grandi e, a parita' di resto, in ordine di posizione.
+    static long[] distribute(long total, long[] weights) {
+        long sum = 0;
+        for (long weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Peso negativo.");
+            }
+            sum = Math.addExact(sum, weight);
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("Somma pesi pari a zero.");
+        }
+        int n = weights.length;
+        long[] shares = new long[n];
+        long[] remainders = new long[n];
+        long left = total;
+        for (int i = 0; i < n; i++) {
+            long product = total * weights[i];
+            if (Math.multiplyHigh(total, weights[i]) == 0 && product >= 0) {
+                shares[i] = product / sum;
+                remainders[i] = product % sum;
+            } else {
+                BigInteger[] division = BigInteger.valueOf(total).multiply(BigInteger.valueOf(weights[i]))
+                        .divideAndRemainder(BigInteger.valueOf(sum));
+                shares[i] = division[0].longValueExact();
+                remainders[i] = division[1].longValueExact();
+            }
+            left -= shares[i];
+        }
+        if (left > 0) {
+            // Soglia = left-esimo resto piu' grande: prima tutti i resti sopra, poi quelli uguali in ordine
+            long[] sorted = remainders.clone();
+            Arrays.sort(sorted);
+            long threshold = sorted[n - (int) left];
+            for (int i = 0; i < n; i++) {
+                if (remainders[i] > threshold) {
+                    shares[i]++;
+                    left--;
+                }
+            }
+            for (int i = 0; left > 0; i++) {
+                if (remainders[i] == threshold) {
+                    shares[i]++;
+                    left--;
+                }
+            }
+        }
+        return shares;
+    }
+
+    // Importo in unita' minime; piu' decimali di quelli della valuta sono un errore, non un arrotondamento.
+    static long toMinor(BigDecimal amount, int digits, String label) {
+        if (amount.signum() < 0) {
+            throw new IllegalArgumentException("Importo negativo per " + label + ": " + amount.toPlainString());
+        }
+        if (amount.stripTrailingZeros().scale() > digits) {
+            throw new IllegalArgumentException("Importo con piu' di " + digits + " decimali per " + label + ": "
+                    + amount.toPlainString());
+        }
+        try {
+            return amount.movePointRight(digits).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Importo troppo grande per " + label + ": " + amount.toPlainString());
+        }
+    }
+
+    // Decimali della valuta ISO 4217 (EUR 2, JPY 0); 2 per codici sconosciuti.
+    static int fractionDigits(String currency) {
+        try {
+            int digits = Currency.getInstance(currency.trim().toUpperCase(Locale.ROOT)).getDefaultFractionDigits();
+            return digits >= 0 ? digits : 2;
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return 2;
+        }
+    }
+
+    // Scrive minor come decimale con digits cifre (4505, 2 -> "45.05") senza passare da String.format.
+    public static StringBuilder appendAmount(StringBuilder sb, long minor, int digits) {
+        if (minor < 0) {
+            sb.append('-');
+            minor = -minor;
+        }
+        if (digits == 0) {
+            return sb.append(minor);
+        }
+        long unit = 1;
+        for (int d = 0; d < digits; d++) {
+            unit *= 10;
+        }
+        long fraction = minor % unit;
+        sb.append(minor / unit).append('.');
+        for (long place = unit / 10; place > fraction && place > 1; place /= 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    private static void add(long[] amounts, int[] indexes, long[] shares) {
+        for (int k = 0; k < indexes.length; k++) {
+            amounts[indexes[k]] += shares[k];
+        }
+    }
+
+    private static long[] ones(int n) {
+        long[] weights = new long[n];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    // Partecipanti per id o per nome (senza distinzione di maiuscole); indici costruiti solo se servono.
+    private static final class References {
+
+        private static final int AMBIGUOUS = -1;
+
+        private final List<ParticipantDetails> ordered;
+        private Map<UUID, Integer> byId;
+        private Map<String, Integer> byName;
+
+        References(List<ParticipantDetails> ordered) {
+            this.ordered = ordered;
+        }
+
+        int index(String reference) {
+            if (byId == null) {
+                byId = HashMap.newHashMap(ordered.size());
+                byName = HashMap.newHashMap(ordered.size());
+                for (int i = 0; i < ordered.size(); i++) {
+                    ParticipantDetails p = ordered.get(i);
+                    byId.put(p.id(), i);
+                    byName.merge(p.name().trim().toLowerCase(Locale.ROOT), i, (first, second) -> AMBIGUOUS);
+                }
+            }
+            String key = reference == null ? "" : reference.trim();
+            Integer index = key.length() == 36 ? byId.get(uuid(key)) : null;
+            if (index == null) {
+                index = byName.get(key.toLowerCase(Locale.ROOT));
+            }
+            if (index == null) {
+                throw new IllegalArgumentException("Partecipante non trovato: " + reference);
+            }
+            if (index == AMBIGUOUS) {
+                throw new IllegalArgumentException("Piu' partecipanti si chiamano " + reference + ": indicare l'id.");
+            }
+            return index;
+        }
+
+        private static UUID uuid(String key) {
+            try {
+                return UUID.fromString(key);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        // Indici distinti in ordine crescente, come per le parti comuni.
+        int[] indexes(List<String> references) {
+            int[] indexes = new int[references.size()];
+            for (int k = 0; k < indexes.length; k++) {
+                indexes[k] = index(references.get(k));
+            }
+            Arrays.sort(indexes);
+            int distinct = 0;
+            for (int k = 0; k < indexes.length; k++) {
+                if (k == 0 || indexes[k] != indexes[k - 1]) {
+                    indexes[distinct++] = indexes[k];
+                }
+            }
+            return distinct == indexes.length ? indexes : Arrays.copyOf(indexes, distinct);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.server.eventi.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.server.eventi.model.DietaryTagEntity;
+import com.server.eventi.repository.DietaryTagRepository;
+
+// Interning dei tag alimentari: nome normalizzato <-> id intero, in cache in entrambe le direzioni.
+// Un tag nuovo si inserisce in una transazione propria, gia' committata quando la cache lo registra:
+// resta nel dizionario anche se la transazione del chiamante fallisce. Se un'altra transazione lo ha
+// creato nel frattempo il vincolo unique fallisce (su qualsiasi database) e il tag si rilegge.
+@Component
+public class DietaryTags {
+
+    private final DietaryTagRepository repository;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    public DietaryTags(DietaryTagRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Trim, minuscolo, senza vuoti ne' duplicati: "Gluten-Free " e "gluten-free" sono lo stesso tag.
+    public static Set<String> normalize(Collection<String> values) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (values == null) {
+            return tags;
+        }
+        for (String value : values) {
+            String tag = value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+            if (tag.length() > DietaryTagEntity.MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("Tag alimentare oltre " + DietaryTagEntity.MAX_NAME_LENGTH + " caratteri: " + value);
+            }
+            if (!tag.isEmpty()) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+
+    // Id di ogni tag, creando quelli mancanti. Va chiamato una volta per transazione con tutti i tag
+    // da scrivere, gia' normalizzati.
+    public Map<String, Integer> intern(Set<String> tags) {
+        Map<String, Integer> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String tag : tags) {
+            Integer id = ids.get(tag);
+            if (id != null) {
+                result.put(tag, id);
+            } else {
+                missing.add(tag);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        for (DietaryTagEntity existing : repository.findByNameIn(missing)) {
+            remember(existing, result);
+        }
+        missing.removeIf(result::containsKey);
+        if (missing.isEmpty()) {
+            return result;
+        }
+        for (String tag : missing) {
+            DietaryTagEntity entity = new DietaryTagEntity();
+            entity.setName(tag);
+            try {
+                remember(newTransaction.execute(status -> repository.saveAndFlush(entity)), result);
+            } catch (DataIntegrityViolationException concurrent) {
+                // Creato da un'altra transazione dopo findByNameIn: lo rilegge lockByNameIn
+            }
+        }
+        missing.removeIf(result::containsKey);
+        if (!missing.isEmpty()) {
+            for (DietaryTagEntity created : repository.lockByNameIn(missing)) {
+                remember(created, result);
+            }
+        }
+        if (result.size() < tags.size()) {
+            missing.removeIf(result::containsKey);
+            throw new IllegalStateException("Tag alimentari non registrati: " + missing);
+        }
+        return result;
+    }
+
+    private void remember(DietaryTagEntity tag, Map<String, Integer> result) {
+        ids.put(tag.getName(), tag.getId());
+        names.put(tag.getId(), tag.getName());
+        result.put(tag.getName(), tag.getId());
+    }
+
+    // id -> nome; gli id sconosciuti vengono omessi.
+    public Map<Integer, String> resolve(Collection<Integer> tagIds) {
+        List<Integer> missing = tagIds.stream().filter(id -> !names.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            repository.findAllById(missing).forEach(tag -> names.put(tag.getId(), tag.getName()));
+        }
+        Map<Integer, String> result = new HashMap<>();
+        for (Integer id : tagIds) {
+            String name = names.get(id);
+            if (name != null) {
+                result.put(id, name);
+            }
+        }
+        return result;
+    }
+}
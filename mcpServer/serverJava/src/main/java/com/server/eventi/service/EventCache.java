@@ -0,0 +1,116 @@
+package com.server.eventi.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.server.eventi.config.EventProperties;
+import com.server.eventi.dto.EventDetails;
+
+// Cache LRU di EventDetails per id evento, con scadenza. Le scritture invalidano la voce dopo il commit;
+// un caricamento partito prima di un'invalidazione non resta in cache (contatore di generazione): chi
+// legge dopo il commit non puo' ricevere la versione precedente.
+@Component
+public class EventCache {
+
+    public record Stats(long hits, long misses, long evictions, long invalidations, int size, int maxEntries) {
+    }
+
+    private record Entry(EventDetails details, long expiresAtNanos) {
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<UUID, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public EventCache(EventProperties properties) {
+        EventProperties.Cache config = properties.getCache();
+        Duration ttl = config.getTtl();
+        this.enabled = config.isEnabled() && ttl != null && ttl.compareTo(Duration.ZERO) > 0;
+        this.maxEntries = Math.max(1, config.getMaxEntries());
+        this.ttlNanos = ttl != null ? ttl.toNanos() : 0;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public EventDetails get(UUID eventId, Supplier<EventDetails> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(eventId);
+        }
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.details();
+        }
+        misses.increment();
+        long before = generation.get();
+        EventDetails details = loader.get();
+        Entry loaded = new Entry(details, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(eventId, loaded);
+        }
+        // Invalidazione arrivata durante il caricamento: la voce appena messa potrebbe essere vecchia
+        if (generation.get() != before) {
+            synchronized (entries) {
+                entries.remove(eventId, loaded);
+            }
+        }
+        return details;
+    }
+
+    // Dentro una transazione l'invalidazione avviene al commit (prima i lettori vedrebbero ancora i dati
+    // vecchi sul database e li rimetterebbero in cache); senza transazione subito.
+    public void invalidateAfterCommit(UUID eventId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(eventId);
+                }
+            });
+        } else {
+            invalidate(eventId);
+        }
+    }
+
+    public void invalidate(UUID eventId) {
+        generation.incrementAndGet();
+        invalidations.increment();
+        synchronized (entries) {
+            entries.remove(eventId);
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), size, maxEntries);
+    }
+}
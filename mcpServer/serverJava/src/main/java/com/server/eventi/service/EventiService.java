@@ -2,18 +2,33 @@ package com.server.eventi.service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.server.eventi.catalog.Gazetteer;
+import com.server.eventi.catalog.GeoPoint;
+import com.server.eventi.catalog.RestaurantCatalog;
 import com.server.eventi.config.EventProperties;
+import com.server.eventi.dto.BillItem;
+import com.server.eventi.dto.BillSplit;
+import com.server.eventi.dto.EventDetails;
+import com.server.eventi.dto.ParticipantDetails;
 import com.server.eventi.dto.RestaurantSuggestion;
+import com.server.eventi.model.EventDietaryProfileEntity;
 import com.server.eventi.model.EventEntity;
 import com.server.eventi.model.ParticipantEntity;
+import com.server.eventi.repository.EventDietaryProfileRepository;
 import com.server.eventi.repository.EventRepository;
 import com.server.eventi.repository.ParticipantRepository;
 
@@ -22,24 +37,44 @@ public class EventiService {
 
     private final EventRepository eventRepository;
     private final ParticipantRepository participantRepository;
+    private final EventDietaryProfileRepository profileRepository;
+    private final DietaryTags tags;
+    private final RestaurantCatalog catalog;
+    private final Gazetteer gazetteer;
+    private final EventCache cache;
     private final EventProperties properties;
 
-    public EventiService(EventRepository eventRepository, ParticipantRepository participantRepository, EventProperties properties) {
+    public EventiService(EventRepository eventRepository, ParticipantRepository participantRepository,
+                         EventDietaryProfileRepository profileRepository, DietaryTags tags, RestaurantCatalog catalog,
+                         Gazetteer gazetteer, EventCache cache, EventProperties properties) {
         this.eventRepository = eventRepository;
         this.participantRepository = participantRepository;
+        this.profileRepository = profileRepository;
+        this.tags = tags;
+        this.catalog = catalog;
+        this.gazetteer = gazetteer;
+        this.cache = cache;
         this.properties = properties;
     }
 
+    // point null = coordinate cercate nel gazetteer a partire dal luogo.
     @Transactional
-    public EventEntity createEvent(String name, String dateTime, String location, BigDecimal budget, String notes) {
+    public EventEntity createEvent(String name, String dateTime, String location, GeoPoint point, BigDecimal budget, String notes) {
         EventEntity entity = new EventEntity();
         entity.setName(name);
         entity.setDateTime(dateTime);
         entity.setLocation(location);
+        GeoPoint resolved = point != null ? point : gazetteer.resolve(location).orElse(null);
+        if (resolved != null) {
+            entity.setLatitude(resolved.latitude());
+            entity.setLongitude(resolved.longitude());
+        }
         entity.setBudget(budget);
         entity.setCurrency(properties.getDefaultCurrency());
         entity.setNotes(notes);
-        return eventRepository.save(entity);
+        EventEntity saved = eventRepository.save(entity);
+        profileRepository.save(new EventDietaryProfileEntity(saved.getId()));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -50,140 +85,122 @@ public class EventiService {
     @Transactional
     public ParticipantEntity addParticipant(UUID eventId, String name, List<String> intolerances, List<String> preferences, Double weight) {
         EventEntity event = getEvent(eventId);
+        EventDietaryProfileEntity profile = lockProfile(eventId);
+        Set<String> intoleranceNames = DietaryTags.normalize(intolerances);
+        Set<String> preferenceNames = DietaryTags.normalize(preferences);
+        Map<String, Integer> ids = tags.intern(union(intoleranceNames, preferenceNames));
         ParticipantEntity p = new ParticipantEntity();
         p.setName(name);
-        p.setIntolerances(String.join(",", normalize(intolerances)));
-        p.setPreferences(String.join(",", normalize(preferences)));
+        p.setIntoleranceTags(tagIds(intoleranceNames, ids));
+        p.setPreferenceTags(tagIds(preferenceNames, ids));
         p.setWeight(weight != null && weight > 0 ? weight : 1.0);
         p.setEvent(event);
+        profile.add(p.getIntoleranceTags(), p.getPreferenceTags());
+        cache.invalidateAfterCommit(eventId);
         return participantRepository.save(p);
     }
 
     @Transactional
     public ParticipantEntity updateParticipant(UUID eventId, UUID participantId, List<String> intolerances, List<String> preferences, Double weight) {
         getEvent(eventId); // validazione esistenza evento
+        EventDietaryProfileEntity profile = lockProfile(eventId);
         ParticipantEntity p = participantRepository.findById(participantId)
+                .filter(found -> found.getEvent() != null && eventId.equals(found.getEvent().getId()))
                 .orElseThrow(() -> new IllegalArgumentException("Partecipante non trovato: " + participantId));
+        Set<String> intoleranceNames = intolerances != null ? DietaryTags.normalize(intolerances) : Set.of();
+        Set<String> preferenceNames = preferences != null ? DietaryTags.normalize(preferences) : Set.of();
+        Map<String, Integer> ids = tags.intern(union(intoleranceNames, preferenceNames));
+        profile.remove(p.getIntoleranceTags(), p.getPreferenceTags());
         if (intolerances != null) {
-            p.setIntolerances(String.join(",", normalize(intolerances)));
+            p.getIntoleranceTags().clear();
+            p.getIntoleranceTags().addAll(tagIds(intoleranceNames, ids));
         }
         if (preferences != null) {
-            p.setPreferences(String.join(",", normalize(preferences)));
+            p.getPreferenceTags().clear();
+            p.getPreferenceTags().addAll(tagIds(preferenceNames, ids));
         }
         if (weight != null && weight > 0) {
             p.setWeight(weight);
         }
+        profile.add(p.getIntoleranceTags(), p.getPreferenceTags());
+        cache.invalidateAfterCommit(eventId);
         return participantRepository.save(p);
     }
 
-    @Transactional(readOnly = true)
-    public List<ParticipantEntity> listParticipants(UUID eventId) {
-        return participantRepository.findByEventId(eventId);
+    // Evento con partecipanti e aggregato dalla cache, o con quattro SELECT indipendenti dal numero di
+    // partecipanti (evento e partecipanti, due insiemi di tag, aggregato). Fuori da transazioni: una
+    // lettura dalla cache non apre connessioni verso il database.
+    public EventDetails getEventDetails(UUID eventId) {
+        return cache.get(eventId, () -> loadDetails(eventId));
     }
 
-    @Transactional(readOnly = true)
-    public List<RestaurantSuggestion> suggestRestaurants(UUID eventId, Integer limit) {
-        EventEntity event = getEvent(eventId);
-        List<ParticipantEntity> participants = listParticipants(eventId);
+    // id -> nome per piu' partecipanti insieme: al massimo una query per i tag non ancora in memoria.
+    public Map<Integer, String> resolveTags(Collection<Integer> tagIds) {
+        return tags.resolve(tagIds);
+    }
 
-        var intolerances = new ArrayList<String>();
-        var preferences = new ArrayList<String>();
-        for (ParticipantEntity p : participants) {
-            intolerances.addAll(splitCsv(p.getIntolerances()));
-            preferences.addAll(splitCsv(p.getPreferences()));
+    // Legge solo l'aggregato dell'evento: il costo non dipende dal numero di partecipanti. Match esatti
+    // sui tag: "pesce" non soddisfa piu' "pescetariano". Con le coordinate dell'evento conta la distanza
+    // entro il raggio, altrimenti la citta'; le cucine preferite da piu' partecipanti vengono prima.
+    public List<RestaurantSuggestion> suggestRestaurants(UUID eventId, Integer limit, Double radiusKm) {
+        double radius = radiusKm != null ? radiusKm : properties.getSuggestionRadiusKm();
+        if (!(radius > 0)) {
+            throw new IllegalArgumentException("Il raggio deve essere positivo.");
         }
-        List<RestaurantSuggestion> pool = BaseSuggestions.forLocation(event.getLocation());
-        List<RestaurantSuggestion> filtered = new ArrayList<>();
-        for (RestaurantSuggestion s : pool) {
-            boolean okIntolerances = intolerances.isEmpty() || intolerances.stream().allMatch(i -> s.supports().toLowerCase(Locale.ROOT).contains(i));
-            boolean okPrefs = preferences.isEmpty() || preferences.stream().anyMatch(pref -> s.cuisine().toLowerCase(Locale.ROOT).contains(pref));
-            if (okIntolerances && okPrefs) {
-                filtered.add(s);
+        EventDetails event = getEventDetails(eventId);
+        Map<Integer, Integer> preferenceCounts = event.preferenceCounts();
+        Map<Integer, String> names = tags.resolve(union(event.intoleranceTags(), preferenceCounts.keySet()));
+        List<String> intolerances = event.intoleranceTags().stream().map(names::get).filter(Objects::nonNull).toList();
+        Map<String, Integer> preferences = new HashMap<>();
+        preferenceCounts.forEach((id, count) -> {
+            if (names.containsKey(id)) {
+                preferences.put(names.get(id), count);
             }
-        }
+        });
         int lim = limit != null ? limit : properties.getSuggestionLimit();
-        List<RestaurantSuggestion> source = filtered.isEmpty() ? pool : filtered;
-        return source.subList(0, Math.min(lim, source.size()));
+        GeoPoint point = event.latitude() != null && event.longitude() != null
+                ? new GeoPoint(event.latitude(), event.longitude()) : null;
+        return catalog.suggestNear(point, radius, event.location(), intolerances, preferences, lim);
     }
 
-    @Transactional(readOnly = true)
-    public String splitBill(UUID eventId, double totalAmount, String mode) {
-        EventEntity event = getEvent(eventId);
-        List<ParticipantEntity> participants = listParticipants(eventId);
-        if (participants.isEmpty()) {
-            throw new IllegalArgumentException("Nessun partecipante per questo evento.");
-        }
-        if (totalAmount < 0) {
-            throw new IllegalArgumentException("L'importo totale deve essere non negativo.");
-        }
-        String currency = event.getCurrency() != null ? event.getCurrency() : properties.getDefaultCurrency();
-        StringBuilder sb = new StringBuilder();
-        switch (mode) {
-            case "equal" -> {
-                double quota = Math.round((totalAmount / participants.size()) * 100.0) / 100.0;
-                for (ParticipantEntity p : participants) {
-                    sb.append(p.getName()).append(": ").append(String.format("%.2f", quota)).append(" ").append(currency).append("\n");
-                }
-            }
-            case "weighted" -> {
-                double totalWeight = participants.stream().mapToDouble(ParticipantEntity::getWeight).sum();
-                if (totalWeight <= 0) {
-                    throw new IllegalArgumentException("Somma pesi pari a zero.");
-                }
-                for (ParticipantEntity p : participants) {
-                    double share = Math.round((totalAmount * (p.getWeight() / totalWeight)) * 100.0) / 100.0;
-                    sb.append(p.getName()).append(": ").append(String.format("%.2f", share)).append(" ").append(currency).append("\n");
-                }
-            }
-            default -> throw new IllegalArgumentException("Modalita' di split non supportata (equal|weighted).");
-        }
-        return sb.toString().trim();
+    // totalAmount null = budget dell'evento (equal/weighted) o somma delle voci (items). mode null = equal.
+    public BillSplit splitBill(UUID eventId, BigDecimal totalAmount, String mode, List<BillItem> items, Collection<String> excluded) {
+        EventDetails event = getEventDetails(eventId);
+        String currency = event.currency() != null ? event.currency() : properties.getDefaultCurrency();
+        BigDecimal total = totalAmount != null || "items".equals(mode) ? totalAmount : event.budget();
+        return BillSplitter.split(eventId, event.participants(), currency, total, mode, items, excluded);
     }
 
-    private List<String> splitCsv(String csv) {
-        if (csv == null || csv.isBlank()) {
-            return List.of();
+    private EventDetails loadDetails(UUID eventId) {
+        EventEntity event = eventRepository.findWithParticipants(eventId)
+                .orElseThrow(() -> new IllegalArgumentException("Evento non trovato: " + eventId));
+        // Gli eventi creati prima di event_dietary_profiles non hanno aggregato
+        EventDietaryProfileEntity profile = profileRepository.findById(eventId)
+                .orElseGet(() -> new EventDietaryProfileEntity(eventId));
+        List<ParticipantDetails> participants = new ArrayList<>(event.getParticipants().size());
+        for (ParticipantEntity p : event.getParticipants()) {
+            participants.add(new ParticipantDetails(p.getId(), p.getName(), Set.copyOf(p.getIntoleranceTags()),
+                    Set.copyOf(p.getPreferenceTags()), p.getWeight()));
         }
-        return Arrays.stream(csv.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(s -> s.toLowerCase(Locale.ROOT))
-                .toList();
+        return new EventDetails(event.getId(), event.getName(), event.getDateTime(), event.getLocation(),
+                event.getLatitude(), event.getLongitude(), event.getBudget(), event.getCurrency(), event.getNotes(),
+                List.copyOf(participants), Set.copyOf(profile.intolerances()),
+                Map.copyOf(profile.preferenceCounts()));
     }
 
-    private List<String> normalize(List<String> values) {
-        if (values == null) {
-            return List.of();
-        }
-        return values.stream().map(v -> v.trim().toLowerCase(Locale.ROOT)).filter(v -> !v.isEmpty()).toList();
+    // Aggregato dell'evento con lock di riga; gli eventi creati prima dell'aggregato partono vuoti.
+    private EventDietaryProfileEntity lockProfile(UUID eventId) {
+        return profileRepository.findForUpdate(eventId)
+                .orElseGet(() -> profileRepository.save(new EventDietaryProfileEntity(eventId)));
     }
-}
-
-class BaseSuggestions {
-    private static final List<RestaurantSuggestion> DEFAULT = List.of(
-            new RestaurantSuggestion("Bistro Locale", "fusion", "€€", "vegetariano,senzalattosio", "N/D"),
-            new RestaurantSuggestion("Grill House", "carne", "€€", "senzalattosio", "N/D"));
 
-    private static final List<RestaurantSuggestion> MILANO = List.of(
-            new RestaurantSuggestion("Trattoria Verde", "italiana", "€€", "gluten-free,vegetariano", "Milano"),
-            new RestaurantSuggestion("Sushi Line", "giapponese", "€€€", "gluten-free,pesce", "Milano"),
-            new RestaurantSuggestion("Veggie Mood", "vegetariana", "€€", "vegano,gluten-free", "Milano"));
-
-    private static final List<RestaurantSuggestion> ROMA = List.of(
-            new RestaurantSuggestion("Osteria Centro", "italiana", "€€", "gluten-free,vegetariano", "Roma"),
-            new RestaurantSuggestion("Taverna Bio", "mediterranea", "€€", "vegano,bio", "Roma"));
+    private static <T> Set<T> union(Set<T> first, Set<T> second) {
+        Set<T> all = new LinkedHashSet<>(first);
+        all.addAll(second);
+        return all;
+    }
 
-    static List<RestaurantSuggestion> forLocation(String location) {
-        if (location == null) {
-            return DEFAULT;
-        }
-        String key = location.toLowerCase(Locale.ROOT);
-        if (key.contains("milano")) {
-            return MILANO;
-        }
-        if (key.contains("roma")) {
-            return ROMA;
-        }
-        return DEFAULT;
+    private static Set<Integer> tagIds(Set<String> names, Map<String, Integer> ids) {
+        return names.stream().map(ids::get).collect(Collectors.toCollection(HashSet::new));
     }
 }
@@ -0,0 +1,184 @@
+package com.server.eventi.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.hibernate.query.NativeQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.server.eventi.model.DietaryTagEntity;
+import com.server.eventi.model.EventDietaryProfileEntity;
+import com.server.eventi.model.EventEntity;
+import com.server.eventi.model.ParticipantEntity;
+import com.server.eventi.repository.EventDietaryProfileRepository;
+import com.server.eventi.repository.ParticipantRepository;
+
+import jakarta.persistence.EntityManager;
+
+// Migrazione una tantum dei database creati prima dei tag: le colonne CSV participants.intolerances e
+// participants.preferences diventano tag, gli aggregati degli eventi toccati vengono ricalcolati e le
+// colonne svuotate nella stessa transazione, cosi' all'avvio successivo non resta nulla da fare.
+// Su uno schema nuovo le colonne non esistono e basta una lettura dei metadati JDBC.
+@Component
+public class LegacyDietaryBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyDietaryBackfill.class);
+
+    static final List<String> LEGACY_COLUMNS = List.of("intolerances", "preferences");
+
+    private final DataSource dataSource;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final ParticipantRepository participantRepository;
+    private final EventDietaryProfileRepository profileRepository;
+    private final DietaryTags tags;
+    private final EventCache cache;
+
+    // @Lazy: JPA (profilo stdio) parte solo se ci sono colonne da migrare
+    public LegacyDietaryBackfill(DataSource dataSource, @Lazy EntityManager entityManager,
+                                 @Lazy PlatformTransactionManager transactionManager,
+                                 @Lazy ParticipantRepository participantRepository,
+                                 @Lazy EventDietaryProfileRepository profileRepository, @Lazy DietaryTags tags,
+                                 EventCache cache) {
+        this.dataSource = dataSource;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.participantRepository = participantRepository;
+        this.profileRepository = profileRepository;
+        this.tags = tags;
+        this.cache = cache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        try {
+            run();
+        } catch (RuntimeException | SQLException e) {
+            // I dati CSV restano al loro posto: si riprova al prossimo avvio
+            log.error("Migrazione dei campi alimentari CSV non riuscita", e);
+        }
+    }
+
+    // Partecipanti migrati.
+    int run() throws SQLException {
+        List<String> columns = legacyColumns();
+        if (columns.isEmpty()) {
+            return 0;
+        }
+        Integer migrated = transaction.execute(status -> migrate(columns));
+        if (migrated > 0) {
+            log.info("Campi alimentari CSV migrati a tag per {} partecipanti.", migrated);
+        }
+        return migrated;
+    }
+
+    private List<String> legacyColumns() throws SQLException {
+        List<String> found = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metadata = connection.getMetaData();
+            String table = metadata.storesUpperCaseIdentifiers() ? "PARTICIPANTS" : "participants";
+            try (ResultSet columns = metadata.getColumns(connection.getCatalog(), connection.getSchema(), table, null)) {
+                while (columns.next()) {
+                    String column = columns.getString("COLUMN_NAME").toLowerCase(Locale.ROOT);
+                    if (LEGACY_COLUMNS.contains(column)) {
+                        found.add(column);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private int migrate(List<String> columns) {
+        String pending = columns.stream().map(column -> column + " is not null").collect(Collectors.joining(" or "));
+        NativeQuery<?> select = entityManager
+                .createNativeQuery("select id, " + String.join(", ", columns) + " from participants where " + pending)
+                .unwrap(NativeQuery.class);
+        select.addScalar("id", UUID.class);
+        columns.forEach(column -> select.addScalar(column, String.class));
+
+        // id partecipante -> tag per colonna (intolleranze, preferenze)
+        Map<UUID, List<Set<String>>> legacy = new LinkedHashMap<>();
+        Set<String> allTags = new HashSet<>();
+        for (Object row : select.getResultList()) {
+            Object[] values = (Object[]) row;
+            List<Set<String>> parsed = new ArrayList<>(List.of(Set.of(), Set.of()));
+            for (int c = 0; c < columns.size(); c++) {
+                Set<String> tagNames = parse((String) values[c + 1]);
+                parsed.set(LEGACY_COLUMNS.indexOf(columns.get(c)), tagNames);
+                allTags.addAll(tagNames);
+            }
+            legacy.put((UUID) values[0], parsed);
+        }
+        if (legacy.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Integer> ids = tags.intern(allTags);
+        Map<UUID, EventEntity> events = new HashMap<>();
+        for (ParticipantEntity participant : participantRepository.findAllById(legacy.keySet())) {
+            List<Set<String>> parsed = legacy.get(participant.getId());
+            // Chi ha gia' tag (aggiornato dopo il passaggio ai tag) tiene quelli
+            if (participant.getIntoleranceTags().isEmpty()) {
+                parsed.get(0).forEach(name -> participant.getIntoleranceTags().add(ids.get(name)));
+            }
+            if (participant.getPreferenceTags().isEmpty()) {
+                parsed.get(1).forEach(name -> participant.getPreferenceTags().add(ids.get(name)));
+            }
+            if (participant.getEvent() != null) {
+                events.putIfAbsent(participant.getEvent().getId(), participant.getEvent());
+            }
+        }
+
+        // Aggregati ricalcolati da tutti i partecipanti: quelli creati per gli eventi precedenti ai tag
+        // non contavano i partecipanti con dati solo CSV
+        for (EventEntity event : events.values()) {
+            profileRepository.findForUpdate(event.getId());
+            EventDietaryProfileEntity profile = new EventDietaryProfileEntity(event.getId());
+            for (ParticipantEntity participant : event.getParticipants()) {
+                profile.add(participant.getIntoleranceTags(), participant.getPreferenceTags());
+            }
+            profileRepository.save(profile);
+            cache.invalidateAfterCommit(event.getId());
+        }
+
+        entityManager.flush();
+        String clear = columns.stream().map(column -> column + " = null").collect(Collectors.joining(", "));
+        entityManager.createNativeQuery("update participants set " + clear + " where " + pending).executeUpdate();
+        return legacy.size();
+    }
+
+    // Stesso formato scritto dalla versione CSV: valori separati da virgola. Tag oltre la lunghezza
+    // massima del dizionario vengono scartati invece di bloccare la migrazione.
+    static Set<String> parse(String csv) {
+        if (csv == null || csv.isBlank()) {
+            return Set.of();
+        }
+        List<String> values = Arrays.stream(csv.split(","))
+                .filter(value -> value.trim().length() <= DietaryTagEntity.MAX_NAME_LENGTH)
+                .toList();
+        return DietaryTags.normalize(values);
+    }
+}
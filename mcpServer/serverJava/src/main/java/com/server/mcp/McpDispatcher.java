@@ -0,0 +1,257 @@
+package com.server.mcp;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import io.micrometer.observation.Observation;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Component
+public class McpDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(McpDispatcher.class);
+
+    private final McpToolRegistry registry;
+    private final McpResourceRegistry resources;
+    private final ObjectMapper mapper;
+    private final McpMetrics metrics;
+    private final McpTracing tracing;
+    private final Duration toolTimeout;
+    private final Scheduler blockingScheduler = Schedulers.fromExecutorService(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mcp-tool-", 0).factory()), "mcp-tool");
+
+    public McpDispatcher(McpToolRegistry registry, McpResourceRegistry resources, ObjectMapper mapper,
+                         McpProperties properties, McpMetrics metrics, McpTracing tracing) {
+        this.registry = registry;
+        this.resources = resources;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.tracing = tracing;
+        this.toolTimeout = properties.getToolTimeout();
+    }
+
+    public boolean hasTools() {
+        return !registry.isEmpty();
+    }
+
+    // I messaggi senza id sono notifiche e completano vuoti: per specifica JSON-RPC non prevedono risposta.
+    public Mono<ObjectNode> dispatch(JsonNode request, McpSession session) {
+        return dispatch(request, session, Observation.NOOP);
+    }
+
+    // parent: span del transport (stdio) o NOOP. Con params._meta.timing=true il result di tools/call
+    // riporta in _meta.timing gli span gia' chiusi della richiesta.
+    public Mono<ObjectNode> dispatch(JsonNode request, McpSession session, Observation parent) {
+        JsonNode id = request.path("id");
+        String method = request.path("method").asText();
+        if (id.isMissingNode()) {
+            if (method.equals("notifications/cancelled")) {
+                JsonNode requestId = request.path("params").path("requestId");
+                if (session.cancel(requestId)) {
+                    log.info("Richiesta MCP {} annullata dal client.", requestId);
+                }
+            } else if (!method.startsWith("notifications/")) {
+                // Una richiesta senza id non puo' ricevere risposta: non la si esegue
+                log.debug("Messaggio MCP {} senza id ignorato.", method);
+            }
+            return Mono.empty();
+        }
+        String tool = toolTag(method, request.path("params"));
+        boolean timing = tracing.metaEnabled() && request.path("params").path("_meta").path("timing").asBoolean(false);
+        Observation span = parent.isNoop()
+                ? tracing.root("mcp.dispatch", timing)
+                : tracing.start("mcp.dispatch", parent);
+        if (!span.isNoop()) {
+            span.lowCardinalityKeyValue("mcp.method", method)
+                    .highCardinalityKeyValue(McpTracing.ID, id.toString());
+            if (tool != null) {
+                span.lowCardinalityKeyValue(McpTracing.TOOL, tool);
+                parent.lowCardinalityKeyValue(McpTracing.TOOL, tool);
+            }
+        }
+        Mono<ObjectNode> response = switch (method) {
+            case "initialize" -> Mono.just(result(id, registry.initializeResult()));
+            case "ping" -> Mono.just(result(id, mapper.createObjectNode()));
+            case "tools/list" -> Mono.just(result(id, registry.toolsListResult()));
+            case "tools/call" -> session.track(id, callTool(request.path("params"))
+                    .map(value -> result(id, timing ? withTiming(value, span) : value)));
+            default -> method.startsWith("resources/") && !resources.isEmpty()
+                    ? resourceRequest(id, method, request.path("params"), session)
+                    : Mono.error(new McpMethodNotFoundException(method));
+        };
+        response = response.onErrorResume(error -> {
+            span.error(error);
+            return Mono.just(toError(id, error));
+        });
+        if (!span.isNoop()) {
+            response = McpTracing.stopOnSignal(response, span)
+                    .contextWrite(context -> context.put(McpTracing.CONTEXT_KEY, span));
+        }
+        return metrics.record(method, tool, response);
+    }
+
+    private JsonNode withTiming(JsonNode value, Observation span) {
+        ObjectNode timing = tracing.timing(span);
+        if (timing != null && value instanceof ObjectNode result) {
+            result.putObject("_meta").set("timing", timing);
+        }
+        return value;
+    }
+
+    private String toolTag(String method, JsonNode params) {
+        if (!method.equals("tools/call")) {
+            return null;
+        }
+        String name = params.path("name").asText();
+        return registry.find(name) != null ? name : McpMetrics.UNKNOWN;
+    }
+
+    private Mono<JsonNode> callTool(JsonNode params) {
+        String name = params.path("name").asText();
+        McpTool tool = registry.find(name);
+        if (tool == null) {
+            return Mono.error(new IllegalArgumentException("Tool non supportato: " + name));
+        }
+        JsonNode arguments = params.path("arguments");
+        // Lo scope rende lo span del dispatch visibile al codice bloccante del tool (McpTracing.current()).
+        Mono<Object> invocation = Mono.deferContextual(context -> Mono.fromCallable(() -> {
+            try (Observation.Scope scope = McpTracing.parent(context).openScope()) {
+                return tool.handler().call(arguments);
+            }
+        }));
+        if (tool.blocking()) {
+            invocation = invocation.subscribeOn(blockingScheduler);
+        }
+        return invocation
+                .flatMap(output -> output instanceof Mono<?> reactive ? reactive : Mono.just(output))
+                .map(output -> output instanceof JsonNode node ? node : (JsonNode) mapper.valueToTree(output))
+                // Errori del tool (evento inesistente, argomenti non validi): result con isError, leggibile dal modello
+                .onErrorResume(IllegalArgumentException.class, error -> Mono.just(toolError(error.getMessage())))
+                .timeout(toolTimeout)
+                .onErrorMap(TimeoutException.class,
+                        timeout -> new McpToolTimeoutException(name, toolTimeout));
+    }
+
+    private JsonNode toolError(String message) {
+        ObjectNode result = mapper.createObjectNode();
+        result.putArray("content").addObject().put("type", "text").put("text", message);
+        result.put("isError", true);
+        return result;
+    }
+
+    private Mono<ObjectNode> resourceRequest(JsonNode id, String method, JsonNode params, McpSession session) {
+        switch (method) {
+            case "resources/list":
+                return Mono.fromSupplier(() -> result(id, resources.resourcesListResult()));
+            case "resources/templates/list":
+                return Mono.just(result(id, resources.templatesListResult()));
+            case "resources/unsubscribe":
+                session.unsubscribe(params.path("uri").asText());
+                return Mono.just(result(id, mapper.createObjectNode()));
+            case "resources/read", "resources/subscribe":
+                break;
+            default:
+                return Mono.error(new McpMethodNotFoundException(method));
+        }
+        String uri = params.path("uri").asText();
+        McpResourceProvider provider = resources.find(uri);
+        if (provider == null) {
+            return Mono.error(new IllegalArgumentException("Risorsa non supportata: " + uri));
+        }
+        if (method.equals("resources/subscribe")) {
+            session.subscribe(uri, provider.updates(uri)
+                    .map(update -> resourceUpdated(uri, update))
+                    .onErrorResume(error -> {
+                        log.warn("Iscrizione alla risorsa {} interrotta: {}", uri, error.getMessage());
+                        return Mono.empty();
+                    }));
+            return Mono.just(result(id, mapper.createObjectNode()));
+        }
+        return session.track(id, provider.read(uri)
+                .map(contents -> {
+                    ObjectNode result = mapper.createObjectNode();
+                    result.putArray("contents").add(mapper.<JsonNode>valueToTree(contents));
+                    return result(id, result);
+                })
+                .timeout(toolTimeout));
+    }
+
+    private ObjectNode resourceUpdated(String uri, Object update) {
+        ObjectNode notification = mapper.createObjectNode();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "notifications/resources/updated");
+        ObjectNode params = notification.putObject("params");
+        params.put("uri", uri);
+        if (update instanceof JsonNode node && node.isObject()) {
+            params.setAll((ObjectNode) node);
+        } else if (update != null) {
+            params.setAll(mapper.<ObjectNode>valueToTree(update));
+        }
+        return notification;
+    }
+
+    private ObjectNode toError(JsonNode id, Throwable error) {
+        if (error instanceof McpMethodNotFoundException) {
+            return error(id, -32601, error.getMessage());
+        }
+        if (error instanceof IllegalArgumentException) {
+            return error(id, -32602, error.getMessage());
+        }
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        return error(id, -32000, message);
+    }
+
+    public ObjectNode result(JsonNode id, JsonNode result) {
+        ObjectNode response = envelope(id);
+        response.set("result", result);
+        return response;
+    }
+
+    // Result gia' serializzato (tools/list, initialize): nella busta cambia solo l'id.
+    public ObjectNode result(JsonNode id, RawValue result) {
+        ObjectNode response = envelope(id);
+        response.putRawValue("result", result);
+        return response;
+    }
+
+    public ObjectNode error(JsonNode id, int code, String message) {
+        ObjectNode response = envelope(id);
+        ObjectNode error = response.putObject("error");
+        error.put("code", code);
+        error.put("message", message);
+        return response;
+    }
+
+    private ObjectNode envelope(JsonNode id) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        if (id != null && !id.isMissingNode()) {
+            response.set("id", id);
+        }
+        return response;
+    }
+
+    private static final class McpMethodNotFoundException extends RuntimeException {
+        McpMethodNotFoundException(String method) {
+            super("Metodo non supportato: " + method, null, false, false);
+        }
+    }
+
+    private static final class McpToolTimeoutException extends RuntimeException {
+        McpToolTimeoutException(String tool, Duration timeout) {
+            super("Timeout del tool " + tool + " dopo " + timeout.toSeconds() + "s.");
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.server.mcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Legge frame MCP direttamente in byte: Content-Length (conteggio in byte, non in char) oppure NDJSON.
+// Il frame restituito punta al buffer interno ed e' valido solo fino alla chiamata successiva a next().
+// Un frame oltre max-frame-size viene scartato (i byte dichiarati da Content-Length, o fino al newline in
+// NDJSON) e restituito come oversized, senza payload: la lettura prosegue dal frame successivo.
+class McpFrameReader {
+
+    private static final Logger log = LoggerFactory.getLogger(McpFrameReader.class);
+
+    private static final byte[] CONTENT_LENGTH = "content-length:".getBytes(StandardCharsets.US_ASCII);
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    // Da findLineEnd: riga oltre il limite, gia' scartata fino al newline compreso
+    private static final int OVERSIZED = -2;
+
+    // oversized: length sono i byte scartati, array e offset non vanno letti.
+    record Frame(byte[] array, int offset, int length, boolean contentLength, boolean oversized) {
+    }
+
+    private final ReadableByteChannel channel;
+    private final int maxFrameBytes;
+    private byte[] buf;
+    private ByteBuffer view;
+    private int start;
+    private int end;
+    private long frameStartNanos;
+
+    McpFrameReader(ReadableByteChannel channel, int maxFrameBytes) {
+        this.channel = channel;
+        this.maxFrameBytes = maxFrameBytes;
+        this.buf = new byte[Math.min(INITIAL_CAPACITY, Math.max(64, maxFrameBytes))];
+        this.view = ByteBuffer.wrap(buf);
+    }
+
+    Frame next() throws IOException {
+        frameStartNanos = start < end ? System.nanoTime() : 0;
+        while (true) {
+            int eol = findLineEnd();
+            if (eol == OVERSIZED) {
+                return new Frame(buf, start, maxFrameBytes, false, true);
+            }
+            if (eol < 0) {
+                // EOF: un'ultima riga senza newline vale comunque come payload NDJSON.
+                int tailEnd = trimCr(start, end);
+                if (isBlank(start, tailEnd)) {
+                    return null;
+                }
+                Frame tail = new Frame(buf, start, tailEnd - start, false, false);
+                start = end;
+                return tail;
+            }
+            int lineEnd = trimCr(start, eol);
+            if (isBlank(start, lineEnd)) {
+                start = eol + 1;
+                continue;
+            }
+            if (!startsWithContentLength(start, lineEnd)) {
+                Frame line = new Frame(buf, start, lineEnd - start, false, false);
+                start = eol + 1;
+                return line;
+            }
+            long length = parseLength(start + CONTENT_LENGTH.length, lineEnd);
+            start = eol + 1;
+            if (!skipRemainingHeaders()) {
+                return null;
+            }
+            if (length < 0) {
+                log.warn("Header Content-Length non valido, frame ignorato.");
+                continue;
+            }
+            if (length > maxFrameBytes) {
+                return discard(length) ? new Frame(buf, start, (int) Math.min(length, Integer.MAX_VALUE), true, true) : null;
+            }
+            while (end - start < length) {
+                if (!fill()) {
+                    return null;
+                }
+            }
+            Frame frame = new Frame(buf, start, (int) length, true, false);
+            start += (int) length;
+            return frame;
+        }
+    }
+
+    // Arrivo dei primi byte del frame restituito dall'ultima next(): l'attesa di input non conta.
+    long frameStartNanos() {
+        return frameStartNanos;
+    }
+
+    // Indice del '\n' che chiude la riga corrente, leggendo dal canale se serve; -1 a EOF, OVERSIZED se
+    // la riga supera il limite (scartata fino al newline compreso).
+    private int findLineEnd() throws IOException {
+        int scanned = 0;
+        while (true) {
+            for (int i = start + scanned; i < end; i++) {
+                if (buf[i] == '\n') {
+                    return i;
+                }
+            }
+            scanned = end - start;
+            if (scanned >= maxFrameBytes) {
+                return skipLine() ? OVERSIZED : -1;
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+    }
+
+    // Scarta fino al prossimo '\n' compreso; false a EOF.
+    private boolean skipLine() throws IOException {
+        while (true) {
+            for (int i = start; i < end; i++) {
+                if (buf[i] == '\n') {
+                    start = i + 1;
+                    return true;
+                }
+            }
+            start = end;
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    // Scarta i prossimi length byte senza tenerli in memoria; false se lo stream finisce prima.
+    private boolean discard(long length) throws IOException {
+        long remaining = length;
+        while (true) {
+            int chunk = (int) Math.min(remaining, end - start);
+            start += chunk;
+            remaining -= chunk;
+            if (remaining == 0) {
+                return true;
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean skipRemainingHeaders() throws IOException {
+        while (true) {
+            int eol = findLineEnd();
+            if (eol == OVERSIZED) {
+                continue;
+            }
+            if (eol < 0) {
+                return false;
+            }
+            boolean empty = trimCr(start, eol) == start;
+            start = eol + 1;
+            if (empty) {
+                return true;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (start == end) {
+            start = 0;
+            end = 0;
+        }
+        if (end == buf.length) {
+            if (start > 0) {
+                System.arraycopy(buf, start, buf, 0, end - start);
+                end -= start;
+                start = 0;
+            } else {
+                byte[] grown = new byte[(int) Math.min((long) buf.length * 2, (long) maxFrameBytes + 2)];
+                if (grown.length <= buf.length) {
+                    throw new IOException("Frame MCP oltre il limite di " + maxFrameBytes + " byte");
+                }
+                System.arraycopy(buf, 0, grown, 0, end);
+                buf = grown;
+                view = ByteBuffer.wrap(buf);
+            }
+        }
+        view.limit(buf.length).position(end);
+        int read;
+        do {
+            read = channel.read(view);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        end = view.position();
+        if (frameStartNanos == 0) {
+            frameStartNanos = System.nanoTime();
+        }
+        return true;
+    }
+
+    private int trimCr(int from, int to) {
+        return to > from && buf[to - 1] == '\r' ? to - 1 : to;
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWithContentLength(int from, int to) {
+        if (to - from < CONTENT_LENGTH.length) {
+            return false;
+        }
+        for (int i = 0; i < CONTENT_LENGTH.length; i++) {
+            if ((buf[from + i] | 0x20) != CONTENT_LENGTH[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parseLength(int from, int to) {
+        long value = 0;
+        boolean digits = false;
+        for (int i = from; i < to; i++) {
+            byte b = buf[i];
+            if (b == ' ' || b == '\t') {
+                if (digits) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '9' || value > Integer.MAX_VALUE) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+            digits = true;
+        }
+        return digits ? value : -1;
+    }
+}
@@ -0,0 +1,127 @@
+package com.server.mcp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Serializza le risposte in buffer riusati (uno per writer concorrente) e le scrive sul canale
+// con una sola write: l'header Content-Length viene composto in byte davanti al body, senza String.
+class McpFrameWriter {
+
+    private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_RESERVE = CONTENT_LENGTH.length + 10 + 4;
+    private static final int POOL_SIZE = 16;
+    private static final int MAX_RETAINED_BYTES = 1024 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ObjectMapper mapper;
+    private final BlockingQueue<FrameBuffer> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final Object writeLock = new Object();
+
+    McpFrameWriter(WritableByteChannel channel, ObjectMapper mapper) {
+        this.channel = channel;
+        this.mapper = mapper;
+    }
+
+    void write(JsonNode message, boolean contentLength) throws IOException {
+        FrameBuffer out = acquire();
+        try {
+            mapper.writeValue(out, message);
+            ByteBuffer frame = contentLength ? out.withHeader() : out.withNewline();
+            synchronized (writeLock) {
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+            }
+        } finally {
+            release(out);
+        }
+    }
+
+    private FrameBuffer acquire() {
+        FrameBuffer buffer = pool.poll();
+        if (buffer == null) {
+            buffer = new FrameBuffer();
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    private void release(FrameBuffer buffer) {
+        if (buffer.capacity() <= MAX_RETAINED_BYTES) {
+            pool.offer(buffer);
+        }
+    }
+
+    static final class FrameBuffer extends OutputStream {
+        private byte[] buf = new byte[8 * 1024];
+        private ByteBuffer view = ByteBuffer.wrap(buf);
+        private int count;
+
+        void reset() {
+            count = HEADER_RESERVE;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        @Override
+        public void write(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) {
+            ensure(len);
+            System.arraycopy(bytes, off, buf, count, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            // il buffer torna nel pool, non va chiuso da Jackson
+        }
+
+        ByteBuffer withNewline() {
+            write('\n');
+            view.limit(count).position(HEADER_RESERVE);
+            return view;
+        }
+
+        ByteBuffer withHeader() {
+            int bodyLength = count - HEADER_RESERVE;
+            int pos = HEADER_RESERVE;
+            buf[--pos] = '\n';
+            buf[--pos] = '\r';
+            buf[--pos] = '\n';
+            buf[--pos] = '\r';
+            int value = bodyLength;
+            do {
+                buf[--pos] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            pos -= CONTENT_LENGTH.length;
+            System.arraycopy(CONTENT_LENGTH, 0, buf, pos, CONTENT_LENGTH.length);
+            view.limit(count).position(pos);
+            return view;
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > buf.length) {
+                byte[] grown = new byte[Math.max(buf.length * 2, count + extra)];
+                System.arraycopy(buf, 0, grown, 0, count);
+                buf = grown;
+                view = ByteBuffer.wrap(buf);
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.server.mcp;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Transport MCP "streamable HTTP" sullo stesso server web delle API REST: stesso dispatcher e stessi tool
+// del bridge stdio, ma un solo processo condiviso da piu' client, ognuno con la propria sessione.
+// POST accetta un messaggio o un batch JSON-RPC; la risposta e' JSON o SSE secondo l'header Accept
+// (a parita' di preferenza vince JSON). GET apre lo stream SSE dei messaggi avviati dal server.
+// Disattivato per default. Contro il DNS rebinding (una pagina web che chiama il server locale) ogni
+// richiesta con header Origin fuori da mcp.http.allowed-origins riceve 403.
+@RestController
+@RequestMapping("/mcp")
+@ConditionalOnProperty(name = "mcp.http.enabled", havingValue = "true")
+public class McpHttpController {
+
+    static final String SESSION_HEADER = "Mcp-Session-Id";
+    static final String ORIGIN_HEADER = "Origin";
+
+    private final McpDispatcher dispatcher;
+    private final McpHttpSessions sessions;
+    private final ObjectMapper mapper;
+    private final int maxInFlight;
+    private final Duration keepAlive;
+    private final Set<String> allowedOrigins;
+
+    public McpHttpController(McpDispatcher dispatcher, McpHttpSessions sessions, ObjectMapper mapper,
+                             McpProperties properties) {
+        this.dispatcher = dispatcher;
+        this.sessions = sessions;
+        this.mapper = mapper;
+        this.maxInFlight = Math.max(1, properties.getMaxInFlight());
+        this.keepAlive = properties.getHttp().getKeepAlive();
+        this.allowedOrigins = properties.getHttp().getAllowedOrigins().stream()
+                .map(McpHttpController::normalizeOrigin)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> postJson(
+            @RequestHeader(name = ORIGIN_HEADER, required = false) String origin,
+            @RequestHeader(name = SESSION_HEADER, required = false) String sessionId,
+            @RequestBody byte[] body) {
+        Exchange exchange;
+        try {
+            exchange = open(origin, sessionId, body);
+        } catch (McpHttpException rejected) {
+            return Mono.just(ResponseEntity.status(rejected.status)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(bytes(rejected.error)));
+        }
+        return Flux.fromIterable(exchange.messages)
+                .flatMapSequential(message -> dispatcher.dispatch(message, exchange.session), maxInFlight)
+                .collectList()
+                .map(responses -> {
+                    Exchange settled = settle(exchange, responses.stream().anyMatch(exchange::initializes));
+                    if (responses.isEmpty()) {
+                        return settled.headers(ResponseEntity.accepted()).build();
+                    }
+                    JsonNode payload = exchange.batch ? mapper.createArrayNode().addAll(responses) : responses.get(0);
+                    return settled.headers(ResponseEntity.ok())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(bytes(payload));
+                });
+    }
+
+    // Le risposte di un batch escono appena pronte, non nell'ordine di invio. L'header della sessione
+    // parte prima delle risposte: se initialize non riesce la sessione si chiude a fine stream.
+    @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> postStream(
+            @RequestHeader(name = ORIGIN_HEADER, required = false) String origin,
+            @RequestHeader(name = SESSION_HEADER, required = false) String sessionId,
+            @RequestBody byte[] body) {
+        Exchange exchange;
+        try {
+            exchange = open(origin, sessionId, body);
+        } catch (McpHttpException rejected) {
+            return ResponseEntity.status(rejected.status).body(Flux.just(event(rejected.error)));
+        }
+        if (exchange.messages.stream().noneMatch(McpHttpController::isRequest)) {
+            return exchange.headers(ResponseEntity.accepted()).body(
+                    Flux.fromIterable(exchange.messages)
+                            .concatMap(message -> dispatcher.dispatch(message, exchange.session))
+                            .doFinally(signal -> settle(exchange, false))
+                            .thenMany(Flux.empty()));
+        }
+        AtomicBoolean initialized = new AtomicBoolean();
+        return exchange.headers(ResponseEntity.ok()).body(
+                Flux.fromIterable(exchange.messages)
+                        .flatMap(message -> dispatcher.dispatch(message, exchange.session), maxInFlight)
+                        .doOnNext(response -> {
+                            if (exchange.initializes(response)) {
+                                initialized.set(true);
+                            }
+                        })
+                        .doFinally(signal -> settle(exchange, initialized.get()))
+                        .map(this::event));
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> stream(
+            @RequestHeader(name = ORIGIN_HEADER, required = false) String origin,
+            @RequestHeader(name = SESSION_HEADER, required = false) String sessionId) {
+        if (!originAllowed(origin)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        McpSession session = sessionId != null ? sessions.find(sessionId) : null;
+        if (session == null) {
+            return ResponseEntity.status(sessionId == null ? HttpStatus.BAD_REQUEST : HttpStatus.NOT_FOUND).build();
+        }
+        Flux<ServerSentEvent<String>> heartbeat = Flux.interval(keepAlive)
+                .doOnNext(tick -> sessions.find(sessionId))
+                .map(tick -> ServerSentEvent.<String>builder().comment("keep-alive").build());
+        return ResponseEntity.ok().body(Flux.merge(session.outbound().map(this::event), heartbeat)
+                .takeUntilOther(session.outbound().ignoreElements()));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> close(@RequestHeader(name = ORIGIN_HEADER, required = false) String origin,
+                                      @RequestHeader(name = SESSION_HEADER, required = false) String sessionId) {
+        if (!originAllowed(origin)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (sessionId == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return sessions.close(sessionId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    private Exchange open(String origin, String sessionId, byte[] body) {
+        if (!originAllowed(origin)) {
+            throw new McpHttpException(HttpStatus.FORBIDDEN,
+                    dispatcher.error(null, -32600, "Origin non ammessa: " + origin));
+        }
+        JsonNode parsed;
+        try {
+            parsed = mapper.readTree(body);
+        } catch (IOException parseError) {
+            throw new McpHttpException(HttpStatus.BAD_REQUEST,
+                    dispatcher.error(null, -32700, "JSON non valido: " + parseError.getMessage()));
+        }
+        boolean batch = parsed != null && parsed.isArray();
+        List<JsonNode> messages = new ArrayList<>();
+        if (batch) {
+            parsed.forEach(messages::add);
+        } else if (parsed != null && parsed.isObject()) {
+            messages.add(parsed);
+        }
+        if (messages.isEmpty()) {
+            throw new McpHttpException(HttpStatus.BAD_REQUEST, dispatcher.error(null, -32600, "Richiesta JSON-RPC vuota."));
+        }
+
+        if (sessionId != null) {
+            McpSession session = sessions.find(sessionId);
+            if (session == null) {
+                throw new McpHttpException(HttpStatus.NOT_FOUND,
+                        dispatcher.error(null, -32001, "Sessione MCP sconosciuta o scaduta: ripetere initialize."));
+            }
+            return new Exchange(session, messages, batch, false);
+        }
+        boolean initializing = messages.stream().anyMatch(m -> "initialize".equals(m.path("method").asText()));
+        if (!initializing) {
+            throw new McpHttpException(HttpStatus.BAD_REQUEST,
+                    dispatcher.error(null, -32600, "Header " + SESSION_HEADER + " mancante: inviare prima initialize."));
+        }
+        McpSession session = sessions.create();
+        if (session == null) {
+            throw new McpHttpException(HttpStatus.SERVICE_UNAVAILABLE,
+                    dispatcher.error(null, -32000, "Troppe sessioni MCP attive."));
+        }
+        return new Exchange(session, messages, batch, true);
+    }
+
+    // Una sessione creata per un initialize non riuscito (errore o initialize senza id) non va restituita
+    // al client: si chiude subito invece di occupare un posto fino al timeout di inattivita'.
+    private Exchange settle(Exchange exchange, boolean initialized) {
+        if (!exchange.created || initialized) {
+            return exchange;
+        }
+        sessions.close(exchange.session.id());
+        return new Exchange(exchange.session, exchange.messages, exchange.batch, false);
+    }
+
+    private boolean originAllowed(String origin) {
+        return origin == null || allowedOrigins.contains(normalizeOrigin(origin));
+    }
+
+    // Schema e host non distinguono maiuscole; una eventuale "/" finale nella configurazione non conta.
+    private static String normalizeOrigin(String origin) {
+        String trimmed = origin.trim().toLowerCase(Locale.ROOT);
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    private static boolean isRequest(JsonNode message) {
+        return message.has("method") && message.has("id");
+    }
+
+    private ServerSentEvent<String> event(JsonNode message) {
+        try {
+            return ServerSentEvent.builder(mapper.writeValueAsString(message)).event("message").build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare la risposta MCP", e);
+        }
+    }
+
+    private byte[] bytes(JsonNode message) {
+        try {
+            return mapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare la risposta MCP", e);
+        }
+    }
+
+    private record Exchange(McpSession session, List<JsonNode> messages, boolean batch, boolean created) {
+
+        <B extends ResponseEntity.HeadersBuilder<B>> B headers(B builder) {
+            return created ? builder.header(SESSION_HEADER, session.id()) : builder;
+        }
+
+        // Risposta riuscita a uno degli initialize di questa richiesta.
+        boolean initializes(JsonNode response) {
+            return !response.has("error") && messages.stream().anyMatch(message ->
+                    "initialize".equals(message.path("method").asText()) && message.path("id").equals(response.path("id")));
+        }
+    }
+
+    private static final class McpHttpException extends RuntimeException {
+
+        final HttpStatus status;
+        final ObjectNode error;
+
+        McpHttpException(HttpStatus status, ObjectNode error) {
+            super(error.path("error").path("message").asText(), null, false, false);
+            this.status = status;
+            this.error = error;
+        }
+    }
+}
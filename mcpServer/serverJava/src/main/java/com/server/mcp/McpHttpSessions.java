@@ -0,0 +1,97 @@
+package com.server.mcp;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Sessioni del transport HTTP, identificate dall'header Mcp-Session-Id assegnato su initialize.
+// Le sessioni inattive oltre session-idle-timeout vengono chiuse alla prima occasione utile
+// (creazione di una nuova sessione o accesso a quella scaduta).
+@Component
+@ConditionalOnProperty(name = "mcp.http.enabled", havingValue = "true")
+public class McpHttpSessions implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(McpHttpSessions.class);
+
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+    // Posti occupati: riservati prima di registrare la sessione, cosi' initialize concorrenti non
+    // superano max-sessions
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+
+    private static final class Entry {
+        final McpSession session;
+        volatile long lastSeenNanos = System.nanoTime();
+
+        Entry(McpSession session) {
+            this.session = session;
+        }
+    }
+
+    public McpHttpSessions(McpProperties properties) {
+        this.maxSessions = Math.max(1, properties.getHttp().getMaxSessions());
+        this.idleTimeoutNanos = properties.getHttp().getSessionIdleTimeout().toNanos();
+    }
+
+    // null se il limite di sessioni attive e' raggiunto.
+    public McpSession create() {
+        sweep();
+        if (reserved.getAndUpdate(n -> n < maxSessions ? n + 1 : n) >= maxSessions) {
+            return null;
+        }
+        McpSession session = new McpSession(UUID.randomUUID().toString());
+        sessions.put(session.id(), new Entry(session));
+        return session;
+    }
+
+    public McpSession find(String id) {
+        Entry entry = sessions.get(id);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.lastSeenNanos > idleTimeoutNanos && entry.session.inFlight() == 0) {
+            close(id);
+            return null;
+        }
+        entry.lastSeenNanos = now;
+        return entry.session;
+    }
+
+    public boolean close(String id) {
+        Entry entry = sessions.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        reserved.decrementAndGet();
+        entry.session.close();
+        return true;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        sessions.forEach((id, entry) -> {
+            if (now - entry.lastSeenNanos > idleTimeoutNanos && entry.session.inFlight() == 0) {
+                log.info("Sessione MCP HTTP {} scaduta per inattivita'.", id);
+                close(id);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        sessions.keySet().forEach(this::close);
+    }
+}
@@ -0,0 +1,101 @@
+package com.server.mcp;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+// Metriche delle richieste JSON-RPC, comuni a stdio e HTTP:
+// - mcp.requests: timer per metodo, tool ed esito, con istogramma per i percentili;
+// - mcp.requests.active: richieste in corso (long task timer) per metodo e tool;
+// - mcp.errors: risposte di errore per metodo e codice JSON-RPC;
+// - mcp.tool.jpa.queries: query SQL eseguite da ogni chiamata di tool, per i tool che le misurano.
+// Metodi e tool sconosciuti finiscono sotto "unknown" per non far crescere i tag con input del client.
+@Component
+public class McpMetrics {
+
+    private static final Set<String> METHODS = Set.of("initialize", "ping", "tools/list", "tools/call",
+            "resources/list", "resources/templates/list", "resources/read", "resources/subscribe",
+            "resources/unsubscribe");
+    private static final String NONE = "none";
+    static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+
+    public McpMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // tool e' null fuori da tools/call; il chiamante passa UNKNOWN per i tool non registrati.
+    public Mono<ObjectNode> record(String method, String tool, Mono<ObjectNode> response) {
+        String methodTag = METHODS.contains(method) ? method : UNKNOWN;
+        String toolTag = tool != null ? tool : NONE;
+        return Mono.defer(() -> {
+            LongTaskTimer.Sample active = LongTaskTimer.builder("mcp.requests.active")
+                    .tag("method", methodTag)
+                    .tag("tool", toolTag)
+                    .register(registry)
+                    .start();
+            Timer.Sample sample = Timer.start(registry);
+            AtomicBoolean recorded = new AtomicBoolean();
+            // Registrato prima di emettere la risposta: chi la riceve vede gia' le metriche aggiornate
+            return response
+                    .doOnNext(message -> {
+                        String outcome = "ok";
+                        if (message.has("error")) {
+                            outcome = "error";
+                            errorCounter(methodTag, message.path("error").path("code").asText()).increment();
+                        } else if (message.path("result").path("isError").asBoolean(false)) {
+                            outcome = "error";
+                        }
+                        if (recorded.compareAndSet(false, true)) {
+                            active.stop();
+                            sample.stop(timer(methodTag, toolTag, outcome));
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            active.stop();
+                            sample.stop(timer(methodTag, toolTag, signal == SignalType.CANCEL ? "cancelled" : signal == SignalType.ON_ERROR ? "error" : "ok"));
+                        }
+                    });
+        });
+    }
+
+    public void recordQueries(String tool, long queries) {
+        DistributionSummary.builder("mcp.tool.jpa.queries")
+                .description("Query SQL eseguite per chiamata di tool")
+                .tag("tool", tool)
+                .register(registry)
+                .record(queries);
+    }
+
+    private Timer timer(String method, String tool, String outcome) {
+        return Timer.builder("mcp.requests")
+                .description("Durata delle richieste MCP")
+                .tag("method", method)
+                .tag("tool", tool)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    private Counter errorCounter(String method, String code) {
+        return Counter.builder("mcp.errors")
+                .description("Risposte JSON-RPC di errore")
+                .tag("method", method)
+                .tag("code", code)
+                .register(registry);
+    }
+}
@@ -0,0 +1,217 @@
+package com.server.mcp;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "mcp")
+public class McpProperties {
+
+    private boolean stdioEnabled = true;
+    private int maxInFlight = 16;
+    private DataSize maxFrameSize = DataSize.ofMegabytes(16);
+    private Duration toolTimeout = Duration.ofSeconds(60);
+    private String serverName = "demojava-mcp";
+    private String serverVersion = "0.1.0";
+    private final Http http = new Http();
+    private final Metrics metrics = new Metrics();
+    private final Tracing tracing = new Tracing();
+
+    public boolean isStdioEnabled() {
+        return stdioEnabled;
+    }
+
+    public void setStdioEnabled(boolean stdioEnabled) {
+        this.stdioEnabled = stdioEnabled;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public DataSize getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    public void setMaxFrameSize(DataSize maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    public Duration getToolTimeout() {
+        return toolTimeout;
+    }
+
+    public void setToolTimeout(Duration toolTimeout) {
+        this.toolTimeout = toolTimeout;
+    }
+
+    public String getServerName() {
+        return serverName;
+    }
+
+    public void setServerName(String serverName) {
+        this.serverName = serverName;
+    }
+
+    public String getServerVersion() {
+        return serverVersion;
+    }
+
+    public void setServerVersion(String serverVersion) {
+        this.serverVersion = serverVersion;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public static class Http {
+
+        private boolean enabled = false;
+        // Origin ammesse (es. http://localhost:6274); richieste senza Origin (client non browser) passano sempre
+        private List<String> allowedOrigins = new ArrayList<>();
+        private int maxSessions = 1000;
+        private Duration sessionIdleTimeout = Duration.ofMinutes(30);
+        // Intervallo dei commenti SSE che tengono aperto lo stream GET
+        private Duration keepAlive = Duration.ofSeconds(15);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getAllowedOrigins() {
+            return allowedOrigins;
+        }
+
+        public void setAllowedOrigins(List<String> allowedOrigins) {
+            this.allowedOrigins = allowedOrigins;
+        }
+
+        public int getMaxSessions() {
+            return maxSessions;
+        }
+
+        public void setMaxSessions(int maxSessions) {
+            this.maxSessions = maxSessions;
+        }
+
+        public Duration getSessionIdleTimeout() {
+            return sessionIdleTimeout;
+        }
+
+        public void setSessionIdleTimeout(Duration sessionIdleTimeout) {
+            this.sessionIdleTimeout = sessionIdleTimeout;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    public static class Metrics {
+
+        // Senza server web (solo stdio) le metriche vengono scritte su STDERR a questo intervallo
+        private boolean stderrEnabled = true;
+        private Duration stderrInterval = Duration.ofMinutes(1);
+
+        public boolean isStderrEnabled() {
+            return stderrEnabled;
+        }
+
+        public void setStderrEnabled(boolean stderrEnabled) {
+            this.stderrEnabled = stderrEnabled;
+        }
+
+        public Duration getStderrInterval() {
+            return stderrInterval;
+        }
+
+        public void setStderrInterval(Duration stderrInterval) {
+            this.stderrInterval = stderrInterval;
+        }
+    }
+
+    public static class Tracing {
+
+        // Span delle richieste MCP su file JSON lines con rotazione (una riga per span)
+        private boolean enabled = false;
+        private String file = Path.of(System.getProperty("java.io.tmpdir"), "demojava", "traces", "mcp-spans.jsonl").toString();
+        private DataSize maxFileSize = DataSize.ofMegabytes(10);
+        private int maxHistory = 7;
+        private DataSize totalSizeCap = DataSize.ofMegabytes(100);
+        // Consente al client di chiedere il breakdown dei tempi con params._meta.timing=true
+        private boolean metaEnabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public DataSize getMaxFileSize() {
+            return maxFileSize;
+        }
+
+        public void setMaxFileSize(DataSize maxFileSize) {
+            this.maxFileSize = maxFileSize;
+        }
+
+        public int getMaxHistory() {
+            return maxHistory;
+        }
+
+        public void setMaxHistory(int maxHistory) {
+            this.maxHistory = maxHistory;
+        }
+
+        public DataSize getTotalSizeCap() {
+            return totalSizeCap;
+        }
+
+        public void setTotalSizeCap(DataSize totalSizeCap) {
+            this.totalSizeCap = totalSizeCap;
+        }
+
+        public boolean isMetaEnabled() {
+            return metaEnabled;
+        }
+
+        public void setMetaEnabled(boolean metaEnabled) {
+            this.metaEnabled = metaEnabled;
+        }
+    }
+}
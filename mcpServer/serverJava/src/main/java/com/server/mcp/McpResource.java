@@ -0,0 +1,8 @@
+package com.server.mcp;
+
+public record McpResource(
+        String uri,
+        String name,
+        String description,
+        String mimeType) {
+}
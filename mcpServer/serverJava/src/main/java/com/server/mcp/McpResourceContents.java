@@ -0,0 +1,7 @@
+package com.server.mcp;
+
+public record McpResourceContents(
+        String uri,
+        String mimeType,
+        String text) {
+}
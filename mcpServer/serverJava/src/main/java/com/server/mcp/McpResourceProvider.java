@@ -0,0 +1,24 @@
+package com.server.mcp;
+
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Risorse MCP di un modulo. read e updates non devono bloccare: girano sui thread reattivi.
+// Ogni elemento di updates diventa una notifications/resources/updated per i client iscritti
+// all'uri; i suoi campi vengono aggiunti ai params accanto a uri (es. il delta rispetto al
+// contenuto precedente).
+public interface McpResourceProvider {
+
+    List<McpResourceTemplate> templates();
+
+    // Risorse concrete disponibili ora; puo' cambiare a runtime.
+    List<McpResource> resources();
+
+    boolean supports(String uri);
+
+    Mono<McpResourceContents> read(String uri);
+
+    Flux<?> updates(String uri);
+}
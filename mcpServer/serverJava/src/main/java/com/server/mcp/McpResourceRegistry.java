@@ -0,0 +1,68 @@
+package com.server.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+// Provider di risorse di tutti i moduli. I template sono statici e serializzati una volta;
+// resources/list viene invece costruito a ogni richiesta perche' dipende dai dati correnti.
+@Component
+public class McpResourceRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(McpResourceRegistry.class);
+
+    private final List<McpResourceProvider> providers;
+    private final ObjectMapper mapper;
+    private final RawValue templatesListResult;
+
+    public McpResourceRegistry(List<McpResourceProvider> providers, ObjectMapper mapper) {
+        this.providers = List.copyOf(providers);
+        this.mapper = mapper;
+        List<McpResourceTemplate> templates = new ArrayList<>();
+        providers.forEach(provider -> templates.addAll(provider.templates()));
+        ObjectNode result = mapper.createObjectNode();
+        result.set("resourceTemplates", mapper.valueToTree(templates));
+        try {
+            this.templatesListResult = new RawValue(new SerializedString(mapper.writeValueAsString(result)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare il result MCP", e);
+        }
+        if (!templates.isEmpty()) {
+            log.info("Risorse MCP registrate: {}", templates.stream().map(McpResourceTemplate::uriTemplate).toList());
+        }
+    }
+
+    public boolean isEmpty() {
+        return providers.isEmpty();
+    }
+
+    public McpResourceProvider find(String uri) {
+        for (McpResourceProvider provider : providers) {
+            if (provider.supports(uri)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    public ObjectNode resourcesListResult() {
+        List<McpResource> resources = new ArrayList<>();
+        providers.forEach(provider -> resources.addAll(provider.resources()));
+        ObjectNode result = mapper.createObjectNode();
+        result.set("resources", mapper.valueToTree(resources));
+        return result;
+    }
+
+    public RawValue templatesListResult() {
+        return templatesListResult;
+    }
+}
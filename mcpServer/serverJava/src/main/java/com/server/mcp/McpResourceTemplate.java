@@ -0,0 +1,9 @@
+package com.server.mcp;
+
+// Famiglia di risorse parametrica (RFC 6570), es. weather://alerts/{area}.
+public record McpResourceTemplate(
+        String uriTemplate,
+        String name,
+        String description,
+        String mimeType) {
+}
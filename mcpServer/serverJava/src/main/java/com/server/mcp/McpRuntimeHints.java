@@ -0,0 +1,16 @@
+package com.server.mcp;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+// Hint per l'immagine nativa: i record del protocollo serializzati da Jackson via reflection.
+// Il resto dei messaggi JSON-RPC e' costruito come albero JsonNode.
+public class McpRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                McpResource.class, McpResourceTemplate.class, McpResourceContents.class);
+    }
+}
@@ -0,0 +1,97 @@
+package com.server.mcp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+// Stato di una connessione MCP (stdio o sessione HTTP): le richieste in corso, annullabili per id
+// (notifications/cancelled) o tutte insieme alla chiusura, le iscrizioni alle risorse e il canale
+// dei messaggi avviati dal server.
+public class McpSession {
+
+    private final String id;
+    private final Map<JsonNode, Sinks.One<Boolean>> pending = new ConcurrentHashMap<>();
+    private final Sinks.Many<ObjectNode> outbound = Sinks.many().multicast().directBestEffort();
+    private final Map<String, Disposable> subscriptions = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public McpSession(String id) {
+        this.id = id;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    // Una richiesta annullata completa vuota: per specifica non riceve risposta.
+    public <T> Mono<T> track(JsonNode requestId, Mono<T> work) {
+        if (requestId == null || requestId.isMissingNode() || requestId.isNull()) {
+            return work;
+        }
+        return Mono.defer(() -> {
+            Sinks.One<Boolean> cancel = Sinks.one();
+            pending.put(requestId, cancel);
+            return work.takeUntilOther(cancel.asMono())
+                    .doFinally(signal -> pending.remove(requestId, cancel));
+        });
+    }
+
+    public boolean cancel(JsonNode requestId) {
+        Sinks.One<Boolean> cancel = pending.remove(requestId);
+        if (cancel == null) {
+            return false;
+        }
+        cancel.tryEmitValue(Boolean.TRUE);
+        return true;
+    }
+
+    public int inFlight() {
+        return pending.size();
+    }
+
+    // Notifiche server -> client; vanno perse se in quel momento nessuno e' in ascolto.
+    public void send(ObjectNode message) {
+        outbound.tryEmitNext(message);
+    }
+
+    public Flux<ObjectNode> outbound() {
+        return outbound.asFlux();
+    }
+
+    // Iscrizione a una risorsa (resources/subscribe): le notifiche vanno sul canale outbound finche'
+    // il client non si disiscrive o la sessione non viene chiusa. Una seconda iscrizione sostituisce la prima.
+    public void subscribe(String uri, Flux<ObjectNode> notifications) {
+        if (closed) {
+            return;
+        }
+        Disposable previous = subscriptions.put(uri, notifications.subscribe(this::send));
+        if (previous != null) {
+            previous.dispose();
+        }
+    }
+
+    public boolean unsubscribe(String uri) {
+        Disposable subscription = subscriptions.remove(uri);
+        if (subscription == null) {
+            return false;
+        }
+        subscription.dispose();
+        return true;
+    }
+
+    public void close() {
+        closed = true;
+        pending.values().forEach(cancel -> cancel.tryEmitValue(Boolean.TRUE));
+        pending.clear();
+        subscriptions.values().forEach(Disposable::dispose);
+        subscriptions.clear();
+        outbound.tryEmitComplete();
+    }
+}
@@ -0,0 +1,52 @@
+package com.server.mcp;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnNotWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.logging.LoggingMeterRegistry;
+import io.micrometer.core.instrument.logging.LoggingRegistryConfig;
+
+// In modalita' solo stdio non c'e' l'endpoint Prometheus: le stesse metriche escono periodicamente
+// nel log, cioe' su STDERR, senza toccare STDOUT che e' riservato al protocollo. Solo le metriche
+// dell'applicazione (mcp.*, nws.*): quelle di JVM e sistema restano sugli altri registry.
+@Component
+@ConditionalOnNotWebApplication
+@ConditionalOnProperty(name = "mcp.metrics.stderr-enabled", havingValue = "true", matchIfMissing = true)
+public class McpStderrMeterRegistry extends LoggingMeterRegistry implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(McpStderrMeterRegistry.class);
+
+    public McpStderrMeterRegistry(McpProperties properties) {
+        super(config(properties.getMetrics().getStderrInterval()), Clock.SYSTEM, log::info);
+        config().meterFilter(MeterFilter.acceptNameStartsWith("mcp."))
+                .meterFilter(MeterFilter.acceptNameStartsWith("nws."))
+                .meterFilter(MeterFilter.deny());
+    }
+
+    private static LoggingRegistryConfig config(Duration interval) {
+        return new LoggingRegistryConfig() {
+            @Override
+            public String get(String key) {
+                return null;
+            }
+
+            @Override
+            public Duration step() {
+                return interval;
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        close();
+    }
+}
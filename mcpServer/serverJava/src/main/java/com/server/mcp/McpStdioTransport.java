@@ -0,0 +1,138 @@
+package com.server.mcp;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.observation.Observation;
+
+// Unico proprietario di System.in/System.out: tutti i moduli passano dal McpDispatcher condiviso.
+@Component
+@ConditionalOnProperty(name = "mcp.stdio-enabled", havingValue = "true", matchIfMissing = true)
+public class McpStdioTransport implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(McpStdioTransport.class);
+
+    private final McpDispatcher dispatcher;
+    private final ObjectMapper mapper;
+    private final McpTracing tracing;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "mcp-stdio-loop"));
+    private final McpSession session = new McpSession("stdio");
+    private final Semaphore inFlight;
+    private final int maxFrameBytes;
+    private final McpFrameWriter writer;
+    // Framing dell'ultima richiesta letta, usato per i messaggi avviati dal server.
+    private volatile boolean contentLengthFraming;
+
+    public McpStdioTransport(McpDispatcher dispatcher, ObjectMapper mapper, McpProperties properties,
+                             McpTracing tracing) {
+        this.dispatcher = dispatcher;
+        this.mapper = mapper;
+        this.tracing = tracing;
+        this.inFlight = new Semaphore(Math.max(1, properties.getMaxInFlight()));
+        this.maxFrameBytes = (int) Math.min(Integer.MAX_VALUE - 16, properties.getMaxFrameSize().toBytes());
+        this.writer = new McpFrameWriter(new FileOutputStream(FileDescriptor.out).getChannel(), mapper);
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!dispatcher.hasTools()) {
+            log.info("Nessun tool MCP abilitato: bridge stdio non avviato.");
+            return;
+        }
+        log.info("Avvio MCP stdio bridge (Java).");
+        session.outbound().subscribe(message -> write(message, contentLengthFraming));
+        executor.submit(this::loop);
+    }
+
+    private void loop() {
+        try (ReadableByteChannel in = new FileInputStream(FileDescriptor.in).getChannel()) {
+            McpFrameReader reader = new McpFrameReader(in, maxFrameBytes);
+            McpFrameReader.Frame frame;
+            while ((frame = reader.next()) != null) {
+                dispatch(frame, reader.frameStartNanos());
+            }
+        } catch (IOException ioException) {
+            log.warn("Loop MCP stdio terminato", ioException);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        } finally {
+            session.close();
+        }
+    }
+
+    // Il thread di lettura fa solo il parsing: la pipeline e' reattiva e non occupa thread
+    // durante l'attesa dell'upstream; max-in-flight limita le richieste aperte.
+    // Ogni risposta usa lo stesso framing della richiesta (Content-Length o NDJSON).
+    // Con il tracing attivo lo span mcp.request va dal primo byte del frame alla scrittura della risposta.
+    private void dispatch(McpFrameReader.Frame frame, long frameStartNanos) throws InterruptedException {
+        boolean contentLength = frame.contentLength();
+        contentLengthFraming = contentLength;
+        if (frame.oversized()) {
+            // Id illeggibile senza fare il parsing: errore senza id, la sessione resta aperta
+            log.warn("Frame MCP di {} byte oltre il limite di {}: scartato.", frame.length(), maxFrameBytes);
+            write(dispatcher.error(null, -32600, "Richiesta oltre il limite di " + maxFrameBytes + " byte."), contentLength);
+            return;
+        }
+        Observation root = tracing.root("mcp.request", frameStartNanos, false);
+        tracing.start("mcp.frame.read", root, frameStartNanos)
+                .highCardinalityKeyValue("bytes", String.valueOf(frame.length()))
+                .stop();
+        Observation parse = tracing.start("mcp.parse", root);
+        JsonNode request;
+        try {
+            request = mapper.readTree(frame.array(), frame.offset(), frame.length());
+        } catch (IOException parseError) {
+            parse.error(parseError);
+            parse.stop();
+            root.stop();
+            write(dispatcher.error(null, -32700, "JSON non valido: " + parseError.getMessage()), contentLength);
+            return;
+        }
+        parse.stop();
+        if (!root.isNoop()) {
+            root.lowCardinalityKeyValue("transport", "stdio")
+                    .lowCardinalityKeyValue("mcp.method", request.path("method").asText())
+                    .highCardinalityKeyValue(McpTracing.ID, request.path("id").toString());
+        }
+        inFlight.acquire();
+        dispatcher.dispatch(request, session, root)
+                .doFinally(signal -> {
+                    inFlight.release();
+                    root.stop();
+                })
+                .subscribe(
+                        response -> {
+                            Observation write = tracing.start("mcp.write", root);
+                            write(response, contentLength);
+                            write.stop();
+                        },
+                        error -> log.warn("Richiesta MCP terminata con errore", error));
+    }
+
+    private void write(ObjectNode response, boolean contentLength) {
+        if (response == null) {
+            return;
+        }
+        try {
+            writer.write(response, contentLength);
+        } catch (IOException e) {
+            log.warn("Impossibile scrivere la risposta MCP", e);
+        }
+    }
+}
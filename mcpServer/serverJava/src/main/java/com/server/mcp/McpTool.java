@@ -0,0 +1,21 @@
+package com.server.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// blocking = true: l'handler fa I/O bloccante (JPA, ...) e viene eseguito su virtual thread.
+// blocking = false: l'handler restituisce un Mono e non occupa thread durante l'attesa.
+public record McpTool(
+        String name,
+        String description,
+        JsonNode inputSchema,
+        McpToolHandler handler,
+        boolean blocking) {
+
+    public static McpTool blocking(String name, String description, JsonNode inputSchema, McpToolHandler handler) {
+        return new McpTool(name, description, inputSchema, handler, true);
+    }
+
+    public static McpTool reactive(String name, String description, JsonNode inputSchema, McpToolHandler handler) {
+        return new McpTool(name, description, inputSchema, handler, false);
+    }
+}
@@ -0,0 +1,9 @@
+package com.server.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+// Restituisce il result del tool, oppure un Mono che lo emette.
+@FunctionalInterface
+public interface McpToolHandler {
+    Object call(JsonNode arguments) throws Exception;
+}
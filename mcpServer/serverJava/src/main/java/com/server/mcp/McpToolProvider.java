@@ -0,0 +1,8 @@
+package com.server.mcp;
+
+import java.util.List;
+
+// Ogni modulo (weather, eventi, ...) espone i propri tool; McpDispatcher li unisce in un unico tools/list.
+public interface McpToolProvider {
+    List<McpTool> tools();
+}
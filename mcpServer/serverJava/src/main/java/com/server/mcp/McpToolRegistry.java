@@ -0,0 +1,95 @@
+package com.server.mcp;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+
+// Tool di tutti i provider, raccolti una volta all'avvio. I result di tools/list e initialize
+// non cambiano a runtime: sono serializzati qui e copiati cosi' come sono nelle risposte.
+@Component
+public class McpToolRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(McpToolRegistry.class);
+
+    // Revisione che introduce lo streamable HTTP e ammette ancora i batch JSON-RPC usati da /mcp
+    static final String PROTOCOL_VERSION = "2025-03-26";
+
+    private final Map<String, McpTool> toolsByName;
+    private final RawValue toolsListResult;
+    private final RawValue initializeResult;
+
+    public McpToolRegistry(List<McpToolProvider> providers, McpResourceRegistry resources, ObjectMapper mapper,
+                           McpProperties properties) {
+        Map<String, McpTool> lookup = new HashMap<>();
+        ObjectNode toolsList = mapper.createObjectNode();
+        ArrayNode tools = toolsList.putArray("tools");
+        for (McpToolProvider provider : providers) {
+            for (McpTool tool : provider.tools()) {
+                if (lookup.putIfAbsent(tool.name(), tool) != null) {
+                    throw new IllegalStateException("Tool MCP registrato due volte: " + tool.name());
+                }
+                ObjectNode descriptor = tools.addObject();
+                descriptor.put("name", tool.name());
+                descriptor.put("description", tool.description());
+                descriptor.set("inputSchema", tool.inputSchema());
+            }
+        }
+        this.toolsByName = Map.copyOf(lookup);
+
+        ObjectNode initialize = mapper.createObjectNode();
+        initialize.put("protocolVersion", PROTOCOL_VERSION);
+        ObjectNode capabilities = initialize.putObject("capabilities");
+        capabilities.putObject("tools");
+        if (!resources.isEmpty()) {
+            capabilities.putObject("resources").put("subscribe", true).put("listChanged", false);
+        }
+        ObjectNode info = initialize.putObject("serverInfo");
+        info.put("name", properties.getServerName());
+        info.put("version", properties.getServerVersion());
+
+        this.toolsListResult = serialized(mapper, toolsList);
+        this.initializeResult = serialized(mapper, initialize);
+        log.info("Tool MCP registrati: {}", toolsByName.keySet());
+    }
+
+    public McpTool find(String name) {
+        return toolsByName.get(name);
+    }
+
+    public Set<String> names() {
+        return toolsByName.keySet();
+    }
+
+    public boolean isEmpty() {
+        return toolsByName.isEmpty();
+    }
+
+    public RawValue toolsListResult() {
+        return toolsListResult;
+    }
+
+    public RawValue initializeResult() {
+        return initializeResult;
+    }
+
+    // SerializedString tiene in cache i byte UTF-8: il generator li copia senza ricodificare.
+    private static RawValue serialized(ObjectMapper mapper, ObjectNode result) {
+        try {
+            return new RawValue(new SerializedString(mapper.writeValueAsString(result)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare il result MCP", e);
+        }
+    }
+}
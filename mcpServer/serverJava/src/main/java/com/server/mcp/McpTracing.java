@@ -0,0 +1,349 @@
+package com.server.mcp;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeAndTimeBasedRollingPolicy;
+import ch.qos.logback.core.util.FileSize;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+// Span per singola richiesta MCP costruiti con Micrometer Observation su un registry dedicato (non quello
+// delle metriche). Ogni span chiuso diventa una riga JSON nel file mcp.tracing.file, scritto da un
+// appender logback asincrono con rotazione; nessun collector esterno.
+// Il padre si propaga nel Context Reactor (CONTEXT_KEY) per le pipeline reattive e con openScope() per
+// i tool bloccanti. Senza tracing su file e senza _meta.timing richiesto gli span sono Observation.NOOP.
+@Component
+public class McpTracing implements DisposableBean {
+
+    public static final String CONTEXT_KEY = McpTracing.class.getName();
+    static final String ID = "jsonrpc.id";
+    static final String TOOL = "mcp.tool";
+    private static final int MAX_COLLECTED = 256;
+
+    private final ObservationRegistry registry = ObservationRegistry.create();
+    private final ObjectMapper mapper;
+    private final boolean fileEnabled;
+    private final boolean metaEnabled;
+    private final org.slf4j.Logger spanLog;
+    private AsyncAppender appender;
+
+    public McpTracing(McpProperties properties, ObjectMapper mapper) {
+        McpProperties.Tracing config = properties.getTracing();
+        this.mapper = mapper;
+        this.fileEnabled = config.isEnabled();
+        this.metaEnabled = config.isMetaEnabled();
+        if (fileEnabled) {
+            this.appender = fileAppender(config);
+        }
+        this.spanLog = LoggerFactory.getLogger("mcp.trace");
+        registry.observationConfig().observationHandler(new SpanHandler());
+    }
+
+    public boolean metaEnabled() {
+        return metaEnabled;
+    }
+
+    // Radice di una traccia. collect = il chiamante ha chiesto _meta.timing: serve anche senza file.
+    public Observation root(String name, boolean collect) {
+        return root(name, 0, collect);
+    }
+
+    // startNanos > 0 retrodata l'inizio (es. al primo byte del frame stdio).
+    public Observation root(String name, long startNanos, boolean collect) {
+        if (!fileEnabled && !collect) {
+            return Observation.NOOP;
+        }
+        return Observation.createNotStarted(name, () -> new SpanContext(startNanos), registry).start();
+    }
+
+    public Observation start(String name, Observation parent) {
+        return start(name, parent, 0);
+    }
+
+    public Observation start(String name, Observation parent, long startNanos) {
+        if (parent == null || parent.isNoop()) {
+            return Observation.NOOP;
+        }
+        return Observation.createNotStarted(name, () -> new SpanContext(startNanos), registry)
+                .parentObservation(parent)
+                .start();
+    }
+
+    // Span corrente sul thread (tool bloccanti, dentro lo scope aperto dal dispatcher).
+    public Observation current() {
+        Observation current = registry.getCurrentObservation();
+        return current != null ? current : Observation.NOOP;
+    }
+
+    public static Observation parent(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, Observation.NOOP);
+    }
+
+    // Span figlio dello span nel Context attorno a una pipeline reattiva; i figli lo vedono come padre.
+    public <T> Mono<T> span(String name, KeyValues attributes, Mono<T> source) {
+        return Mono.deferContextual(context -> {
+            Observation span = start(name, parent(context));
+            if (span.isNoop()) {
+                return source;
+            }
+            span.highCardinalityKeyValues(attributes);
+            return stopOnSignal(source, span)
+                    .contextWrite(inner -> inner.put(CONTEXT_KEY, span));
+        });
+    }
+
+    // Chiude lo span sul segnale terminale, prima che il valore arrivi a valle: con doFinally lo span
+    // si chiuderebbe dopo la costruzione della risposta e mancherebbe da _meta.timing.
+    public static <T> Mono<T> stopOnSignal(Mono<T> source, Observation span) {
+        return source
+                .doOnSuccess(value -> span.stop())
+                .doOnError(error -> span.error(error).stop())
+                .doOnCancel(span::stop);
+    }
+
+    public <T> Mono<T> span(String name, Supplier<T> work) {
+        return span(name, KeyValues.empty(), Mono.fromSupplier(work));
+    }
+
+    // Breakdown per _meta.timing: gli span gia' chiusi della traccia, con inizio relativo alla radice.
+    // Gli span ancora aperti (dispatch, scrittura della risposta) non ci sono; totalMs li copre.
+    public ObjectNode timing(Observation span) {
+        SpanData data = span.isNoop() ? null : span.getContextView().get(SpanData.class);
+        if (data == null) {
+            return null;
+        }
+        SpanData root = data.root;
+        ObjectNode timing = mapper.createObjectNode();
+        timing.put("traceId", root.traceId);
+        timing.put("totalMs", millis(System.nanoTime() - root.startNanos));
+        ArrayNode spans = timing.putArray("spans");
+        synchronized (root.collected) {
+            for (ObjectNode finished : root.collected) {
+                ObjectNode copy = finished.deepCopy();
+                copy.put("startMs", millis(copy.path("startNanos").asLong() - root.startNanos));
+                copy.remove("startNanos");
+                copy.remove("traceId");
+                copy.remove("start");
+                spans.add(copy);
+            }
+        }
+        return timing;
+    }
+
+    @Override
+    public void destroy() {
+        if (appender != null) {
+            appender.stop();
+        }
+    }
+
+    private static AsyncAppender fileAppender(McpProperties.Tracing config) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%msg%n");
+        encoder.start();
+
+        RollingFileAppender<ILoggingEvent> file = new RollingFileAppender<>();
+        file.setContext(context);
+        file.setName("MCP_TRACE_FILE");
+        file.setFile(config.getFile());
+        file.setEncoder(encoder);
+        SizeAndTimeBasedRollingPolicy<ILoggingEvent> policy = new SizeAndTimeBasedRollingPolicy<>();
+        policy.setContext(context);
+        policy.setParent(file);
+        policy.setFileNamePattern(config.getFile() + ".%d{yyyy-MM-dd}.%i.gz");
+        policy.setMaxFileSize(new FileSize(config.getMaxFileSize().toBytes()));
+        policy.setMaxHistory(config.getMaxHistory());
+        policy.setTotalSizeCap(new FileSize(config.getTotalSizeCap().toBytes()));
+        policy.start();
+        file.setRollingPolicy(policy);
+        file.start();
+
+        // neverBlock: con la coda piena si perdono span invece di rallentare le richieste
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setName("MCP_TRACE");
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.addAppender(file);
+        async.start();
+
+        ch.qos.logback.classic.Logger logger = context.getLogger("mcp.trace");
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(async);
+        return async;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private static String hex(int bytes) {
+        StringBuilder out = new StringBuilder(bytes * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < bytes; i++) {
+            int b = random.nextInt(256);
+            out.append(Character.forDigit(b >> 4, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return out.toString();
+    }
+
+    private static final class SpanContext extends Observation.Context {
+
+        final long presetStartNanos;
+
+        SpanContext(long presetStartNanos) {
+            this.presetStartNanos = presetStartNanos;
+        }
+    }
+
+    private record SpanEvent(long nanos, String name, String detail) {
+    }
+
+    private static final class SpanData {
+
+        final String traceId;
+        final String spanId;
+        final String parentSpanId;
+        final long startNanos;
+        final long startEpochMicros;
+        final SpanData root;
+        final List<ObjectNode> collected;
+        final Map<String, String> inherited = new LinkedHashMap<>();
+        final List<SpanEvent> events = new ArrayList<>();
+
+        SpanData(SpanData parent, long startNanos) {
+            this.traceId = parent != null ? parent.traceId : hex(16);
+            this.spanId = hex(8);
+            this.parentSpanId = parent != null ? parent.spanId : null;
+            this.startNanos = startNanos;
+            this.startEpochMicros = Instant.now().toEpochMilli() * 1_000 - (System.nanoTime() - startNanos) / 1_000;
+            this.root = parent != null ? parent.root : this;
+            this.collected = parent != null ? null : new ArrayList<>();
+        }
+    }
+
+    private final class SpanHandler implements ObservationHandler<Observation.Context> {
+
+        @Override
+        public void onStart(Observation.Context context) {
+            SpanData parent = context.getParentObservation() != null
+                    ? context.getParentObservation().getContextView().get(SpanData.class)
+                    : null;
+            long preset = context instanceof SpanContext span ? span.presetStartNanos : 0;
+            SpanData data = new SpanData(parent, preset > 0 ? preset : System.nanoTime());
+            if (parent != null) {
+                data.inherited.putAll(parent.inherited);
+                inherit(context.getParentObservation().getContextView(), data);
+            }
+            context.put(SpanData.class, data);
+        }
+
+        @Override
+        public void onEvent(Observation.Event event, Observation.Context context) {
+            SpanData data = context.get(SpanData.class);
+            if (data != null) {
+                synchronized (data) {
+                    data.events.add(new SpanEvent(System.nanoTime(), event.getName(), event.getContextualName()));
+                }
+            }
+        }
+
+        @Override
+        public void onStop(Observation.Context context) {
+            SpanData data = context.get(SpanData.class);
+            if (data == null) {
+                return;
+            }
+            long end = System.nanoTime();
+            ObjectNode span = mapper.createObjectNode();
+            span.put("traceId", data.traceId);
+            span.put("spanId", data.spanId);
+            if (data.parentSpanId != null) {
+                span.put("parentSpanId", data.parentSpanId);
+            }
+            span.put("name", context.getName());
+            span.put("start", Instant.ofEpochSecond(0, data.startEpochMicros * 1_000).toString());
+            span.put("startNanos", data.startNanos);
+            span.put("durationMs", millis(end - data.startNanos));
+            ObjectNode attributes = span.putObject("attributes");
+            data.inherited.forEach(attributes::put);
+            for (KeyValue keyValue : context.getAllKeyValues()) {
+                attributes.put(keyValue.getKey(), keyValue.getValue());
+            }
+            synchronized (data) {
+                if (!data.events.isEmpty()) {
+                    ArrayNode events = span.putArray("events");
+                    for (SpanEvent event : data.events) {
+                        events.addObject()
+                                .put("atMs", millis(event.nanos() - data.startNanos))
+                                .put("name", event.name())
+                                .put("detail", event.detail());
+                    }
+                }
+            }
+            if (context.getError() != null) {
+                span.put("error", String.valueOf(context.getError().getMessage()));
+            }
+            if (fileEnabled) {
+                try {
+                    spanLog.info(mapper.writeValueAsString(span));
+                } catch (JsonProcessingException e) {
+                    // uno span non serializzabile non deve interrompere la richiesta
+                }
+            }
+            List<ObjectNode> collected = data.root.collected;
+            synchronized (collected) {
+                if (data.root != data && collected.size() < MAX_COLLECTED) {
+                    collected.add(span);
+                }
+            }
+        }
+
+        @Override
+        public boolean supportsContext(Observation.Context context) {
+            return true;
+        }
+
+        // id JSON-RPC e tool impostati sul padre dopo l'avvio (es. dopo il parsing) valgono anche per i figli.
+        private void inherit(Observation.ContextView parent, SpanData data) {
+            for (String key : new String[] {ID, TOOL}) {
+                KeyValue value = parent.getHighCardinalityKeyValue(key);
+                if (value == null) {
+                    value = parent.getLowCardinalityKeyValue(key);
+                }
+                if (value != null) {
+                    data.inherited.put(key, value.getValue());
+                }
+            }
+        }
+    }
+}
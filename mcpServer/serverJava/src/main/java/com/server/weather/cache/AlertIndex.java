@@ -0,0 +1,178 @@
+package com.server.weather.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.server.weather.model.Alert;
+import com.server.weather.model.AlertSeverity;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+// Snapshot in memoria del feed nazionale delle allerte attive, indicizzato per stato e per zona UGC.
+// Ogni lista e' ordinata per severita' decrescente, quindi il filtro "severita' minima" e' un prefisso.
+// Lo snapshot e' immutabile e viene sostituito per intero a ogni aggiornamento: le letture non bloccano.
+@Component
+public class AlertIndex {
+
+    private static final Comparator<Alert> BY_SEVERITY = Comparator.comparing(alert -> AlertSeverity.of(alert.severity()));
+
+    public record Stats(boolean ready, int alerts, int states, int zones, Instant refreshedAt, Instant checkedAt,
+                        long refreshes, long notModified) {
+    }
+
+    // Variazione delle allerte di un'area tra due aggiornamenti, per identita' (id NWS).
+    public record AlertDiff(List<Alert> added, List<String> removed) {
+    }
+
+    private record Refresh(Snapshot previous, Snapshot current) {
+    }
+
+    private record Snapshot(int alerts, Map<String, List<Alert>> byState, Map<String, List<Alert>> byZone,
+                            Instant refreshedAt) {
+    }
+
+    private volatile Snapshot snapshot;
+    private volatile long checkedNanos;
+    private volatile Instant checkedAt;
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final Sinks.Many<Refresh> refreshed = Sinks.many().multicast().directBestEffort();
+
+    public void replace(List<Alert> alerts) {
+        List<Alert> sorted = new ArrayList<>(alerts);
+        sorted.sort(BY_SEVERITY);
+        Map<String, List<Alert>> byState = new HashMap<>();
+        Map<String, List<Alert>> byZone = new HashMap<>();
+        for (Alert alert : sorted) {
+            Set<String> states = new LinkedHashSet<>();
+            for (String zone : alert.zones()) {
+                byZone.computeIfAbsent(zone, key -> new ArrayList<>()).add(alert);
+                if (zone.length() > 2) {
+                    states.add(zone.substring(0, 2));
+                }
+            }
+            states.forEach(state -> byState.computeIfAbsent(state, key -> new ArrayList<>()).add(alert));
+        }
+        byState.replaceAll((state, list) -> List.copyOf(list));
+        byZone.replaceAll((zone, list) -> List.copyOf(list));
+        Instant now = Instant.now();
+        Snapshot previous = snapshot;
+        Snapshot current = new Snapshot(sorted.size(), Map.copyOf(byState), Map.copyOf(byZone), now);
+        snapshot = current;
+        markChecked(now);
+        refreshes.increment();
+        refreshed.tryEmitNext(new Refresh(previous, current));
+    }
+
+    // Un elemento per ogni aggiornamento che cambia le allerte dell'area; i 304 non producono nulla.
+    public Flux<AlertDiff> changes(String area) {
+        return refreshed.asFlux()
+                .map(refresh -> diff(refresh.previous() == null ? List.of() : lookup(refresh.previous(), area),
+                        lookup(refresh.current(), area)))
+                .filter(diff -> !diff.added().isEmpty() || !diff.removed().isEmpty());
+    }
+
+    public List<String> states() {
+        Snapshot current = snapshot;
+        return current == null ? List.of() : current.byState().keySet().stream().sorted().toList();
+    }
+
+    // Risposta 304: lo snapshot corrente e' ancora valido.
+    public void confirm() {
+        if (snapshot != null) {
+            markChecked(Instant.now());
+            notModified.increment();
+        }
+    }
+
+    // Tempo dall'ultimo aggiornamento confermato, null se lo snapshot non e' mai stato caricato.
+    public Duration age() {
+        return snapshot == null ? null : Duration.ofNanos(System.nanoTime() - checkedNanos);
+    }
+
+    public boolean isFresh(Duration maxStaleness) {
+        return snapshot != null && System.nanoTime() - checkedNanos <= maxStaleness.toNanos();
+    }
+
+    // areas: codici stato (CA) o zona (CAZ006) gia' normalizzati. Un'allerta su piu' aree compare una volta.
+    public List<Alert> query(Collection<String> areas, AlertSeverity minimum) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        if (areas.size() == 1) {
+            return atLeast(lookup(current, areas.iterator().next()), minimum);
+        }
+        Set<Alert> merged = new LinkedHashSet<>();
+        for (String area : areas) {
+            merged.addAll(atLeast(lookup(current, area), minimum));
+        }
+        List<Alert> result = new ArrayList<>(merged);
+        result.sort(BY_SEVERITY);
+        return result;
+    }
+
+    public Stats stats() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return new Stats(false, 0, 0, 0, null, null, refreshes.sum(), notModified.sum());
+        }
+        return new Stats(true, current.alerts(), current.byState().size(), current.byZone().size(),
+                current.refreshedAt(), checkedAt, refreshes.sum(), notModified.sum());
+    }
+
+    private void markChecked(Instant now) {
+        checkedAt = now;
+        checkedNanos = System.nanoTime();
+    }
+
+    private static AlertDiff diff(List<Alert> before, List<Alert> after) {
+        Set<String> beforeIds = new HashSet<>();
+        before.forEach(alert -> beforeIds.add(identity(alert)));
+        Set<String> afterIds = new HashSet<>();
+        List<Alert> added = new ArrayList<>();
+        for (Alert alert : after) {
+            afterIds.add(identity(alert));
+            if (!beforeIds.contains(identity(alert))) {
+                added.add(alert);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String id : beforeIds) {
+            if (!afterIds.contains(id)) {
+                removed.add(id);
+            }
+        }
+        return new AlertDiff(added, removed);
+    }
+
+    private static String identity(Alert alert) {
+        return alert.id() != null ? alert.id() : alert.event() + "|" + alert.area();
+    }
+
+    private static List<Alert> lookup(Snapshot current, String area) {
+        Map<String, List<Alert>> index = area.length() == 2 ? current.byState() : current.byZone();
+        return index.getOrDefault(area, List.of());
+    }
+
+    private static List<Alert> atLeast(List<Alert> sorted, AlertSeverity minimum) {
+        int end = 0;
+        while (end < sorted.size() && AlertSeverity.of(sorted.get(end).severity()).atLeast(minimum)) {
+            end++;
+        }
+        return end == sorted.size() ? sorted : sorted.subList(0, end);
+    }
+}
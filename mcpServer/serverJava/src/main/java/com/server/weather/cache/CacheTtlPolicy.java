@@ -0,0 +1,73 @@
+package com.server.weather.cache;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.springframework.http.HttpHeaders;
+
+// Calcola la durata di validita' di una risposta dagli header HTTP (Cache-Control, Age, Expires, Date).
+public final class CacheTtlPolicy {
+
+    private CacheTtlPolicy() {
+    }
+
+    public static Duration ttl(HttpHeaders headers, Duration fallback, Duration maxTtl) {
+        Duration ttl = fromHeaders(headers);
+        if (ttl == null) {
+            ttl = fallback;
+        }
+        if (ttl.isNegative()) {
+            return Duration.ZERO;
+        }
+        return ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl;
+    }
+
+    private static Duration fromHeaders(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            long maxAge = -1;
+            long sharedMaxAge = -1;
+            for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                String token = directive.strip();
+                if (token.equals("no-store") || token.equals("no-cache")) {
+                    return Duration.ZERO;
+                }
+                if (token.startsWith("s-maxage=")) {
+                    sharedMaxAge = parseSeconds(token.substring("s-maxage=".length()));
+                } else if (token.startsWith("max-age=")) {
+                    maxAge = parseSeconds(token.substring("max-age=".length()));
+                }
+            }
+            long seconds = sharedMaxAge >= 0 ? sharedMaxAge : maxAge;
+            if (seconds >= 0) {
+                long age = parseSeconds(headers.getFirst(HttpHeaders.AGE));
+                return Duration.ofSeconds(seconds - Math.max(0, age));
+            }
+        }
+        long expires = headers.getExpires();
+        if (expires > 0) {
+            long reference = System.currentTimeMillis();
+            try {
+                long date = headers.getDate();
+                if (date > 0) {
+                    reference = date;
+                }
+            } catch (IllegalArgumentException invalidDate) {
+                // header Date malformato: si usa l'orologio locale
+            }
+            return Duration.ofMillis(expires - reference);
+        }
+        return null;
+    }
+
+    private static long parseSeconds(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.strip().replace("\"", ""));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
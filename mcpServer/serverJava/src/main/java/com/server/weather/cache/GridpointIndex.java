@@ -0,0 +1,237 @@
+package com.server.weather.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.server.weather.config.WeatherClientProperties;
+import com.server.weather.model.Gridpoint;
+
+// Indice coordinate -> gridpoint NWS. Le coordinate vengono quantizzate alla risoluzione configurata,
+// cosi' punti ripetuti o vicini evitano la chiamata /points. L'indice e' persistito in un file
+// binario append-only (header + record a dimensione fissa) mappato in memoria all'avvio.
+// La griglia in gradi non coincide con la griglia Lambert NWS (celle di 2.5 km): un punto riceve il
+// gridpoint di un altro punto della stessa cella, distante al massimo errorBoundKm (~1.6 km a 0.01).
+// Vicino al bordo di una cella NWS la risposta puo' quindi essere la cella adiacente, mai una piu' lontana.
+@Component
+public class GridpointIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(GridpointIndex.class);
+
+    private static final int MAGIC = 0x47504958; // "GPIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 20;
+    private static final int GRID_ID_BYTES = 4;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    public record Stats(long hits, long misses, double hitRatio, int size) {
+    }
+
+    private final boolean enabled;
+    private final double resolution;
+    private final String apiBase;
+    private final Path file;
+    private final Map<Long, Gridpoint> cells = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel appender;
+
+    public GridpointIndex(WeatherClientProperties properties) {
+        WeatherClientProperties.GridpointIndex config = properties.getGridpointIndex();
+        this.enabled = config.isEnabled();
+        this.resolution = config.getResolution();
+        this.apiBase = stripTrailingSlash(properties.getApiBase());
+        this.file = config.getFile() == null || config.getFile().isBlank() ? null : Path.of(config.getFile());
+        if (enabled && file != null) {
+            load();
+        }
+    }
+
+    public Gridpoint lookup(double latitude, double longitude) {
+        if (!enabled) {
+            return null;
+        }
+        Gridpoint gridpoint = cells.get(cellKey(latitude, longitude));
+        if (gridpoint != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return gridpoint;
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return enabled && cells.containsKey(cellKey(latitude, longitude));
+    }
+
+    public void record(double latitude, double longitude, Gridpoint gridpoint) {
+        if (!enabled) {
+            return;
+        }
+        long key = cellKey(latitude, longitude);
+        if (cells.putIfAbsent(key, gridpoint) == null && file != null && isPersistable(gridpoint)) {
+            append(key, gridpoint);
+        }
+    }
+
+    public Stats stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return new Stats(h, m, h + m == 0 ? 0.0 : (double) h / (h + m), cells.size());
+    }
+
+    // Distanza massima tra due punti con la stessa chiave: diagonale di una cella (un grado di longitudine
+    // non e' mai piu' lungo di uno di latitudine).
+    static double errorBoundKm(double resolution) {
+        return KM_PER_DEGREE * resolution * Math.sqrt(2);
+    }
+
+    long cellKey(double latitude, double longitude) {
+        int lat = (int) Math.round(latitude / resolution);
+        int lon = (int) Math.round(longitude / resolution);
+        return ((long) lat << 32) | (lon & 0xffffffffL);
+    }
+
+    // Il file e' condiviso tra processi (un server stdio per client): riparazione e append avvengono
+    // con il lock esclusivo del file, cosi' nessuno tronca o riscrive l'header mentre un altro scrive.
+    // Il file incompatibile si svuota invece di cancellarlo: chi lo tiene aperto continua a scriverci.
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            long valid = alignedSize(channel);
+            if (valid < 0) {
+                log.warn("Indice gridpoint {} incompatibile (formato o risoluzione): verra' ricostruito.", file);
+                channel.truncate(0);
+                return;
+            }
+            if (valid == 0) {
+                return;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, valid - HEADER_BYTES);
+            byte[] gridId = new byte[GRID_ID_BYTES];
+            while (mapped.remaining() >= RECORD_BYTES) {
+                long key = mapped.getLong();
+                mapped.get(gridId);
+                int gridX = mapped.getInt();
+                int gridY = mapped.getInt();
+                String office = decodeGridId(gridId);
+                cells.put(key, new Gridpoint(forecastUrl(office, gridX, gridY), office, gridX, gridY));
+            }
+            log.info("Indice gridpoint caricato da {}: {} celle (errore massimo {} km).", file, cells.size(),
+                    Math.round(errorBoundKm(resolution) * 100) / 100.0);
+        } catch (IOException ioError) {
+            log.warn("Impossibile leggere l'indice gridpoint {}", file, ioError);
+        }
+    }
+
+    private synchronized void append(long key, Gridpoint gridpoint) {
+        try {
+            if (appender == null) {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                appender = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+            byte[] gridId = gridpoint.gridId().getBytes(StandardCharsets.US_ASCII);
+            record.clear();
+            record.putLong(key);
+            for (int i = 0; i < GRID_ID_BYTES; i++) {
+                record.put(i < gridId.length ? gridId[i] : 0);
+            }
+            record.putInt(gridpoint.gridX()).putInt(gridpoint.gridY()).flip();
+            try (FileLock lock = appender.lock()) {
+                long valid = alignedSize(appender);
+                if (valid < 0) {
+                    // Ricostruito da un processo con un'altra risoluzione: le nostre celle non sono valide li'
+                    log.debug("Indice gridpoint {} con un'altra risoluzione: cella non persistita.", file);
+                    return;
+                }
+                if (valid == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    header.putInt(MAGIC).putInt(VERSION).putDouble(resolution).flip();
+                    writeFully(appender, header, 0);
+                    valid = HEADER_BYTES;
+                }
+                writeFully(appender, record, valid);
+            }
+        } catch (IOException ioError) {
+            log.warn("Impossibile aggiornare l'indice gridpoint {}", file, ioError);
+        }
+    }
+
+    // Da chiamare con il lock del file. Dimensione fino all'ultimo record completo, troncando il record
+    // finale incompleto (crash durante la scrittura); 0 se manca l'header, -1 se l'header non e' il nostro.
+    private long alignedSize(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            if (size > 0) {
+                channel.truncate(0);
+            }
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            channel.read(header, header.position());
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getDouble() != resolution) {
+            return -1;
+        }
+        long valid = HEADER_BYTES + (size - HEADER_BYTES) / RECORD_BYTES * RECORD_BYTES;
+        if (valid < size) {
+            log.warn("Indice gridpoint {}: record finale incompleto ({} byte) rimosso.", file, size - valid);
+            channel.truncate(valid);
+        }
+        return valid;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // Persistiamo solo i gridpoint il cui forecast URL e' ricostruibile da ufficio e coordinate di griglia.
+    private boolean isPersistable(Gridpoint gridpoint) {
+        return gridpoint.gridId() != null
+                && gridpoint.gridId().length() <= GRID_ID_BYTES
+                && gridpoint.gridX() != null
+                && gridpoint.gridY() != null
+                && forecastUrl(gridpoint.gridId(), gridpoint.gridX(), gridpoint.gridY()).equals(gridpoint.forecastUrl());
+    }
+
+    private String forecastUrl(String gridId, int gridX, int gridY) {
+        return apiBase + "/gridpoints/" + gridId + "/" + gridX + "," + gridY + "/forecast";
+    }
+
+    private static String decodeGridId(byte[] bytes) {
+        int length = 0;
+        while (length < bytes.length && bytes[length] != 0) {
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private static String stripTrailingSlash(String value) {
+        return value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+    }
+}
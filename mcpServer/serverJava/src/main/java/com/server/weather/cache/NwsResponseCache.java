@@ -0,0 +1,95 @@
+package com.server.weather.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+import com.server.weather.config.WeatherClientProperties;
+
+// Cache LRU delle risposte NWS gia' decodificate (Alert, ForecastPeriod, Gridpoint) indicizzata per URI. Le voci scadute restano in memoria
+// (finche' non vengono rimpiazzate o espulse) ma non vengono piu' servite come fresche.
+@Component
+public class NwsResponseCache {
+
+    public record Stats(long hits, long misses, long evictions, int size, int maxEntries) {
+    }
+
+    // age: tempo trascorso da quando il valore e' stato memorizzato.
+    public record StaleValue(Object value, Duration age) {
+    }
+
+    private record Entry(Object value, long storedAtNanos, long expiresAtNanos) {
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public NwsResponseCache(WeatherClientProperties properties) {
+        this.enabled = properties.getCache().isEnabled();
+        this.maxEntries = Math.max(1, properties.getCache().getMaxEntries());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Object getFresh(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.expiresAtNanos() - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.value();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Ultimo valore noto anche se scaduto, per servire dati vecchi quando NWS non risponde.
+    public StaleValue getStale(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry == null ? null : new StaleValue(entry.value(), Duration.ofNanos(System.nanoTime() - entry.storedAtNanos()));
+    }
+
+    public void put(String key, Object value, Duration ttl) {
+        if (!enabled || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Entry entry = new Entry(value, now, now + ttl.toNanos());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, maxEntries);
+    }
+}
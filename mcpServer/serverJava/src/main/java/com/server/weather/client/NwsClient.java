@@ -1,60 +1,162 @@
 package com.server.weather.client;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.DefaultUriBuilderFactory;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientRequestException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.mcp.McpTracing;
+import com.server.weather.cache.CacheTtlPolicy;
+import com.server.weather.cache.NwsResponseCache;
 import com.server.weather.config.WeatherClientProperties;
 import com.server.weather.exception.InvalidLocationException;
 import com.server.weather.exception.UpstreamServiceException;
+import com.server.weather.exception.WeatherServiceException;
 import com.server.weather.model.Alert;
+import com.server.weather.model.AlertFeed;
 import com.server.weather.model.ForecastPeriod;
 import com.server.weather.model.Gridpoint;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 @Component
 public class NwsClient {
 
+    private static final Logger log = LoggerFactory.getLogger(NwsClient.class);
+
     private final WebClient webClient;
     private final Duration timeout;
+    private final DefaultUriBuilderFactory uriFactory;
+    private final ObjectMapper mapper;
+    private final JsonFactory jsonFactory;
+    private final NwsResponseCache cache;
+    private final NwsRequestCoalescer coalescer;
+    private final WeatherClientProperties.Cache cacheProperties;
+    private final NwsResilience resilience;
+    private final boolean staleOnError;
+    private final MeterRegistry meterRegistry;
+    private final McpTracing tracing;
+    // Periodi richiesti per forecast URL dalle chiamate in attesa, letti quando parte la decodifica
+    private final Map<String, Integer> forecastDemand = new ConcurrentHashMap<>();
 
-    public NwsClient(WebClient.Builder builder, WeatherClientProperties properties) {
+    public NwsClient(WebClient.Builder builder, WeatherClientProperties properties, ObjectMapper mapper,
+                     NwsResponseCache cache, NwsRequestCoalescer coalescer, NwsResilience resilience,
+                     NwsHttpPool httpPool, MeterRegistry meterRegistry, McpTracing tracing) {
         this.timeout = properties.getTimeout();
+        this.uriFactory = new DefaultUriBuilderFactory(properties.getApiBase());
+        this.mapper = mapper;
+        this.jsonFactory = mapper.getFactory();
+        this.cache = cache;
+        this.coalescer = coalescer;
+        this.cacheProperties = properties.getCache();
+        this.resilience = resilience;
+        this.staleOnError = properties.getResilience().isStaleOnError();
+        this.meterRegistry = meterRegistry;
+        this.tracing = tracing;
         this.webClient = builder
+                .clientConnector(new ReactorClientHttpConnector(httpPool.httpClient()))
+                .filter(httpPool.acquireTimer())
                 .baseUrl(properties.getApiBase())
                 .defaultHeader(HttpHeaders.USER_AGENT, properties.getUserAgent())
                 .defaultHeader(HttpHeaders.ACCEPT, "application/geo+json")
                 .build();
     }
 
-    public List<Alert> fetchAlerts(String state) {
-        JsonNode data = getJson(webClient.get().uri("/alerts/active/area/{state}", state));
-        List<Alert> alerts = new ArrayList<>();
-        JsonNode features = data.path("features");
-        if (features.isArray()) {
-            for (JsonNode feature : features) {
-                JsonNode props = feature.path("properties");
-                alerts.add(new Alert(
-                        props.path("event").asText("Unknown"),
-                        props.path("areaDesc").asText("Unknown"),
-                        props.path("severity").asText("Unknown"),
-                        props.path("description").asText("No description available"),
-                        props.path("instruction").asText("No specific instructions provided")));
-            }
+    public Mono<List<Alert>> fetchAlerts(String state) {
+        return fetchAlerts(uriFactory.expand("/alerts/active/area/{state}", state));
+    }
+
+    public Mono<List<Alert>> fetchZoneAlerts(String zone) {
+        return fetchAlerts(uriFactory.expand("/alerts/active/zone/{zone}", zone));
+    }
+
+    private Mono<List<Alert>> fetchAlerts(URI uri) {
+        String key = uri.toString();
+        if (cache.getFresh(key) instanceof AlertList cached) {
+            return Mono.just(cached.alerts());
         }
-        return alerts;
+        return fetch(NwsEndpoint.ALERTS, uri, key, body -> NwsStreamDecoder.alerts(jsonFactory, body)
+                .collectList()
+                .map(alerts -> new AlertList(List.copyOf(alerts))))
+                .map(AlertList::alerts);
     }
 
-    public Gridpoint resolveGridpoint(double latitude, double longitude) {
-        JsonNode data = getJson(webClient.get().uri("/points/{lat},{lon}", latitude, longitude));
-        JsonNode props = data.path("properties");
+    // Feed nazionale per il poller: richiesta condizionale con i validatori dell'ultimo 200.
+    // Su 304 il Mono e' vuoto e il body (assente) non viene decodificato. Non passa da cache e
+    // coalescing: c'e' un solo chiamante e la freschezza la decide il poller.
+    public Mono<AlertFeed> fetchActiveAlerts(String etag, String lastModified) {
+        return timed("alerts_active", status -> webClient.get().uri(uriFactory.expand("/alerts/active"))
+                .headers(headers -> {
+                    if (etag != null) {
+                        headers.setIfNoneMatch(etag);
+                    }
+                    if (lastModified != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                    }
+                })
+                .retrieve()
+                .toEntityFlux(DataBuffer.class)
+                .doOnNext(response -> status.set(String.valueOf(response.getStatusCode().value())))
+                .flatMap(response -> {
+                    if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        return response.getBody().doOnNext(DataBufferUtils::release).then(Mono.<AlertFeed>empty());
+                    }
+                    HttpHeaders headers = response.getHeaders();
+                    return NwsStreamDecoder.alerts(jsonFactory, response.getBody())
+                            .collectList()
+                            .map(alerts -> new AlertFeed(List.copyOf(alerts), headers.getETag(),
+                                    headers.getFirst(HttpHeaders.LAST_MODIFIED)));
+                }))
+                .timeout(timeout)
+                .onErrorMap(error -> !(error instanceof WeatherServiceException), this::translateError);
+    }
+
+    public Mono<Gridpoint> resolveGridpoint(double latitude, double longitude) {
+        URI uri = uriFactory.expand("/points/{lat},{lon}", latitude, longitude);
+        String key = uri.toString();
+        if (cache.getFresh(key) instanceof Gridpoint cached) {
+            return Mono.just(cached);
+        }
+        return fetch(NwsEndpoint.POINTS, uri, key, body -> DataBufferUtils.join(body)
+                .map(this::parseGridpoint));
+    }
+
+    // La risposta /points e' piccola e serve quasi per intero: resta un albero JsonNode.
+    private Gridpoint parseGridpoint(DataBuffer buffer) {
+        JsonNode props;
+        try (InputStream in = buffer.asInputStream(true)) {
+            props = mapper.readTree(in).path("properties");
+        } catch (IOException parseError) {
+            throw new UpstreamServiceException("Risposta NWS non valida.", parseError);
+        }
         JsonNode forecastNode = props.path("forecast");
         if (forecastNode.isMissingNode() || forecastNode.isNull()) {
             throw new InvalidLocationException("Coordinate valide ma NWS non ha restituito il forecast URL.");
@@ -66,43 +168,152 @@ public class NwsClient {
                 props.path("gridY").isInt() ? props.get("gridY").asInt() : null);
     }
 
-    public List<ForecastPeriod> fetchForecast(String forecastUrl) {
-        JsonNode data = getJson(webClient.get().uri(URI.create(forecastUrl)));
-        List<ForecastPeriod> periods = new ArrayList<>();
-        JsonNode periodNodes = data.path("properties").path("periods");
-        if (periodNodes.isArray()) {
-            for (JsonNode node : periodNodes) {
-                periods.add(new ForecastPeriod(
-                        node.path("name").asText("Unknown period"),
-                        node.has("temperature")
-                                ? node.path("temperature").asInt() + "°" + node.path("temperatureUnit").asText("")
-                                : "?",
-                        (node.path("windSpeed").asText("?") + " " + node.path("windDirection").asText("")).trim(),
-                        node.path("detailedForecast").asText("Nessuna descrizione disponibile.")));
-            }
+    // Il decoder si ferma dopo `periods` periodi. Coalescing e cache usano la stessa chiave (la URI): la
+    // richiesta condivisa decodifica il massimo chiesto da chi e' in attesa e mai meno del prefisso gia'
+    // in cache, cosi' un refresh non accorcia il forecast. Chi si e' unito a decodifica gia' iniziata con un
+    // limite piu' basso ripete la richiesta una volta, che a quel punto decodifica anche la sua parte.
+    public Mono<List<ForecastPeriod>> fetchForecast(String forecastUrl, int periods) {
+        return fetchForecast(forecastUrl, periods, true);
+    }
+
+    private Mono<List<ForecastPeriod>> fetchForecast(String forecastUrl, int periods, boolean retry) {
+        URI uri = URI.create(forecastUrl);
+        String key = uri.toString();
+        if (cache.getFresh(key) instanceof ForecastPrefix cached && cached.covers(periods)) {
+            return Mono.just(cached.first(periods));
+        }
+        forecastDemand.merge(key, periods, Math::max);
+        return fetch(NwsEndpoint.FORECAST, uri, key, body -> {
+                    int limit = forecastLimit(key);
+                    return NwsStreamDecoder.forecastPeriods(jsonFactory, body, limit)
+                            .collectList()
+                            .map(decoded -> {
+                                forecastDemand.remove(key, limit);
+                                return new ForecastPrefix(List.copyOf(decoded), decoded.size() < limit);
+                            });
+                })
+                // Senza retry (o da un valore scaduto servito per errore) resta il prefisso disponibile
+                .flatMap(prefix -> prefix.covers(periods) || !retry
+                        ? Mono.just(prefix.first(periods))
+                        : fetchForecast(forecastUrl, periods, false));
+    }
+
+    private int forecastLimit(String key) {
+        int limit = forecastDemand.getOrDefault(key, 1);
+        NwsResponseCache.StaleValue previous = cache.getStale(key);
+        if (previous != null && previous.value() instanceof ForecastPrefix prefix && !prefix.complete()) {
+            limit = Math.max(limit, prefix.periods().size());
+        }
+        return limit;
+    }
+
+    private record AlertList(List<Alert> alerts) {
+    }
+
+    private record ForecastPrefix(List<ForecastPeriod> periods, boolean complete) {
+
+        boolean covers(int requested) {
+            return complete || periods.size() >= requested;
+        }
+
+        List<ForecastPeriod> first(int requested) {
+            return periods.size() > requested ? periods.subList(0, requested) : periods;
+        }
+    }
+
+    // Il fallback su valori scaduti sta fuori dal coalescing: il segnale StaleData e' nel Context di
+    // ciascun chiamante, non in quello di chi ha avviato la richiesta condivisa.
+    private <T> Mono<T> fetch(NwsEndpoint endpoint, URI uri, String flightKey,
+                              Function<Flux<DataBuffer>, Mono<T>> decoder) {
+        return coalescer.execute(flightKey, () -> resilience.execute(endpoint, () -> exchange(endpoint, uri, decoder)))
+                .onErrorMap(error -> !(error instanceof WeatherServiceException), this::translateError)
+                .onErrorResume(UpstreamServiceException.class, error -> staleOrError(endpoint, uri.toString(), error));
+    }
+
+    // Per costruzione a una URI corrisponde sempre lo stesso tipo decodificato.
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> staleOrError(NwsEndpoint endpoint, String key, UpstreamServiceException error) {
+        NwsResponseCache.StaleValue stale = staleOnError ? cache.getStale(key) : null;
+        if (stale == null) {
+            return Mono.error(error);
+        }
+        resilience.recordStale(endpoint);
+        log.warn("{} Servo {} dalla cache (eta' {}s).", error.getMessage(), key, stale.age().toSeconds());
+        return StaleData.mark((T) stale.value(), stale.age());
+    }
+
+    private WeatherServiceException translateError(Throwable error) {
+        if (error instanceof WebClientResponseException.NotFound notFound) {
+            return new InvalidLocationException("Risorsa non trovata su NWS.", notFound);
         }
-        return periods;
-    }
-
-    private JsonNode getJson(WebClient.RequestHeadersSpec<?> request) {
-        try {
-            JsonNode body = request.retrieve()
-                    .bodyToMono(JsonNode.class)
-                    .block(timeout);
-            if (body == null) {
-                throw new UpstreamServiceException("Risposta vuota da NWS.");
-            }
-            return body;
-        } catch (WebClientResponseException.NotFound notFound) {
-            throw new InvalidLocationException("Risorsa non trovata su NWS.", notFound);
-        } catch (WebClientResponseException httpError) {
-            throw new UpstreamServiceException(
+        if (error instanceof WebClientResponseException httpError) {
+            return new UpstreamServiceException(
                     "Errore HTTP %d verso NWS.".formatted(httpError.getStatusCode().value()),
                     httpError);
-        } catch (WebClientRequestException requestError) {
-            throw new UpstreamServiceException("Errore di rete verso NWS: " + requestError.getMessage(), requestError);
-        } catch (Exception generic) {
-            throw new UpstreamServiceException("Errore inatteso parlando con NWS.", generic);
         }
+        if (error instanceof WebClientRequestException requestError) {
+            return new UpstreamServiceException("Errore di rete verso NWS: " + requestError.getMessage(), requestError);
+        }
+        if (error instanceof TimeoutException) {
+            return new UpstreamServiceException("Timeout verso NWS.", error);
+        }
+        return new UpstreamServiceException("Errore inatteso parlando con NWS.", error);
+    }
+
+    // Un singolo tentativo: timeout, retry e hedging li applica NwsResilience, che fa terminare comunque
+    // la richiesta condivisa. In cache va il valore decodificato, non il JSON.
+    private <T> Mono<T> exchange(NwsEndpoint endpoint, URI uri, Function<Flux<DataBuffer>, Mono<T>> decoder) {
+        return timed(endpoint.name().toLowerCase(Locale.ROOT), status -> webClient.get().uri(uri)
+                .retrieve()
+                .toEntityFlux(DataBuffer.class)
+                .doOnNext(response -> status.set(String.valueOf(response.getStatusCode().value())))
+                .flatMap(response -> decoder.apply(response.getBody())
+                        .switchIfEmpty(Mono.error(() -> new UpstreamServiceException("Risposta vuota da NWS.")))
+                        .doOnNext(value -> cache.put(uri.toString(), value, CacheTtlPolicy.ttl(response.getHeaders(),
+                                fallbackTtl(endpoint), cacheProperties.getMaxTtl())))));
+    }
+
+    // Latenza di un singolo tentativo verso NWS per endpoint e status HTTP. Senza risposta lo status
+    // e' IO_ERROR (rete) o CANCELLED (timeout di NwsResilience, hedge perdente, chiamante annullato).
+    // Con una traccia MCP attiva nel Context ogni tentativo e' anche uno span nws.http.
+    private <T> Mono<T> timed(String endpoint, Function<AtomicReference<String>, Mono<T>> request) {
+        return Mono.deferContextual(context -> {
+            AtomicReference<String> status = new AtomicReference<>();
+            Observation span = tracing.start("nws.http", McpTracing.parent(context))
+                    .lowCardinalityKeyValue("nws.endpoint", endpoint);
+            long start = System.nanoTime();
+            Mono<T> attempt = request.apply(status)
+                    .doOnError(error -> status.compareAndSet(null, errorStatus(error)))
+                    .doOnTerminate(() -> span.lowCardinalityKeyValue("http.status", outcome(status)))
+                    .doOnCancel(() -> span.lowCardinalityKeyValue("http.status", outcome(status)));
+            return McpTracing.stopOnSignal(attempt, span)
+                    .doFinally(signal -> Timer.builder("nws.client.requests")
+                            .description("Latenza delle chiamate HTTP verso NWS")
+                            .tag("endpoint", endpoint)
+                            .tag("status", outcome(status))
+                            .publishPercentileHistogram()
+                            .publishPercentiles(0.5, 0.95, 0.99)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static String outcome(AtomicReference<String> status) {
+        return status.get() != null ? status.get() : "CANCELLED";
+    }
+
+    private static String errorStatus(Throwable error) {
+        if (error instanceof WebClientResponseException httpError) {
+            return String.valueOf(httpError.getStatusCode().value());
+        }
+        return error instanceof WebClientRequestException ? "IO_ERROR" : "CLIENT_ERROR";
+    }
+
+    private Duration fallbackTtl(NwsEndpoint endpoint) {
+        return switch (endpoint) {
+            case POINTS -> cacheProperties.getPointsTtl();
+            case FORECAST -> cacheProperties.getForecastTtl();
+            case ALERTS -> cacheProperties.getAlertsTtl();
+        };
     }
 }
@@ -0,0 +1,7 @@
+package com.server.weather.client;
+
+public enum NwsEndpoint {
+    POINTS,
+    FORECAST,
+    ALERTS
+}
@@ -0,0 +1,240 @@
+package com.server.weather.client;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import com.server.weather.config.WeatherClientProperties;
+
+import io.netty.channel.ChannelOption;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.channel.ChannelMetricsRecorder;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+// Pool di connessioni Reactor Netty dedicato a NWS, condiviso da tutte le richieste del NwsClient.
+// Oltre alla configurazione del pool tiene le metriche di base: connessioni attive/inattive/in coda
+// per indirizzo remoto e i tempi di acquire (dalla sottoscrizione alla connessione pronta), connect,
+// handshake TLS e risoluzione DNS. All'avvio apre alcune connessioni verso api-base, cosi' le prime
+// richieste non pagano DNS + TCP + TLS.
+@Component
+public class NwsHttpPool implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(NwsHttpPool.class);
+    private static final String POOL_NAME = "nws";
+    private static final String ACQUIRE_START = NwsHttpPool.class.getName() + ".acquireStart";
+
+    public record PoolStats(String remote, int active, int idle, int allocated, int pending,
+                            int maxConnections, int maxPending) {
+    }
+
+    public record Timing(long count, double avgMillis, double maxMillis) {
+    }
+
+    public record Stats(List<String> protocols, boolean compression, List<PoolStats> pools,
+                        Timing acquire, Timing connect, Timing tlsHandshake, Timing dnsResolve,
+                        long prewarmedConnections) {
+    }
+
+    private final WeatherClientProperties.Http config;
+    private final String apiBase;
+    private final String userAgent;
+    private final ConnectionProvider provider;
+    private final HttpClient httpClient;
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final LatencyStats acquire = new LatencyStats();
+    private final LatencyStats connect = new LatencyStats();
+    private final LatencyStats tlsHandshake = new LatencyStats();
+    private final LatencyStats dnsResolve = new LatencyStats();
+    private final LongAdder prewarmed = new LongAdder();
+
+    public NwsHttpPool(WeatherClientProperties properties) {
+        this.config = properties.getHttp();
+        this.apiBase = properties.getApiBase();
+        this.userAgent = properties.getUserAgent();
+        this.provider = ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(Math.max(1, config.getMaxConnections()))
+                .pendingAcquireMaxCount(config.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(config.getPendingAcquireTimeout())
+                .maxIdleTime(config.getMaxIdleTime())
+                .maxLifeTime(config.getMaxLifeTime())
+                .evictInBackground(config.getEvictInBackground())
+                .metrics(config.isMetricsEnabled(), () -> new PoolRegistrar())
+                .build();
+
+        HttpClient client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(config.getConnectTimeout().toMillis()))
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .compress(config.isCompression())
+                .protocol(protocols())
+                .resolver(spec -> spec
+                        .cacheMinTimeToLive(config.getDnsCacheMinTtl())
+                        .cacheMaxTimeToLive(config.getDnsCacheMaxTtl())
+                        .cacheNegativeTimeToLive(config.getDnsCacheNegativeTtl()));
+        if (config.isMetricsEnabled()) {
+            ChannelRecorder recorder = new ChannelRecorder();
+            client = client
+                    .metrics(true, () -> recorder)
+                    .doOnRequest((request, connection) -> request.currentContextView()
+                            .<Long>getOrEmpty(ACQUIRE_START)
+                            .ifPresent(start -> acquire.record(System.nanoTime() - start)));
+        }
+        this.httpClient = client;
+    }
+
+    public HttpClient httpClient() {
+        return httpClient;
+    }
+
+    // Segna l'inizio dell'acquire nel Context della richiesta; doOnRequest chiude la misura quando la
+    // connessione (nuova o dal pool) e' pronta.
+    public ExchangeFilterFunction acquireTimer() {
+        return (request, next) -> next.exchange(request)
+                .contextWrite(context -> context.put(ACQUIRE_START, System.nanoTime()));
+    }
+
+    private HttpProtocol[] protocols() {
+        return config.isHttp2()
+                ? new HttpProtocol[] {HttpProtocol.H2, HttpProtocol.HTTP11}
+                : new HttpProtocol[] {HttpProtocol.HTTP11};
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void prewarm() {
+        int connections = config.getPrewarmConnections();
+        if (connections <= 0) {
+            return;
+        }
+        // warmup() carica event loop, resolver DNS e provider TLS; le GET concorrenti aprono le connessioni
+        // che poi restano nel pool. L'esito non conta: in caso di errore le richieste reali riprovano.
+        httpClient.warmup()
+                .thenMany(Flux.range(0, connections)
+                        .flatMap(i -> httpClient
+                                .headers(headers -> headers.set(HttpHeaders.USER_AGENT, userAgent))
+                                .get().uri(apiBase)
+                                .responseSingle((response, body) -> body.then())
+                                .doOnSuccess(ignored -> prewarmed.increment())
+                                .onErrorResume(error -> {
+                                    log.debug("Pre-warm connessione NWS fallito: {}", error.getMessage());
+                                    return Mono.empty();
+                                })))
+                .then()
+                .subscribe(null,
+                        error -> log.warn("Pre-warm connessioni NWS fallito: {}", error.getMessage()),
+                        () -> log.info("Pre-warm connessioni NWS completato: {}/{} connessioni verso {}.",
+                                prewarmed.sum(), connections, apiBase));
+    }
+
+    public Stats stats() {
+        List<PoolStats> remotes = new ArrayList<>();
+        pools.forEach((remote, metrics) -> remotes.add(new PoolStats(remote, metrics.acquiredSize(),
+                metrics.idleSize(), metrics.allocatedSize(), metrics.pendingAcquireSize(),
+                metrics.maxAllocatedSize(), metrics.maxPendingAcquireSize())));
+        List<String> protocolNames = new ArrayList<>();
+        for (HttpProtocol protocol : protocols()) {
+            protocolNames.add(protocol.name());
+        }
+        return new Stats(protocolNames, config.isCompression(), remotes, acquire.snapshot(), connect.snapshot(),
+                tlsHandshake.snapshot(), dnsResolve.snapshot(), prewarmed.sum());
+    }
+
+    // Somma su tutti i remote del pool, per i gauge di NwsMeterBinder.
+    int total(ToIntFunction<ConnectionPoolMetrics> metric) {
+        int total = 0;
+        for (ConnectionPoolMetrics pool : pools.values()) {
+            total += metric.applyAsInt(pool);
+        }
+        return total;
+    }
+
+    long prewarmedConnections() {
+        return prewarmed.sum();
+    }
+
+    @Override
+    public void destroy() {
+        provider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    private final class PoolRegistrar implements ConnectionProvider.MeterRegistrar {
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                    ConnectionPoolMetrics metrics) {
+            pools.put(remoteAddress.toString(), metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            pools.remove(remoteAddress.toString());
+        }
+    }
+
+    // Dei contatori a livello di canale servono solo i tempi di apertura della connessione.
+    private final class ChannelRecorder implements ChannelMetricsRecorder {
+
+        @Override
+        public void recordConnectTime(SocketAddress remoteAddress, Duration time, String status) {
+            connect.record(time.toNanos());
+        }
+
+        @Override
+        public void recordTlsHandshakeTime(SocketAddress remoteAddress, Duration time, String status) {
+            tlsHandshake.record(time.toNanos());
+        }
+
+        @Override
+        public void recordResolveAddressTime(SocketAddress remoteAddress, Duration time, String status) {
+            dnsResolve.record(time.toNanos());
+        }
+
+        @Override
+        public void recordDataReceived(SocketAddress remoteAddress, long bytes) {
+        }
+
+        @Override
+        public void recordDataSent(SocketAddress remoteAddress, long bytes) {
+        }
+
+        @Override
+        public void incrementErrorsCount(SocketAddress remoteAddress) {
+        }
+    }
+
+    private static final class LatencyStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        Timing snapshot() {
+            long n = count.sum();
+            return new Timing(n, n == 0 ? 0 : totalNanos.sum() / (n * 1e6), maxNanos.get() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.server.weather.client;
+
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+import org.springframework.stereotype.Component;
+
+import com.server.weather.cache.NwsResponseCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.netty.resources.ConnectionPoolMetrics;
+
+// Contatori di resilienza, pool HTTP, cache e coalescing come meter Micrometer: letti dalle stesse
+// strutture degli endpoint /stats, arrivano su /actuator/prometheus e, in modalita' stdio, su STDERR.
+@Component
+public class NwsMeterBinder implements MeterBinder {
+
+    private final NwsResilience resilience;
+    private final NwsHttpPool httpPool;
+    private final NwsResponseCache cache;
+    private final NwsRequestCoalescer coalescer;
+
+    public NwsMeterBinder(NwsResilience resilience, NwsHttpPool httpPool, NwsResponseCache cache,
+                          NwsRequestCoalescer coalescer) {
+        this.resilience = resilience;
+        this.httpPool = httpPool;
+        this.cache = cache;
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (NwsEndpoint endpoint : NwsEndpoint.values()) {
+            String tag = endpoint.name().toLowerCase(Locale.ROOT);
+            resilienceCounter(registry, "nws.resilience.calls", "Tentativi verso NWS", endpoint, tag,
+                    NwsResilience.EndpointStats::calls);
+            resilienceCounter(registry, "nws.resilience.failures", "Tentativi falliti", endpoint, tag,
+                    NwsResilience.EndpointStats::failures);
+            resilienceCounter(registry, "nws.resilience.short.circuited", "Chiamate rifiutate a circuito aperto",
+                    endpoint, tag, NwsResilience.EndpointStats::shortCircuited);
+            resilienceCounter(registry, "nws.resilience.retries", "Retry eseguiti", endpoint, tag,
+                    NwsResilience.EndpointStats::retries);
+            resilienceCounter(registry, "nws.resilience.hedges", "Richieste hedge avviate", endpoint, tag,
+                    NwsResilience.EndpointStats::hedges);
+            resilienceCounter(registry, "nws.resilience.stale.served", "Risposte servite dalla cache scaduta",
+                    endpoint, tag, NwsResilience.EndpointStats::staleServed);
+            Gauge.builder("nws.resilience.breaker.state", resilience, r -> breakerState(r.stats(endpoint).breaker()))
+                    .description("Stato del circuito: 0 chiuso, 1 aperto, 2 semiaperto")
+                    .tag("endpoint", tag)
+                    .register(registry);
+            Gauge.builder("nws.resilience.failure.rate", resilience, r -> r.stats(endpoint).failureRate())
+                    .description("Frazione di fallimenti nella finestra del circuito")
+                    .tag("endpoint", tag)
+                    .register(registry);
+        }
+        Gauge.builder("nws.resilience.retry.budget", resilience, NwsResilience::retryBudget)
+                .description("Token di retry disponibili")
+                .register(registry);
+
+        poolGauge(registry, "nws.http.pool.active", "Connessioni in uso", ConnectionPoolMetrics::acquiredSize);
+        poolGauge(registry, "nws.http.pool.idle", "Connessioni inattive nel pool", ConnectionPoolMetrics::idleSize);
+        poolGauge(registry, "nws.http.pool.allocated", "Connessioni aperte", ConnectionPoolMetrics::allocatedSize);
+        poolGauge(registry, "nws.http.pool.pending", "Richieste in attesa di una connessione",
+                ConnectionPoolMetrics::pendingAcquireSize);
+        FunctionCounter.builder("nws.http.pool.prewarmed", httpPool, NwsHttpPool::prewarmedConnections)
+                .description("Connessioni aperte dal pre-warm")
+                .register(registry);
+
+        cacheCounter(registry, "nws.cache.hits", "Letture servite dalla cache", NwsResponseCache.Stats::hits);
+        cacheCounter(registry, "nws.cache.misses", "Letture non servite dalla cache", NwsResponseCache.Stats::misses);
+        cacheCounter(registry, "nws.cache.evictions", "Voci rimosse per far posto", NwsResponseCache.Stats::evictions);
+        Gauge.builder("nws.cache.size", cache, c -> c.stats().size())
+                .description("Voci in cache")
+                .register(registry);
+
+        FunctionCounter.builder("nws.coalescer.upstream", coalescer, c -> c.stats().upstreamCalls())
+                .description("Richieste NWS avviate")
+                .register(registry);
+        FunctionCounter.builder("nws.coalescer.coalesced", coalescer, c -> c.stats().coalescedCalls())
+                .description("Chiamate unite a una richiesta gia' in corso")
+                .register(registry);
+        Gauge.builder("nws.coalescer.in.flight", coalescer, c -> c.stats().inFlight())
+                .description("Richieste condivise in corso")
+                .register(registry);
+    }
+
+    private void resilienceCounter(MeterRegistry registry, String name, String description, NwsEndpoint endpoint,
+                                   String tag, ToDoubleFunction<NwsResilience.EndpointStats> value) {
+        FunctionCounter.builder(name, resilience, r -> value.applyAsDouble(r.stats(endpoint)))
+                .description(description)
+                .tag("endpoint", tag)
+                .register(registry);
+    }
+
+    private void poolGauge(MeterRegistry registry, String name, String description,
+                           ToIntFunction<ConnectionPoolMetrics> metric) {
+        Gauge.builder(name, httpPool, pool -> pool.total(metric))
+                .description(description)
+                .register(registry);
+    }
+
+    private void cacheCounter(MeterRegistry registry, String name, String description,
+                              ToDoubleFunction<NwsResponseCache.Stats> value) {
+        FunctionCounter.builder(name, cache, c -> value.applyAsDouble(c.stats()))
+                .description(description)
+                .register(registry);
+    }
+
+    private static double breakerState(String breaker) {
+        return switch (breaker) {
+            case "OPEN" -> 1;
+            case "HALF_OPEN" -> 2;
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.server.weather.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+
+// Single-flight: chiamate concorrenti sulla stessa URI condividono un'unica richiesta verso NWS.
+// Il risultato (anche un errore, propagato a tutti) resta condiviso finche' la richiesta non termina.
+// Con conteggio dei riferimenti: quando l'ultimo in attesa rinuncia (notifications/cancelled, client
+// disconnesso) la richiesta verso NWS, con retry e hedging, viene annullata e la chiave liberata.
+@Component
+public class NwsRequestCoalescer {
+
+    public record Stats(long upstreamCalls, long coalescedCalls, int inFlight) {
+    }
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+
+    // Chiavi diverse per tipi diversi: il chiamante garantisce che a una chiave corrisponda sempre lo stesso T.
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String key, Supplier<Mono<T>> upstream) {
+        Mono<T> existing = (Mono<T>) inFlight.get(key);
+        if (existing != null) {
+            coalescedCalls.increment();
+            return existing;
+        }
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> shared = Mono.defer(upstream)
+                // Rimossa prima di notificare i waiter: chi arriva dopo il risultato fa una nuova richiesta
+                .doOnTerminate(() -> inFlight.remove(key, self.get()))
+                .doOnCancel(() -> inFlight.remove(key, self.get()))
+                .flux()
+                .replay(1)
+                .refCount(1)
+                .singleOrEmpty();
+        self.set(shared);
+        existing = (Mono<T>) inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalescedCalls.increment();
+            return existing;
+        }
+        upstreamCalls.increment();
+        return shared;
+    }
+
+    public Stats stats() {
+        return new Stats(upstreamCalls.sum(), coalescedCalls.sum(), inFlight.size());
+    }
+}
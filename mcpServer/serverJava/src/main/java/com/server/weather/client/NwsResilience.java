@@ -0,0 +1,332 @@
+package com.server.weather.client;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.server.weather.config.WeatherClientProperties;
+import com.server.weather.exception.CircuitOpenException;
+
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+// Politiche di resilienza attorno alle chiamate NWS, con stato separato per classe di endpoint:
+// circuit breaker a finestra di conteggio, timeout adattivo sul percentile delle latenze recenti,
+// retry con backoff e jitter limitati da un budget globale, richiesta hedged per la coda lenta.
+// Gli errori 4xx (tranne 429) sono risposte valide di NWS: non aprono il circuito e non si ritentano.
+@Component
+public class NwsResilience {
+
+    private static final Logger log = LoggerFactory.getLogger(NwsResilience.class);
+
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 8;
+
+    public record EndpointStats(String endpoint, String breaker, double failureRate, int windowCalls,
+                                long timeoutMillis, Long hedgeDelayMillis, Long p50Millis, Long p99Millis,
+                                long calls, long failures, long shortCircuited, long retries, long hedges,
+                                long staleServed) {
+    }
+
+    public record Stats(List<EndpointStats> endpoints, double retryBudget) {
+    }
+
+    private enum Breaker {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final WeatherClientProperties.Resilience config;
+    private final Duration maxTimeout;
+    private final Map<NwsEndpoint, EndpointState> states = new EnumMap<>(NwsEndpoint.class);
+    private double retryTokens;
+
+    public NwsResilience(WeatherClientProperties properties) {
+        this.config = properties.getResilience();
+        this.maxTimeout = properties.getTimeout();
+        this.retryTokens = config.getRetryBudgetBurst();
+        for (NwsEndpoint endpoint : NwsEndpoint.values()) {
+            states.put(endpoint, new EndpointState(endpoint));
+        }
+    }
+
+    public <T> Mono<T> execute(NwsEndpoint endpoint, Supplier<Mono<T>> call) {
+        if (!config.isEnabled()) {
+            return Mono.defer(call).timeout(maxTimeout);
+        }
+        EndpointState state = states.get(endpoint);
+        return Mono.defer(() -> {
+            depositRetryToken();
+            return Mono.defer(() -> attempt(state, call)).retryWhen(state.retry);
+        });
+    }
+
+    public void recordStale(NwsEndpoint endpoint) {
+        states.get(endpoint).staleServed.increment();
+    }
+
+    public Stats stats() {
+        return new Stats(states.values().stream().map(EndpointState::stats).toList(), retryBudget());
+    }
+
+    public EndpointStats stats(NwsEndpoint endpoint) {
+        return states.get(endpoint).stats();
+    }
+
+    public synchronized double retryBudget() {
+        return retryTokens;
+    }
+
+    private <T> Mono<T> attempt(EndpointState state, Supplier<Mono<T>> call) {
+        long retryAfterNanos = state.tryAcquire();
+        if (retryAfterNanos > 0) {
+            state.shortCircuited.increment();
+            return Mono.error(new CircuitOpenException("Circuito aperto verso NWS (%s): nuovo tentativo tra %ds."
+                    .formatted(state.endpoint.name().toLowerCase(Locale.ROOT), Math.max(1, Duration.ofNanos(retryAfterNanos).toSeconds()))));
+        }
+        state.calls.increment();
+        Duration timeout = state.timeout();
+        Mono<T> work = timed(state, call);
+        Duration hedgeDelay = state.hedgeDelay();
+        if (hedgeDelay != null && hedgeDelay.compareTo(timeout) < 0) {
+            // La copia parte solo se la prima non ha ancora risposto e c'e' budget; un suo errore
+            // viene ignorato, decide la richiesta originale.
+            Mono<T> hedge = Mono.delay(hedgeDelay).flatMap(tick -> {
+                if (!tryAcquireRetryToken()) {
+                    return Mono.<T>never();
+                }
+                state.hedges.increment();
+                return timed(state, call).onErrorResume(error -> Mono.never());
+            });
+            work = Mono.firstWithSignal(work, hedge);
+        }
+        return work.timeout(timeout)
+                .doOnSuccess(value -> state.onOutcome(false))
+                .doOnError(error -> {
+                    // un timeout entra tra i campioni come latenza "almeno pari al timeout": se NWS rallenta
+                    // stabilmente il timeout adattivo cresce invece di scadere sempre
+                    if (error instanceof TimeoutException) {
+                        state.recordLatency(timeout.toNanos());
+                    }
+                    state.onOutcome(countsAsFailure(error));
+                })
+                .doOnCancel(state::onCancel);
+    }
+
+    private static <T> Mono<T> timed(EndpointState state, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get().doOnSuccess(value -> state.recordLatency(System.nanoTime() - start));
+        });
+    }
+
+    private static boolean countsAsFailure(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    private static boolean retryable(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return error instanceof TimeoutException || error instanceof WebClientRequestException;
+    }
+
+    private synchronized void depositRetryToken() {
+        retryTokens = Math.min(config.getRetryBudgetBurst(), retryTokens + config.getRetryBudgetRatio());
+    }
+
+    private synchronized boolean tryAcquireRetryToken() {
+        if (retryTokens < 1) {
+            return false;
+        }
+        retryTokens -= 1;
+        return true;
+    }
+
+    private final class EndpointState {
+
+        final NwsEndpoint endpoint;
+        final Retry retry;
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder shortCircuited = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder hedges = new LongAdder();
+        final LongAdder staleServed = new LongAdder();
+
+        private final boolean[] window = new boolean[Math.max(1, config.getBreakerWindow())];
+        private int windowPosition;
+        private int windowCalls;
+        private int windowFailures;
+        private Breaker breaker = Breaker.CLOSED;
+        private long openedAtNanos;
+        private boolean probeInFlight;
+
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private int latencyPosition;
+        private int latencyCount;
+        private int sinceRecompute;
+        private volatile long timeoutNanos = maxTimeout.toNanos();
+        private volatile long hedgeDelayNanos = -1;
+        private volatile long p50Nanos = -1;
+        private volatile long p99Nanos = -1;
+
+        EndpointState(NwsEndpoint endpoint) {
+            this.endpoint = endpoint;
+            this.retry = Retry.backoff(Math.max(0, config.getMaxRetries()), config.getRetryBackoff())
+                    .maxBackoff(config.getRetryMaxBackoff())
+                    .jitter(0.5)
+                    .filter(error -> retryable(error) && tryAcquireRetryToken())
+                    .doBeforeRetry(signal -> retries.increment())
+                    .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        }
+
+        Duration timeout() {
+            return Duration.ofNanos(timeoutNanos);
+        }
+
+        Duration hedgeDelay() {
+            long delay = hedgeDelayNanos;
+            return delay < 0 ? null : Duration.ofNanos(delay);
+        }
+
+        // 0 se la chiamata puo' partire, altrimenti i nanosecondi che mancano alla prossima prova.
+        synchronized long tryAcquire() {
+            long openNanos = config.getBreakerOpenDuration().toNanos();
+            switch (breaker) {
+                case OPEN -> {
+                    long elapsed = System.nanoTime() - openedAtNanos;
+                    if (elapsed < openNanos) {
+                        return openNanos - elapsed;
+                    }
+                    breaker = Breaker.HALF_OPEN;
+                    probeInFlight = true;
+                    return 0;
+                }
+                case HALF_OPEN -> {
+                    if (probeInFlight) {
+                        return openNanos;
+                    }
+                    probeInFlight = true;
+                    return 0;
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+
+        synchronized void onOutcome(boolean failure) {
+            if (failure) {
+                failures.increment();
+            }
+            if (breaker == Breaker.HALF_OPEN) {
+                probeInFlight = false;
+                if (failure) {
+                    open();
+                } else {
+                    breaker = Breaker.CLOSED;
+                    resetWindow();
+                    log.info("Circuito NWS {} richiuso.", endpoint.name().toLowerCase(Locale.ROOT));
+                }
+                return;
+            }
+            if (breaker == Breaker.OPEN) {
+                return;
+            }
+            if (windowCalls == window.length && window[windowPosition]) {
+                windowFailures--;
+            }
+            window[windowPosition] = failure;
+            windowPosition = (windowPosition + 1) % window.length;
+            windowCalls = Math.min(window.length, windowCalls + 1);
+            if (failure) {
+                windowFailures++;
+            }
+            if (windowCalls >= config.getBreakerMinimumCalls()
+                    && (double) windowFailures / windowCalls >= config.getBreakerFailureRate()) {
+                open();
+            }
+        }
+
+        synchronized void onCancel() {
+            if (breaker == Breaker.HALF_OPEN) {
+                probeInFlight = false;
+            }
+        }
+
+        synchronized void recordLatency(long nanos) {
+            latencies[latencyPosition] = nanos;
+            latencyPosition = (latencyPosition + 1) % latencies.length;
+            latencyCount = Math.min(latencies.length, latencyCount + 1);
+            if (++sinceRecompute >= RECOMPUTE_EVERY || latencyCount == MIN_LATENCY_SAMPLES) {
+                sinceRecompute = 0;
+                recompute();
+            }
+        }
+
+        private void recompute() {
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            p50Nanos = percentile(sorted, 0.5);
+            p99Nanos = percentile(sorted, 0.99);
+            if (latencyCount < MIN_LATENCY_SAMPLES) {
+                return;
+            }
+            long max = maxTimeout.toNanos();
+            if (config.isAdaptiveTimeout()) {
+                long adaptive = (long) (percentile(sorted, config.getTimeoutPercentile()) * config.getTimeoutMultiplier());
+                timeoutNanos = Math.min(max, Math.max(config.getMinTimeout().toNanos(), adaptive));
+            }
+            if (config.isHedgeEnabled()) {
+                hedgeDelayNanos = Math.max(config.getHedgeMinDelay().toNanos(), percentile(sorted, config.getHedgePercentile()));
+            }
+        }
+
+        private void open() {
+            breaker = Breaker.OPEN;
+            openedAtNanos = System.nanoTime();
+            resetWindow();
+            log.warn("Circuito NWS {} aperto per {}.", endpoint.name().toLowerCase(Locale.ROOT), config.getBreakerOpenDuration());
+        }
+
+        private void resetWindow() {
+            Arrays.fill(window, false);
+            windowPosition = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+        }
+
+        synchronized EndpointStats stats() {
+            return new EndpointStats(endpoint.name().toLowerCase(Locale.ROOT), breaker.name(),
+                    windowCalls == 0 ? 0 : (double) windowFailures / windowCalls, windowCalls,
+                    Duration.ofNanos(timeoutNanos).toMillis(),
+                    hedgeDelayNanos < 0 ? null : Duration.ofNanos(hedgeDelayNanos).toMillis(),
+                    p50Nanos < 0 ? null : Duration.ofNanos(p50Nanos).toMillis(),
+                    p99Nanos < 0 ? null : Duration.ofNanos(p99Nanos).toMillis(),
+                    calls.sum(), failures.sum(), shortCircuited.sum(), retries.sum(), hedges.sum(), staleServed.sum());
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
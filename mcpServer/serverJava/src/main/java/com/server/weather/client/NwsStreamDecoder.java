@@ -0,0 +1,244 @@
+package com.server.weather.client;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.server.weather.exception.UpstreamServiceException;
+import com.server.weather.model.Alert;
+import com.server.weather.model.ForecastPeriod;
+
+import reactor.core.publisher.Flux;
+
+// Decodifica in streaming dei GeoJSON NWS: i DataBuffer di WebClient alimentano il parser non bloccante
+// di Jackson e ogni elemento viene emesso appena chiuso. Dei singoli elementi si tengono solo i campi
+// richiesti; geometry e le altre proprieta' vengono scorse a livello di token, senza costruire nodi.
+final class NwsStreamDecoder<T> {
+
+    private static final NwsStreamDecoder<Alert> ALERTS = new NwsStreamDecoder<>(
+            "features/[]",
+            "features/[]/properties",
+            Set.of("id", "event", "areaDesc", "severity", "description", "instruction"),
+            Set.of("geocode/UGC"),
+            fields -> new Alert(
+                    fields.getOrDefault("event", "Unknown"),
+                    fields.getOrDefault("areaDesc", "Unknown"),
+                    fields.getOrDefault("severity", "Unknown"),
+                    fields.getOrDefault("description", "No description available"),
+                    fields.getOrDefault("instruction", "No specific instructions provided"),
+                    fields.get("id"),
+                    fields.containsKey("geocode/UGC")
+                            ? List.of(fields.get("geocode/UGC").split(" "))
+                            : List.of()));
+
+    private static final NwsStreamDecoder<ForecastPeriod> FORECAST_PERIODS = new NwsStreamDecoder<>(
+            "properties/periods/[]",
+            "properties/periods/[]",
+            Set.of("name", "temperature", "temperatureUnit", "windSpeed", "windDirection", "detailedForecast"),
+            Set.of(),
+            fields -> new ForecastPeriod(
+                    fields.getOrDefault("name", "Unknown period"),
+                    fields.containsKey("temperature")
+                            ? fields.get("temperature") + "°" + fields.getOrDefault("temperatureUnit", "")
+                            : "?",
+                    (fields.getOrDefault("windSpeed", "?") + " " + fields.getOrDefault("windDirection", "")).trim(),
+                    fields.getOrDefault("detailedForecast", "Nessuna descrizione disponibile.")));
+
+    private final String itemPath;
+    private final String fieldsPath;
+    private final Set<String> fields;
+    private final Map<String, String> lists;
+    private final Function<Map<String, String>, T> factory;
+
+    // lists: array di stringhe sotto fieldsPath (percorso relativo), raccolti in un unico valore
+    // separato da spazi con il percorso relativo come chiave.
+    private NwsStreamDecoder(String itemPath, String fieldsPath, Set<String> fields, Set<String> lists,
+                             Function<Map<String, String>, T> factory) {
+        this.itemPath = itemPath;
+        this.fieldsPath = fieldsPath;
+        this.fields = fields;
+        this.lists = new HashMap<>();
+        lists.forEach(list -> this.lists.put(fieldsPath + "/" + list, list));
+        this.factory = factory;
+    }
+
+    static Flux<Alert> alerts(JsonFactory jsonFactory, Flux<DataBuffer> body) {
+        return ALERTS.decode(jsonFactory, body, Integer.MAX_VALUE);
+    }
+
+    // Raggiunto il limite il parsing si ferma; i byte restanti vengono solo rilasciati,
+    // cosi' la connessione torna comunque nel pool.
+    static Flux<ForecastPeriod> forecastPeriods(JsonFactory jsonFactory, Flux<DataBuffer> body, int limit) {
+        return FORECAST_PERIODS.decode(jsonFactory, body, limit);
+    }
+
+    Flux<T> decode(JsonFactory jsonFactory, Flux<DataBuffer> body, int limit) {
+        return Flux.defer(() -> {
+                    Session session = new Session(jsonFactory, limit);
+                    return body.concatMapIterable(session::feed)
+                            .concatWith(Flux.defer(() -> Flux.fromIterable(session.finish())))
+                            .doFinally(signal -> session.close());
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    }
+
+    private boolean leadsToFields(String path) {
+        if (fieldsPath.equals(path) || fieldsPath.startsWith(path + "/")) {
+            return true;
+        }
+        for (String list : lists.keySet()) {
+            if (list.equals(path) || list.startsWith(path + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class Session {
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final int limit;
+        private final Deque<String> containers = new ArrayDeque<>();
+        private Map<String, String> captured = new HashMap<>();
+        private int skipDepth;
+        private int emitted;
+        private boolean started;
+        private boolean done;
+
+        Session(JsonFactory jsonFactory, int limit) {
+            try {
+                this.parser = jsonFactory.createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw invalid(e);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            this.limit = limit;
+        }
+
+        List<T> feed(DataBuffer buffer) {
+            List<T> out = new ArrayList<>();
+            try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                while (!done && chunks.hasNext()) {
+                    feeder.feedInput(chunks.next());
+                    drain(out);
+                }
+            } catch (IOException e) {
+                throw invalid(e);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+            return out;
+        }
+
+        List<T> finish() {
+            List<T> out = new ArrayList<>();
+            if (!done) {
+                feeder.endOfInput();
+                try {
+                    drain(out);
+                } catch (IOException e) {
+                    throw invalid(e);
+                }
+                if (!started) {
+                    throw new UpstreamServiceException("Risposta vuota da NWS.");
+                }
+                if (!containers.isEmpty() || skipDepth > 0) {
+                    throw new UpstreamServiceException("Risposta NWS non valida: JSON troncato.");
+                }
+            }
+            return out;
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // niente da rilasciare oltre al parser
+            }
+        }
+
+        private void drain(List<T> out) throws IOException {
+            JsonToken token;
+            while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                started = true;
+                if (skipDepth > 0) {
+                    if (token.isStructStart()) {
+                        skipDepth++;
+                    } else if (token.isStructEnd()) {
+                        skipDepth--;
+                    }
+                    continue;
+                }
+                switch (token) {
+                    case START_OBJECT, START_ARRAY -> enter();
+                    case END_OBJECT, END_ARRAY -> leave(token, out);
+                    case FIELD_NAME, VALUE_NULL -> {
+                    }
+                    default -> capture();
+                }
+            }
+        }
+
+        private void enter() {
+            JsonStreamContext parent = parser.getParsingContext().getParent();
+            String path;
+            if (parent == null || parent.inRoot()) {
+                path = "";
+            } else {
+                String segment = parent.inArray() ? "[]" : parent.getCurrentName();
+                String outer = containers.peek();
+                path = outer == null || outer.isEmpty() ? segment : outer + "/" + segment;
+            }
+            if (!path.isEmpty() && !leadsToFields(path)) {
+                skipDepth = 1;
+                return;
+            }
+            containers.push(path);
+            if (path.equals(itemPath)) {
+                captured = new HashMap<>();
+            }
+        }
+
+        private void leave(JsonToken token, List<T> out) {
+            String path = containers.pop();
+            if (token == JsonToken.END_OBJECT && path.equals(itemPath)) {
+                out.add(factory.apply(captured));
+                if (++emitted >= limit) {
+                    done = true;
+                }
+            }
+        }
+
+        private void capture() throws IOException {
+            String container = containers.peek();
+            String name = parser.currentName();
+            if (name != null && fields.contains(name) && fieldsPath.equals(container)) {
+                captured.put(name, parser.getText());
+                return;
+            }
+            String list = lists.get(container);
+            if (list != null && parser.getParsingContext().inArray()) {
+                captured.merge(list, parser.getText(), (joined, value) -> joined + " " + value);
+            }
+        }
+
+        private UpstreamServiceException invalid(IOException cause) {
+            return new UpstreamServiceException("Risposta NWS non valida.", cause);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.server.weather.client;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import reactor.core.publisher.Mono;
+
+// Segnala a chi presenta i dati (tool MCP, controller REST) che NwsClient ha servito un valore scaduto
+// dalla cache perche' NWS non era raggiungibile. Il segnale viaggia nel Context Reactor, cosi' i tipi
+// restituiti da client e service restano quelli di sempre.
+public final class StaleData {
+
+    private static final Object KEY = StaleData.class;
+
+    // staleAge: eta' del valore scaduto piu' vecchio usato per il risultato, null se tutto era fresco.
+    public record Observed<T>(T value, Duration staleAge) {
+
+        public boolean stale() {
+            return staleAge != null;
+        }
+    }
+
+    private StaleData() {
+    }
+
+    public static <T> Mono<Observed<T>> observe(Mono<T> work) {
+        return Mono.defer(() -> {
+            AtomicReference<Duration> oldest = new AtomicReference<>();
+            return work.map(value -> new Observed<>(value, oldest.get()))
+                    .contextWrite(context -> context.put(KEY, oldest));
+        });
+    }
+
+    public static <T> Mono<T> mark(T value, Duration age) {
+        return Mono.deferContextual(context -> {
+            context.<AtomicReference<Duration>>getOrEmpty(KEY)
+                    .ifPresent(oldest -> oldest.accumulateAndGet(age,
+                            (current, candidate) -> current == null || candidate.compareTo(current) > 0 ? candidate : current));
+            return Mono.just(value);
+        });
+    }
+}
@@ -1,6 +1,9 @@
 package com.server.weather.config;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
@@ -12,6 +15,12 @@ public class WeatherClientProperties {
     private Duration timeout = Duration.ofSeconds(30);
     private int forecastPeriods = 5;
     private boolean mcpStdioEnabled = true;
+    private final Cache cache = new Cache();
+    private final GridpointIndex gridpointIndex = new GridpointIndex();
+    private final Batch batch = new Batch();
+    private final Alerts alerts = new Alerts();
+    private final Resilience resilience = new Resilience();
+    private final Http http = new Http();
 
     public String getApiBase() {
         return apiBase;
@@ -52,4 +61,497 @@ public class WeatherClientProperties {
     public void setMcpStdioEnabled(boolean mcpStdioEnabled) {
         this.mcpStdioEnabled = mcpStdioEnabled;
     }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public GridpointIndex getGridpointIndex() {
+        return gridpointIndex;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Alerts getAlerts() {
+        return alerts;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public static class Cache {
+
+        private boolean enabled = true;
+        private int maxEntries = 1000;
+        private Duration maxTtl = Duration.ofHours(6);
+        // Usati quando NWS non invia Cache-Control/Expires
+        private Duration pointsTtl = Duration.ofHours(6);
+        private Duration forecastTtl = Duration.ofMinutes(15);
+        private Duration alertsTtl = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getMaxTtl() {
+            return maxTtl;
+        }
+
+        public void setMaxTtl(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+
+        public Duration getPointsTtl() {
+            return pointsTtl;
+        }
+
+        public void setPointsTtl(Duration pointsTtl) {
+            this.pointsTtl = pointsTtl;
+        }
+
+        public Duration getForecastTtl() {
+            return forecastTtl;
+        }
+
+        public void setForecastTtl(Duration forecastTtl) {
+            this.forecastTtl = forecastTtl;
+        }
+
+        public Duration getAlertsTtl() {
+            return alertsTtl;
+        }
+
+        public void setAlertsTtl(Duration alertsTtl) {
+            this.alertsTtl = alertsTtl;
+        }
+    }
+
+    public static class GridpointIndex {
+
+        private boolean enabled = true;
+        private String file = Path.of(System.getProperty("java.io.tmpdir"), "demojava", "gridpoints.idx").toString();
+        // 0.01 gradi ~ 1.1 km, sotto la maglia di 2.5 km della griglia NWS
+        private double resolution = 0.01;
+        // Coordinate "lat:lon" risolte in background all'avvio
+        private List<String> prewarm = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public double getResolution() {
+            return resolution;
+        }
+
+        public void setResolution(double resolution) {
+            this.resolution = resolution;
+        }
+
+        public List<String> getPrewarm() {
+            return prewarm;
+        }
+
+        public void setPrewarm(List<String> prewarm) {
+            this.prewarm = prewarm;
+        }
+    }
+
+    public static class Batch {
+
+        private int maxPoints = 100;
+        // Punti elaborati in parallelo (ognuno fa al piu' /points + forecast)
+        private int concurrency = 8;
+
+        public int getMaxPoints() {
+            return maxPoints;
+        }
+
+        public void setMaxPoints(int maxPoints) {
+            this.maxPoints = maxPoints;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    public static class Alerts {
+
+        private boolean pollEnabled = true;
+        // NWS chiede di non interrogare il feed piu' spesso di ogni 30 secondi
+        private Duration pollInterval = Duration.ofSeconds(60);
+        // Oltre questa eta' lo snapshot non viene usato e get_alerts torna alle chiamate per stato
+        private Duration maxStaleness = Duration.ofMinutes(5);
+
+        public boolean isPollEnabled() {
+            return pollEnabled;
+        }
+
+        public void setPollEnabled(boolean pollEnabled) {
+            this.pollEnabled = pollEnabled;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getMaxStaleness() {
+            return maxStaleness;
+        }
+
+        public void setMaxStaleness(Duration maxStaleness) {
+            this.maxStaleness = maxStaleness;
+        }
+    }
+
+    public static class Resilience {
+
+        private boolean enabled = true;
+        // Circuit breaker per classe di endpoint (points/forecast/alerts): si apre quando la quota di
+        // fallimenti sulle ultime breaker-window chiamate supera la soglia, con almeno breaker-minimum-calls chiamate
+        private double breakerFailureRate = 0.5;
+        private int breakerWindow = 20;
+        private int breakerMinimumCalls = 10;
+        private Duration breakerOpenDuration = Duration.ofSeconds(30);
+        // Timeout per tentativo = percentile delle latenze recenti x moltiplicatore, tra min-timeout e weather.timeout
+        private boolean adaptiveTimeout = true;
+        private double timeoutPercentile = 0.99;
+        private double timeoutMultiplier = 2.0;
+        private Duration minTimeout = Duration.ofSeconds(2);
+        // Retry con backoff esponenziale e jitter, solo per errori transitori (rete, timeout, 5xx, 429)
+        private int maxRetries = 2;
+        private Duration retryBackoff = Duration.ofMillis(200);
+        private Duration retryMaxBackoff = Duration.ofSeconds(2);
+        // Budget globale: ogni richiesta aggiunge retry-budget-ratio gettoni (fino a retry-budget-burst);
+        // ogni retry o richiesta hedged ne consuma uno
+        private double retryBudgetRatio = 0.2;
+        private int retryBudgetBurst = 10;
+        // Richiesta duplicata se la prima non ha risposto entro il percentile indicato delle latenze recenti
+        private boolean hedgeEnabled = true;
+        private double hedgePercentile = 0.95;
+        private Duration hedgeMinDelay = Duration.ofMillis(250);
+        // Con NWS non raggiungibile (o circuito aperto) serve l'ultimo valore in cache, anche se scaduto
+        private boolean staleOnError = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getBreakerFailureRate() {
+            return breakerFailureRate;
+        }
+
+        public void setBreakerFailureRate(double breakerFailureRate) {
+            this.breakerFailureRate = breakerFailureRate;
+        }
+
+        public int getBreakerWindow() {
+            return breakerWindow;
+        }
+
+        public void setBreakerWindow(int breakerWindow) {
+            this.breakerWindow = breakerWindow;
+        }
+
+        public int getBreakerMinimumCalls() {
+            return breakerMinimumCalls;
+        }
+
+        public void setBreakerMinimumCalls(int breakerMinimumCalls) {
+            this.breakerMinimumCalls = breakerMinimumCalls;
+        }
+
+        public Duration getBreakerOpenDuration() {
+            return breakerOpenDuration;
+        }
+
+        public void setBreakerOpenDuration(Duration breakerOpenDuration) {
+            this.breakerOpenDuration = breakerOpenDuration;
+        }
+
+        public boolean isAdaptiveTimeout() {
+            return adaptiveTimeout;
+        }
+
+        public void setAdaptiveTimeout(boolean adaptiveTimeout) {
+            this.adaptiveTimeout = adaptiveTimeout;
+        }
+
+        public double getTimeoutPercentile() {
+            return timeoutPercentile;
+        }
+
+        public void setTimeoutPercentile(double timeoutPercentile) {
+            this.timeoutPercentile = timeoutPercentile;
+        }
+
+        public double getTimeoutMultiplier() {
+            return timeoutMultiplier;
+        }
+
+        public void setTimeoutMultiplier(double timeoutMultiplier) {
+            this.timeoutMultiplier = timeoutMultiplier;
+        }
+
+        public Duration getMinTimeout() {
+            return minTimeout;
+        }
+
+        public void setMinTimeout(Duration minTimeout) {
+            this.minTimeout = minTimeout;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Duration getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Duration retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public Duration getRetryMaxBackoff() {
+            return retryMaxBackoff;
+        }
+
+        public void setRetryMaxBackoff(Duration retryMaxBackoff) {
+            this.retryMaxBackoff = retryMaxBackoff;
+        }
+
+        public double getRetryBudgetRatio() {
+            return retryBudgetRatio;
+        }
+
+        public void setRetryBudgetRatio(double retryBudgetRatio) {
+            this.retryBudgetRatio = retryBudgetRatio;
+        }
+
+        public int getRetryBudgetBurst() {
+            return retryBudgetBurst;
+        }
+
+        public void setRetryBudgetBurst(int retryBudgetBurst) {
+            this.retryBudgetBurst = retryBudgetBurst;
+        }
+
+        public boolean isHedgeEnabled() {
+            return hedgeEnabled;
+        }
+
+        public void setHedgeEnabled(boolean hedgeEnabled) {
+            this.hedgeEnabled = hedgeEnabled;
+        }
+
+        public double getHedgePercentile() {
+            return hedgePercentile;
+        }
+
+        public void setHedgePercentile(double hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+        }
+
+        public Duration getHedgeMinDelay() {
+            return hedgeMinDelay;
+        }
+
+        public void setHedgeMinDelay(Duration hedgeMinDelay) {
+            this.hedgeMinDelay = hedgeMinDelay;
+        }
+
+        public boolean isStaleOnError() {
+            return staleOnError;
+        }
+
+        public void setStaleOnError(boolean staleOnError) {
+            this.staleOnError = staleOnError;
+        }
+    }
+
+    public static class Http {
+
+        // Pool di connessioni condiviso verso NWS: oltre max-connections le richieste attendono in coda
+        // (al massimo pending-acquire-max-count, per non piu' di pending-acquire-timeout)
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        // Le connessioni inattive vengono chiuse prima che lo faccia il server; il controllo gira in background
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        // HTTP/2 negoziato via ALPN sulle connessioni https, con HTTP/1.1 come ripiego
+        private boolean http2 = true;
+        // Accept-Encoding gzip/deflate (br solo se brotli4j e' nel classpath)
+        private boolean compression = true;
+        // Limiti al TTL dei record DNS in cache nel resolver di Netty
+        private Duration dnsCacheMinTtl = Duration.ofSeconds(10);
+        private Duration dnsCacheMaxTtl = Duration.ofMinutes(5);
+        private Duration dnsCacheNegativeTtl = Duration.ofSeconds(5);
+        // Connessioni (DNS + TCP + TLS) aperte verso api-base all'avvio; 0 disabilita il pre-warm
+        private int prewarmConnections = 2;
+        // Gauge del pool e tempi di acquire/connect/handshake esposti su /api/weather/pool/stats
+        private boolean metricsEnabled = true;
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public Duration getPendingAcquireTimeout() {
+            return pendingAcquireTimeout;
+        }
+
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+
+        public Duration getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        public void setMaxIdleTime(Duration maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public Duration getMaxLifeTime() {
+            return maxLifeTime;
+        }
+
+        public void setMaxLifeTime(Duration maxLifeTime) {
+            this.maxLifeTime = maxLifeTime;
+        }
+
+        public Duration getEvictInBackground() {
+            return evictInBackground;
+        }
+
+        public void setEvictInBackground(Duration evictInBackground) {
+            this.evictInBackground = evictInBackground;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+
+        public boolean isCompression() {
+            return compression;
+        }
+
+        public void setCompression(boolean compression) {
+            this.compression = compression;
+        }
+
+        public Duration getDnsCacheMinTtl() {
+            return dnsCacheMinTtl;
+        }
+
+        public void setDnsCacheMinTtl(Duration dnsCacheMinTtl) {
+            this.dnsCacheMinTtl = dnsCacheMinTtl;
+        }
+
+        public Duration getDnsCacheMaxTtl() {
+            return dnsCacheMaxTtl;
+        }
+
+        public void setDnsCacheMaxTtl(Duration dnsCacheMaxTtl) {
+            this.dnsCacheMaxTtl = dnsCacheMaxTtl;
+        }
+
+        public Duration getDnsCacheNegativeTtl() {
+            return dnsCacheNegativeTtl;
+        }
+
+        public void setDnsCacheNegativeTtl(Duration dnsCacheNegativeTtl) {
+            this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
+        }
+
+        public int getPrewarmConnections() {
+            return prewarmConnections;
+        }
+
+        public void setPrewarmConnections(int prewarmConnections) {
+            this.prewarmConnections = prewarmConnections;
+        }
+
+        public boolean isMetricsEnabled() {
+            return metricsEnabled;
+        }
+
+        public void setMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+        }
+    }
 }
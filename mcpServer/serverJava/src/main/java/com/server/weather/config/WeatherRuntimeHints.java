@@ -0,0 +1,31 @@
+package com.server.weather.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.server.weather.cache.AlertIndex;
+import com.server.weather.model.Alert;
+import com.server.weather.model.AlertFeed;
+import com.server.weather.model.Coordinates;
+import com.server.weather.model.ForecastBatch;
+import com.server.weather.model.ForecastBatchItem;
+import com.server.weather.model.ForecastBatchRequest;
+import com.server.weather.model.ForecastBundle;
+import com.server.weather.model.ForecastPeriod;
+import com.server.weather.model.Gridpoint;
+
+// Hint per l'immagine nativa: i record del modello escono come JSON (risorse MCP, notifiche di
+// aggiornamento, endpoint REST) e Jackson li legge via reflection. Le risposte NWS invece non
+// passano da data binding (NwsStreamDecoder, alberi JsonNode); WebClient e Reactor Netty sono
+// coperti dagli hint di Spring e dai metadata di reachability.
+public class WeatherRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Alert.class, AlertFeed.class, ForecastPeriod.class, Gridpoint.class, ForecastBundle.class,
+                ForecastBatch.class, ForecastBatchItem.class, ForecastBatchRequest.class, Coordinates.class,
+                AlertIndex.AlertDiff.class);
+    }
+}
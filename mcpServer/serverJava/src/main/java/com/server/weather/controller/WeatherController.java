@@ -1,38 +1,128 @@
 package com.server.weather.controller;
 
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.server.weather.cache.AlertIndex;
+import com.server.weather.cache.GridpointIndex;
+import com.server.weather.cache.NwsResponseCache;
+import com.server.weather.client.NwsHttpPool;
+import com.server.weather.client.NwsRequestCoalescer;
+import com.server.weather.client.NwsResilience;
+import com.server.weather.client.StaleData;
 import com.server.weather.model.Alert;
+import com.server.weather.model.Coordinates;
+import com.server.weather.model.ForecastBatch;
+import com.server.weather.model.ForecastBatchRequest;
 import com.server.weather.model.ForecastBundle;
 import com.server.weather.service.WeatherService;
 
+import reactor.core.publisher.Mono;
+
 @RestController
 @RequestMapping(path = "/api/weather", produces = MediaType.APPLICATION_JSON_VALUE)
 public class WeatherController {
 
     private final WeatherService weatherService;
+    private final NwsResponseCache cache;
+    private final GridpointIndex gridpointIndex;
+    private final NwsRequestCoalescer coalescer;
+    private final AlertIndex alertIndex;
+    private final NwsResilience resilience;
+    private final NwsHttpPool httpPool;
 
-    public WeatherController(WeatherService weatherService) {
+    public WeatherController(WeatherService weatherService, NwsResponseCache cache, GridpointIndex gridpointIndex,
+                             NwsRequestCoalescer coalescer, AlertIndex alertIndex, NwsResilience resilience,
+                             NwsHttpPool httpPool) {
         this.weatherService = weatherService;
+        this.cache = cache;
+        this.gridpointIndex = gridpointIndex;
+        this.coalescer = coalescer;
+        this.alertIndex = alertIndex;
+        this.resilience = resilience;
+        this.httpPool = httpPool;
+    }
+
+    @GetMapping("/alerts")
+    public Mono<ResponseEntity<List<Alert>>> getAlerts(
+            @RequestParam("states") List<String> states,
+            @RequestParam(value = "minSeverity", required = false) String minSeverity) {
+        return withStaleHeaders(weatherService.alertsForStates(states, minSeverity));
+    }
+
+    @GetMapping("/alerts/stats")
+    public AlertIndex.Stats getAlertIndexStats() {
+        return alertIndex.stats();
     }
 
     @GetMapping("/alerts/{state}")
-    public List<Alert> getAlerts(@PathVariable String state) {
-        return weatherService.alertsForState(state);
+    public Mono<ResponseEntity<List<Alert>>> getAlerts(@PathVariable String state) {
+        return withStaleHeaders(weatherService.alertsForState(state));
     }
 
     @GetMapping("/forecast")
-    public ForecastBundle getForecast(
+    public Mono<ResponseEntity<ForecastBundle>> getForecast(
             @RequestParam("lat") double latitude,
             @RequestParam("lon") double longitude,
             @RequestParam(value = "periods", required = false) Integer periods) {
-        return weatherService.forecastForCoordinates(latitude, longitude, periods);
+        return withStaleHeaders(weatherService.forecastForCoordinates(latitude, longitude, periods));
+    }
+
+    @PostMapping("/forecast/batch")
+    public Mono<ResponseEntity<ForecastBatch>> getForecastBatch(@RequestBody ForecastBatchRequest request) {
+        return withStaleHeaders(weatherService.forecastBatch(request.points(), request.periods()));
+    }
+
+    @GetMapping("/cache/stats")
+    public NwsResponseCache.Stats getCacheStats() {
+        return cache.stats();
+    }
+
+    @GetMapping("/coalescing/stats")
+    public NwsRequestCoalescer.Stats getCoalescingStats() {
+        return coalescer.stats();
+    }
+
+    @GetMapping("/resilience/stats")
+    public NwsResilience.Stats getResilienceStats() {
+        return resilience.stats();
+    }
+
+    @GetMapping("/pool/stats")
+    public NwsHttpPool.Stats getPoolStats() {
+        return httpPool.stats();
+    }
+
+    @GetMapping("/gridpoints/stats")
+    public GridpointIndex.Stats getGridpointStats() {
+        return gridpointIndex.stats();
+    }
+
+    // Dati serviti dalla cache scaduta: Warning 110 (RFC 7234) e Age in secondi.
+    private static <T> Mono<ResponseEntity<T>> withStaleHeaders(Mono<T> work) {
+        return StaleData.observe(work).map(observed -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (observed.stale()) {
+                response.header("Warning", "110 - \"Response is Stale\"")
+                        .header(HttpHeaders.AGE, String.valueOf(observed.staleAge().toSeconds()));
+            }
+            return response.body(observed.value());
+        });
+    }
+
+    @PostMapping("/gridpoints/prewarm")
+    public Mono<Map<String, Integer>> prewarmGridpoints(@RequestBody List<Coordinates> coordinates) {
+        return weatherService.prewarmGridpoints(coordinates).map(resolved -> Map.of("resolved", resolved));
     }
 }
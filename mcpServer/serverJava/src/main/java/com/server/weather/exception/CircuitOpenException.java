@@ -0,0 +1,7 @@
+package com.server.weather.exception;
+
+public class CircuitOpenException extends UpstreamServiceException {
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
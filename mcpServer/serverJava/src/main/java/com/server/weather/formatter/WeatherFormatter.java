@@ -1,11 +1,14 @@
 package com.server.weather.formatter;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
 import com.server.weather.model.Alert;
+import com.server.weather.model.ForecastBatch;
+import com.server.weather.model.ForecastBatchItem;
 import com.server.weather.model.ForecastBundle;
 import com.server.weather.model.ForecastPeriod;
 
@@ -52,6 +55,34 @@ public class WeatherFormatter {
         return header.length() == 0 ? body : header + "\n" + body;
     }
 
+    public String formatForecastBatch(ForecastBatch batch) {
+        String summary = "Punti: " + batch.items().size()
+                + " | Riusciti: " + batch.succeeded()
+                + " | Falliti: " + batch.failed()
+                + " | Celle di griglia: " + batch.gridCells();
+        String body = batch.items().stream()
+                .map(this::formatBatchItem)
+                .collect(Collectors.joining("\n===\n"));
+        return summary + "\n===\n" + body;
+    }
+
+    private String formatBatchItem(ForecastBatchItem item) {
+        String header = "Punto: " + item.latitude() + "," + item.longitude();
+        if (item.error() != null) {
+            return header + "\nErrore: " + item.error();
+        }
+        return header + "\n" + formatForecast(item.forecast());
+    }
+
+    // staleAge non null: parte dei dati viene dalla cache perche' NWS non ha risposto.
+    public String withStaleNotice(Duration staleAge, String text) {
+        if (staleAge == null) {
+            return text;
+        }
+        String age = staleAge.toMinutes() > 0 ? staleAge.toMinutes() + " min" : staleAge.toSeconds() + "s";
+        return "Attenzione: NWS non raggiungibile, dati dell'ultima risposta valida (di " + age + " fa).\n" + text;
+    }
+
     private String formatPeriod(ForecastPeriod period) {
         return String.join("\n",
                 period.name(),
@@ -0,0 +1,94 @@
+package com.server.weather.mcp;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.mcp.McpResource;
+import com.server.mcp.McpResourceContents;
+import com.server.mcp.McpResourceProvider;
+import com.server.mcp.McpResourceTemplate;
+import com.server.weather.cache.AlertIndex;
+import com.server.weather.service.WeatherService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Allerte attive come risorse MCP weather://alerts/{area}. Le notifiche di aggiornamento nascono dai
+// refresh dello snapshot nazionale (NationalAlertsPoller) e portano solo il delta: allerte nuove per
+// intero e id di quelle scadute. Senza poller attivo le risorse si leggono ma non notificano.
+@Component
+@ConditionalOnProperty(name = "weather.mcp-stdio-enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherMcpResources implements McpResourceProvider {
+
+    private static final String ALERTS_PREFIX = "weather://alerts/";
+    private static final Pattern ALERTS_URI = Pattern.compile("weather://alerts/([A-Za-z]{2}(?:[CZcz]\\d{3})?)");
+    private static final String JSON = "application/json";
+
+    private final ObjectFactory<WeatherService> weatherService;
+    private final AlertIndex alertIndex;
+    private final ObjectMapper mapper;
+
+    public WeatherMcpResources(ObjectFactory<WeatherService> weatherService, AlertIndex alertIndex, ObjectMapper mapper) {
+        this.weatherService = weatherService;
+        this.alertIndex = alertIndex;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public List<McpResourceTemplate> templates() {
+        return List.of(new McpResourceTemplate(
+                ALERTS_PREFIX + "{area}",
+                "Allerte meteo attive",
+                "Allerte NWS attive per uno stato (es. CA) o una zona (es. CAZ006). Con resources/subscribe "
+                        + "le notifiche riportano solo le allerte aggiunte (added) e gli id di quelle rimosse (removed).",
+                JSON));
+    }
+
+    @Override
+    public List<McpResource> resources() {
+        return alertIndex.states().stream()
+                .map(state -> new McpResource(ALERTS_PREFIX + state, "Allerte " + state,
+                        "Allerte NWS attive per lo stato " + state, JSON))
+                .toList();
+    }
+
+    @Override
+    public boolean supports(String uri) {
+        return ALERTS_URI.matcher(uri).matches();
+    }
+
+    @Override
+    public Mono<McpResourceContents> read(String uri) {
+        return weatherService.getObject().alertsForStates(List.of(area(uri)), null)
+                .map(alerts -> new McpResourceContents(uri, JSON, json(alerts)));
+    }
+
+    @Override
+    public Flux<AlertIndex.AlertDiff> updates(String uri) {
+        return alertIndex.changes(area(uri));
+    }
+
+    private static String area(String uri) {
+        Matcher matcher = ALERTS_URI.matcher(uri);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Risorsa non supportata: " + uri);
+        }
+        return matcher.group(1).toUpperCase(Locale.US);
+    }
+
+    private String json(Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossibile serializzare la risorsa MCP", e);
+        }
+    }
+}
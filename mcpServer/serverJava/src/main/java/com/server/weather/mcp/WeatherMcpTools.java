@@ -0,0 +1,145 @@
+package com.server.weather.mcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.mcp.McpTool;
+import com.server.mcp.McpToolProvider;
+import com.server.mcp.McpTracing;
+import com.server.weather.client.StaleData;
+import com.server.weather.formatter.WeatherFormatter;
+import com.server.weather.model.Coordinates;
+import com.server.weather.service.WeatherService;
+
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(name = "weather.mcp-stdio-enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherMcpTools implements McpToolProvider {
+
+    private final ObjectFactory<WeatherService> weatherService;
+    private final WeatherFormatter formatter;
+    private final ObjectMapper mapper;
+    private final McpTracing tracing;
+
+    // Schema e tools/list non richiedono il client NWS: con il profilo stdio nasce al primo uso.
+    public WeatherMcpTools(ObjectFactory<WeatherService> weatherService, WeatherFormatter formatter, ObjectMapper mapper,
+                           McpTracing tracing) {
+        this.weatherService = weatherService;
+        this.formatter = formatter;
+        this.mapper = mapper;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public List<McpTool> tools() {
+        McpTool alertsTool = McpTool.reactive(
+                "get_alerts",
+                "Allerte meteo attive per uno o piu' stati USA o zone NWS, con filtro di severita' (NWS).",
+                mapper.valueToTree(Map.of(
+                        "type", "object",
+                        "properties", Map.of(
+                                "state", Map.of("type", "string", "description", "Codice stato (es. CA, NY)"),
+                                "states", Map.of(
+                                        "type", "array",
+                                        "items", Map.of("type", "string"),
+                                        "description", "Stati (es. CA) o zone NWS (es. CAZ006), in alternativa a state"),
+                                "minSeverity", Map.of(
+                                        "type", "string",
+                                        "enum", List.of("Extreme", "Severe", "Moderate", "Minor", "Unknown"),
+                                        "description", "Severita' minima opzionale")
+                        ))),
+                this::getAlerts);
+
+        McpTool forecastTool = McpTool.reactive(
+                "get_forecast",
+                "Forecast puntuale per coordinate.",
+                mapper.valueToTree(Map.of(
+                        "type", "object",
+                        "properties", Map.of(
+                                "latitude", Map.of("type", "number", "description", "Latitudine in decimali"),
+                                "longitude", Map.of("type", "number", "description", "Longitudine in decimali"),
+                                "periods", Map.of("type", "integer", "description", "Numero di periodi opzionale")
+                        ),
+                        "required", List.of("latitude", "longitude"))),
+                this::getForecast);
+
+        McpTool forecastBatchTool = McpTool.reactive(
+                "get_forecast_batch",
+                "Forecast per piu' coordinate in una sola chiamata (es. punti lungo un percorso).",
+                mapper.valueToTree(Map.of(
+                        "type", "object",
+                        "properties", Map.of(
+                                "points", Map.of(
+                                        "type", "array",
+                                        "description", "Lista di coordinate",
+                                        "items", Map.of(
+                                                "type", "object",
+                                                "properties", Map.of(
+                                                        "latitude", Map.of("type", "number"),
+                                                        "longitude", Map.of("type", "number")),
+                                                "required", List.of("latitude", "longitude"))),
+                                "periods", Map.of("type", "integer", "description", "Numero di periodi opzionale")
+                        ),
+                        "required", List.of("points"))),
+                this::getForecastBatch);
+
+        return List.of(alertsTool, forecastTool, forecastBatchTool);
+    }
+
+    private Mono<Map<String, Object>> getAlerts(JsonNode arguments) {
+        List<String> states = new ArrayList<>();
+        if (arguments.path("states").isArray()) {
+            arguments.get("states").forEach(state -> states.add(state.asText()));
+        }
+        if (arguments.hasNonNull("state")) {
+            states.add(arguments.get("state").asText());
+        }
+        String minSeverity = arguments.hasNonNull("minSeverity") ? arguments.get("minSeverity").asText() : null;
+        return StaleData.observe(weatherService.getObject().alertsForStates(states, minSeverity))
+                .flatMap(alerts -> tracing.span("weather.format",
+                        () -> text(formatter.withStaleNotice(alerts.staleAge(), formatter.formatAlerts(alerts.value())))));
+    }
+
+    private Mono<Map<String, Object>> getForecast(JsonNode arguments) {
+        double latitude = arguments.path("latitude").asDouble();
+        double longitude = arguments.path("longitude").asDouble();
+        Integer periods = arguments.has("periods") && !arguments.get("periods").isNull()
+                ? arguments.get("periods").asInt()
+                : null;
+        return StaleData.observe(weatherService.getObject().forecastForCoordinates(latitude, longitude, periods))
+                .flatMap(bundle -> tracing.span("weather.format",
+                        () -> text(formatter.withStaleNotice(bundle.staleAge(), formatter.formatForecast(bundle.value())))));
+    }
+
+    private Mono<Map<String, Object>> getForecastBatch(JsonNode arguments) {
+        JsonNode points = arguments.path("points");
+        if (!points.isArray()) {
+            throw new IllegalArgumentException("Il parametro points deve essere una lista di coordinate.");
+        }
+        List<Coordinates> coordinates = new ArrayList<>(points.size());
+        for (JsonNode point : points) {
+            if (!point.path("latitude").isNumber() || !point.path("longitude").isNumber()) {
+                throw new IllegalArgumentException("Ogni punto deve avere latitude e longitude numeriche.");
+            }
+            coordinates.add(new Coordinates(point.get("latitude").asDouble(), point.get("longitude").asDouble()));
+        }
+        Integer periods = arguments.has("periods") && !arguments.get("periods").isNull()
+                ? arguments.get("periods").asInt()
+                : null;
+        return StaleData.observe(weatherService.getObject().forecastBatch(coordinates, periods))
+                .flatMap(batch -> tracing.span("weather.format",
+                        () -> text(formatter.withStaleNotice(batch.staleAge(), formatter.formatForecastBatch(batch.value())))));
+    }
+
+    private Map<String, Object> text(String text) {
+        return Map.of("content", List.of(Map.of("type", "text", "text", text)));
+    }
+}
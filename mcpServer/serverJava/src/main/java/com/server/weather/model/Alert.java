@@ -1,9 +1,15 @@
 package com.server.weather.model;
 
+import java.util.List;
+
+// id e zones (codici UGC, es. CAZ006) servono all'indice nazionale delle allerte; possono mancare
+// nelle risposte parziali.
 public record Alert(
         String event,
         String area,
         String severity,
         String description,
-        String instruction) {
+        String instruction,
+        String id,
+        List<String> zones) {
 }
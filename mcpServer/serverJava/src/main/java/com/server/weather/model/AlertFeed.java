@@ -0,0 +1,10 @@
+package com.server.weather.model;
+
+import java.util.List;
+
+// Feed nazionale /alerts/active con i validatori da reinviare nella richiesta condizionale successiva.
+public record AlertFeed(
+        List<Alert> alerts,
+        String etag,
+        String lastModified) {
+}
@@ -0,0 +1,26 @@
+package com.server.weather.model;
+
+// Scala CAP usata da NWS, dalla piu' alta alla piu' bassa.
+public enum AlertSeverity {
+    EXTREME,
+    SEVERE,
+    MODERATE,
+    MINOR,
+    UNKNOWN;
+
+    public boolean atLeast(AlertSeverity minimum) {
+        return ordinal() <= minimum.ordinal();
+    }
+
+    // Valori non riconosciuti (o assenti) contano come UNKNOWN.
+    public static AlertSeverity of(String value) {
+        if (value != null) {
+            for (AlertSeverity severity : values()) {
+                if (severity.name().equalsIgnoreCase(value.strip())) {
+                    return severity;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,6 @@
+package com.server.weather.model;
+
+public record Coordinates(
+        double latitude,
+        double longitude) {
+}
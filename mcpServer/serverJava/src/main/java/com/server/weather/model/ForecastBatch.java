@@ -0,0 +1,10 @@
+package com.server.weather.model;
+
+import java.util.List;
+
+public record ForecastBatch(
+        List<ForecastBatchItem> items,
+        int succeeded,
+        int failed,
+        int gridCells) {
+}
@@ -0,0 +1,9 @@
+package com.server.weather.model;
+
+// Esito per singolo punto: forecast valorizzato oppure error con il motivo del fallimento.
+public record ForecastBatchItem(
+        double latitude,
+        double longitude,
+        ForecastBundle forecast,
+        String error) {
+}
@@ -0,0 +1,8 @@
+package com.server.weather.model;
+
+import java.util.List;
+
+public record ForecastBatchRequest(
+        List<Coordinates> points,
+        Integer periods) {
+}
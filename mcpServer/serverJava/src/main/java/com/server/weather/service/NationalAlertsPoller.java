@@ -0,0 +1,75 @@
+package com.server.weather.service;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.server.weather.cache.AlertIndex;
+import com.server.weather.client.NwsClient;
+import com.server.weather.config.WeatherClientProperties;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Aggiorna AlertIndex dal feed nazionale /alerts/active a intervallo fisso. Le richieste sono
+// condizionali (If-None-Match / If-Modified-Since): finche' NWS risponde 304 non si scarica ne'
+// decodifica nulla. Un poll alla volta; i tick persi mentre un poll e' in corso vengono scartati.
+@Component
+public class NationalAlertsPoller implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(NationalAlertsPoller.class);
+
+    private final NwsClient nwsClient;
+    private final AlertIndex alertIndex;
+    private final WeatherClientProperties.Alerts config;
+    private volatile String etag;
+    private volatile String lastModified;
+    private Disposable polling;
+
+    public NationalAlertsPoller(NwsClient nwsClient, AlertIndex alertIndex, WeatherClientProperties properties) {
+        this.nwsClient = nwsClient;
+        this.alertIndex = alertIndex;
+        this.config = properties.getAlerts();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!config.isPollEnabled()) {
+            return;
+        }
+        log.info("Poller allerte nazionali attivo (intervallo {}).", config.getPollInterval());
+        polling = Flux.interval(Duration.ZERO, config.getPollInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> poll(), 1)
+                .subscribe();
+    }
+
+    Mono<Void> poll() {
+        return nwsClient.fetchActiveAlerts(etag, lastModified)
+                .doOnNext(feed -> {
+                    etag = feed.etag();
+                    lastModified = feed.lastModified();
+                    alertIndex.replace(feed.alerts());
+                    log.debug("Snapshot allerte nazionali aggiornato: {} allerte attive.", feed.alerts().size());
+                })
+                .switchIfEmpty(Mono.fromRunnable(alertIndex::confirm))
+                .onErrorResume(error -> {
+                    log.warn("Aggiornamento allerte nazionali fallito: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    @Override
+    public void destroy() {
+        if (polling != null) {
+            polling.dispose();
+        }
+    }
+}
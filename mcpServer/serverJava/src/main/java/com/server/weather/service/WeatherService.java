@@ -1,48 +1,237 @@
 package com.server.weather.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import com.server.mcp.McpTracing;
+import com.server.weather.cache.AlertIndex;
+import com.server.weather.cache.GridpointIndex;
 import com.server.weather.client.NwsClient;
+import com.server.weather.client.StaleData;
 import com.server.weather.config.WeatherClientProperties;
+import com.server.weather.exception.UpstreamServiceException;
 import com.server.weather.exception.WeatherServiceException;
 import com.server.weather.model.Alert;
+import com.server.weather.model.AlertSeverity;
+import com.server.weather.model.Coordinates;
+import com.server.weather.model.ForecastBatch;
+import com.server.weather.model.ForecastBatchItem;
 import com.server.weather.model.ForecastBundle;
 import com.server.weather.model.ForecastPeriod;
 import com.server.weather.model.Gridpoint;
 
+import io.micrometer.common.KeyValues;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
 @Service
 public class WeatherService {
 
+    private static final Logger log = LoggerFactory.getLogger(WeatherService.class);
+    private static final int PREWARM_CONCURRENCY = 4;
+
+    private static final Pattern STATE_CODE = Pattern.compile("[A-Z]{2}");
+    private static final Pattern ZONE_CODE = Pattern.compile("[A-Z]{2}[CZ]\\d{3}");
+
     private final NwsClient nwsClient;
+    private final GridpointIndex gridpointIndex;
+    private final AlertIndex alertIndex;
     private final WeatherClientProperties properties;
+    private final McpTracing tracing;
 
-    public WeatherService(NwsClient nwsClient, WeatherClientProperties properties) {
+    public WeatherService(NwsClient nwsClient, GridpointIndex gridpointIndex, AlertIndex alertIndex,
+                          WeatherClientProperties properties, McpTracing tracing) {
         this.nwsClient = nwsClient;
+        this.gridpointIndex = gridpointIndex;
+        this.alertIndex = alertIndex;
         this.properties = properties;
+        this.tracing = tracing;
+    }
+
+    public Mono<List<Alert>> alertsForState(String state) {
+        return alertsForStates(state == null ? null : List.of(state), null);
     }
 
-    public List<Alert> alertsForState(String state) {
-        if (state == null || state.isBlank()) {
+    // areas: stati (CA) o zone NWS (CAZ006). Con lo snapshot nazionale fresco la risposta esce
+    // dall'indice in memoria; altrimenti una chiamata per area verso NWS, come prima del poller.
+    public Mono<List<Alert>> alertsForStates(List<String> areas, String minSeverity) {
+        return tracing.span("weather.alerts", KeyValues.of("weather.areas", String.valueOf(areas)),
+                queryAlerts(areas, minSeverity));
+    }
+
+    private Mono<List<Alert>> queryAlerts(List<String> areas, String minSeverity) {
+        Set<String> normalized = new LinkedHashSet<>();
+        AlertSeverity minimum;
+        try {
+            if (areas == null || areas.isEmpty()) {
+                throw new WeatherServiceException("Il codice dello stato non puo' essere vuoto.");
+            }
+            for (String area : areas) {
+                normalized.add(normalizeArea(area));
+            }
+            minimum = minimumSeverity(minSeverity);
+        } catch (WeatherServiceException invalid) {
+            return Mono.error(invalid);
+        }
+        if (alertIndex.isFresh(properties.getAlerts().getMaxStaleness())) {
+            return Mono.just(alertIndex.query(normalized, minimum));
+        }
+        return Flux.fromIterable(normalized)
+                .flatMapSequential(area -> area.length() == 2 ? nwsClient.fetchAlerts(area) : nwsClient.fetchZoneAlerts(area))
+                .flatMapIterable(alerts -> alerts)
+                .filter(alert -> AlertSeverity.of(alert.severity()).atLeast(minimum))
+                .distinct()
+                .sort(Comparator.comparing(alert -> AlertSeverity.of(alert.severity())))
+                .collectList()
+                .onErrorResume(UpstreamServiceException.class, error -> {
+                    Duration age = alertIndex.age();
+                    if (age == null || !properties.getResilience().isStaleOnError()) {
+                        return Mono.error(error);
+                    }
+                    log.warn("{} Servo le allerte dallo snapshot nazionale (eta' {}s).", error.getMessage(), age.toSeconds());
+                    return StaleData.mark(alertIndex.query(normalized, minimum), age);
+                });
+    }
+
+    private static String normalizeArea(String area) {
+        if (area == null || area.isBlank()) {
             throw new WeatherServiceException("Il codice dello stato non puo' essere vuoto.");
         }
-        String normalized = state.strip().toUpperCase(Locale.US);
-        if (normalized.length() != 2) {
-            throw new WeatherServiceException("Il codice dello stato deve contenere due lettere (es. CA, NY).");
+        String normalized = area.strip().toUpperCase(Locale.US);
+        if (!STATE_CODE.matcher(normalized).matches() && !ZONE_CODE.matcher(normalized).matches()) {
+            throw new WeatherServiceException("Codice non valido: " + area
+                    + ". Usare uno stato a due lettere (es. CA, NY) o una zona NWS (es. CAZ006).");
+        }
+        return normalized;
+    }
+
+    private static AlertSeverity minimumSeverity(String value) {
+        if (value == null || value.isBlank()) {
+            return AlertSeverity.UNKNOWN;
+        }
+        AlertSeverity severity = AlertSeverity.of(value);
+        if (severity == AlertSeverity.UNKNOWN && !"unknown".equalsIgnoreCase(value.strip())) {
+            throw new WeatherServiceException("Severita' minima non valida: " + value
+                    + ". Valori ammessi: Extreme, Severe, Moderate, Minor, Unknown.");
+        }
+        return severity;
+    }
+
+    public Mono<ForecastBundle> forecastForCoordinates(double latitude, double longitude, Integer periods) {
+        int limit = periods != null ? periods : properties.getForecastPeriods();
+        if (limit <= 0) {
+            return Mono.error(new WeatherServiceException("Il numero di periodi richiesto deve essere maggiore di zero."));
         }
-        return nwsClient.fetchAlerts(normalized);
+        return tracing.span("weather.forecast",
+                KeyValues.of("weather.latitude", String.valueOf(latitude), "weather.longitude", String.valueOf(longitude)),
+                resolveGridpoint(latitude, longitude)
+                        .flatMap(gridpoint -> nwsClient.fetchForecast(gridpoint.forecastUrl(), limit)
+                                .map(forecasts -> new ForecastBundle(gridpoint, forecasts))));
     }
 
-    public ForecastBundle forecastForCoordinates(double latitude, double longitude, Integer periods) {
+    // Un forecast per cella di griglia: i punti che cadono nella stessa cella condividono la stessa
+    // richiesta upstream. Gli errori restano sul singolo punto e non fanno fallire il batch.
+    public Mono<ForecastBatch> forecastBatch(List<Coordinates> points, Integer periods) {
+        if (points == null || points.isEmpty()) {
+            return Mono.error(new WeatherServiceException("La lista di coordinate non puo' essere vuota."));
+        }
+        int maxPoints = properties.getBatch().getMaxPoints();
+        if (points.size() > maxPoints) {
+            return Mono.error(new WeatherServiceException("Troppe coordinate nel batch: massimo " + maxPoints + "."));
+        }
         int limit = periods != null ? periods : properties.getForecastPeriods();
         if (limit <= 0) {
-            throw new WeatherServiceException("Il numero di periodi richiesto deve essere maggiore di zero.");
+            return Mono.error(new WeatherServiceException("Il numero di periodi richiesto deve essere maggiore di zero."));
+        }
+        Map<String, Mono<List<ForecastPeriod>>> forecastsByCell = new ConcurrentHashMap<>();
+        return tracing.span("weather.forecast_batch", KeyValues.of("weather.points", String.valueOf(points.size())),
+                Flux.fromIterable(points)
+                        .flatMapSequential(point -> batchItem(point, limit, forecastsByCell),
+                                Math.max(1, properties.getBatch().getConcurrency()))
+                        .collectList()
+                        .map(items -> {
+                            int failed = (int) items.stream().filter(item -> item.error() != null).count();
+                            return new ForecastBatch(items, items.size() - failed, failed, forecastsByCell.size());
+                        }));
+    }
+
+    private Mono<ForecastBatchItem> batchItem(Coordinates point, int limit,
+                                              Map<String, Mono<List<ForecastPeriod>>> forecastsByCell) {
+        if (point == null) {
+            return Mono.just(new ForecastBatchItem(Double.NaN, Double.NaN, null, "Coordinata mancante."));
+        }
+        double latitude = point.latitude();
+        double longitude = point.longitude();
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            return Mono.just(new ForecastBatchItem(latitude, longitude, null, "Coordinate fuori intervallo."));
+        }
+        return resolveGridpoint(latitude, longitude)
+                .flatMap(gridpoint -> forecastsByCell
+                        .computeIfAbsent(cellKey(gridpoint), cell -> nwsClient.fetchForecast(gridpoint.forecastUrl(), limit).cache())
+                        .map(forecasts -> new ForecastBatchItem(latitude, longitude, new ForecastBundle(gridpoint, forecasts), null)))
+                .onErrorResume(error -> {
+                    log.debug("Forecast batch fallito per {},{}: {}", latitude, longitude, error.getMessage());
+                    return Mono.just(new ForecastBatchItem(latitude, longitude, null, error.getMessage()));
+                });
+    }
+
+    private static String cellKey(Gridpoint gridpoint) {
+        if (gridpoint.gridId() != null && gridpoint.gridX() != null && gridpoint.gridY() != null) {
+            return gridpoint.gridId() + "/" + gridpoint.gridX() + "," + gridpoint.gridY();
+        }
+        return gridpoint.forecastUrl();
+    }
+
+    public Mono<Gridpoint> resolveGridpoint(double latitude, double longitude) {
+        Gridpoint indexed = gridpointIndex.lookup(latitude, longitude);
+        if (indexed != null) {
+            return Mono.just(indexed);
+        }
+        return nwsClient.resolveGridpoint(latitude, longitude)
+                .doOnNext(gridpoint -> gridpointIndex.record(latitude, longitude, gridpoint));
+    }
+
+    public Mono<Integer> prewarmGridpoints(List<Coordinates> coordinates) {
+        return Flux.fromIterable(coordinates)
+                .filter(point -> !gridpointIndex.contains(point.latitude(), point.longitude()))
+                .flatMap(point -> nwsClient.resolveGridpoint(point.latitude(), point.longitude())
+                        .doOnNext(gridpoint -> gridpointIndex.record(point.latitude(), point.longitude(), gridpoint))
+                        .onErrorResume(WeatherServiceException.class, error -> {
+                            log.warn("Prewarm gridpoint fallito per {},{}: {}", point.latitude(), point.longitude(), error.getMessage());
+                            return Mono.empty();
+                        }), PREWARM_CONCURRENCY)
+                .count()
+                .map(Long::intValue);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void prewarmConfiguredGridpoints() {
+        List<Coordinates> coordinates = new ArrayList<>();
+        for (String entry : properties.getGridpointIndex().getPrewarm()) {
+            String[] parts = entry.split(":");
+            try {
+                coordinates.add(new Coordinates(Double.parseDouble(parts[0].strip()), Double.parseDouble(parts[1].strip())));
+            } catch (RuntimeException invalid) {
+                log.warn("Coordinata di prewarm non valida (atteso lat:lon): {}", entry);
+            }
+        }
+        if (!coordinates.isEmpty()) {
+            prewarmGridpoints(coordinates)
+                    .subscribe(resolved -> log.info("Prewarm indice gridpoint completato: {} nuove celle.", resolved));
         }
-        Gridpoint gridpoint = nwsClient.resolveGridpoint(latitude, longitude);
-        List<ForecastPeriod> forecasts = nwsClient.fetchForecast(gridpoint.forecastUrl());
-        List<ForecastPeriod> trimmed = forecasts.size() > limit ? forecasts.subList(0, limit) : forecasts;
-        return new ForecastBundle(gridpoint, trimmed);
     }
 }
@@ -3,7 +3,8 @@ package com.server;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Senza il loop stdio: FileDescriptor.in e' il canale di controllo del fork di Surefire
+@SpringBootTest(properties = "mcp.stdio-enabled=false")
 class DemojavaApplicationTests {
 
 	@Test
@@ -0,0 +1,100 @@
+package com.server.eventi.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.server.eventi.config.EventProperties;
+import com.server.eventi.dto.RestaurantSuggestion;
+
+class GeoSuggestionsTests {
+
+	private static final GeoPoint DUOMO = new GeoPoint(45.4642, 9.1900);
+
+	@Test
+	void kdTreeAgreesWithBruteForce() {
+		Random random = new Random(7);
+		int n = 5_000;
+		GeoPoint[] points = new GeoPoint[n];
+		for (int i = 0; i < n; i++) {
+			points[i] = new GeoPoint(-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360);
+		}
+		GeoIndex index = new GeoIndex(IntStream.range(0, n).toArray(), points);
+
+		for (int q = 0; q < 50; q++) {
+			GeoPoint target = new GeoPoint(-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360);
+			double radius = 500 + random.nextDouble() * 3000;
+			// Gli id dispari valgono la meta': entrano nei primi 10 anche se piu' lontani
+			List<GeoIndex.Hit> hits = index.nearest(target, radius, 10, 0.5, id -> id % 2 == 1 ? 0.5 : 1.0);
+			List<Integer> expected = IntStream.range(0, n).boxed()
+					.filter(id -> points[id].distanceKm(target) <= radius)
+					.sorted(Comparator.<Integer>comparingDouble(id -> points[id].distanceKm(target) * (id % 2 == 1 ? 0.5 : 1.0))
+							.thenComparing(id -> id))
+					.limit(10)
+					.toList();
+
+			assertThat(hits).extracting(GeoIndex.Hit::id).containsExactlyElementsOf(expected);
+			hits.forEach(hit -> assertThat(hit.km()).isCloseTo(points[hit.id()].distanceKm(target), within(1e-6)));
+		}
+	}
+
+	@Test
+	void ranksByDistanceWithinTheRadiusAndDiscountsPreferredCuisines() {
+		RestaurantCatalog catalog = new RestaurantCatalog(List.of(
+				entry("Vicino", "pizzeria", Set.of("vegetariano"), new GeoPoint(45.4650, 9.1910)),
+				entry("Medio", "giapponese", Set.of("vegetariano"), new GeoPoint(45.4750, 9.1900)),
+				entry("Lontano", "italiana", Set.of("vegetariano"), new GeoPoint(45.5350, 9.2308)),
+				entry("Senza tag", "pizzeria", Set.of(), new GeoPoint(45.4643, 9.1901)),
+				entry("Senza coordinate", "pizzeria", Set.of("vegetariano"), null)));
+
+		List<RestaurantSuggestion> near = catalog.suggestNear(DUOMO, 5, "Milano", List.of("vegetariano"), Map.of(), 5);
+		assertThat(near).extracting(RestaurantSuggestion::name).containsExactly("Vicino", "Medio");
+		assertThat(near.get(0).distanceKm()).isCloseTo(0.12, within(0.01));
+
+		// Medio (1.2 km) dimezzato batte Vicino (0.1 km) solo se e' piu' vicino di 2 volte: qui no
+		assertThat(catalog.suggestNear(DUOMO, 5, "Milano", List.of("vegetariano"), Map.of("giapponese", 2), 5))
+				.extracting(RestaurantSuggestion::name).containsExactly("Vicino", "Medio");
+		assertThat(catalog.suggestNear(DUOMO, 20, "Milano", List.of("vegetariano"), Map.of("italiana", 4, "giapponese", 1), 2))
+				.extracting(RestaurantSuggestion::name).containsExactly("Vicino", "Medio");
+		assertThat(catalog.suggestNear(new GeoPoint(45.5000, 9.2100), 20, "Milano", List.of("vegetariano"), Map.of("italiana", 1), 1))
+				.extracting(RestaurantSuggestion::name).containsExactly("Lontano");
+	}
+
+	@Test
+	void fallsBackToTheCityWithoutCompatibleRestaurantsInRange() {
+		RestaurantCatalog catalog = new RestaurantCatalog(List.of(
+				entry("Vicino", "pizzeria", Set.of(), new GeoPoint(45.4650, 9.1910)),
+				entry("In citta'", "italiana", Set.of("vegano"), null)));
+
+		List<RestaurantSuggestion> result = catalog.suggestNear(DUOMO, 5, "Milano", List.of("vegano"), Map.of(), 5);
+		assertThat(result).extracting(RestaurantSuggestion::name).containsExactly("In citta'");
+		assertThat(result.get(0).distanceKm()).isNull();
+	}
+
+	@Test
+	void gazetteerToleratesTyposAndPrefersTheLastLongestName() {
+		Gazetteer gazetteer = new Gazetteer(new EventProperties());
+
+		assertThat(gazetteer.resolve("Milano")).contains(new GeoPoint(45.4642, 9.1900));
+		assertThat(gazetteer.resolve("Via Roma 3, Sesto San Giovani (MI)")).contains(new GeoPoint(45.5350, 9.2308));
+		assertThat(gazetteer.resolve("Piazza Milano, Bolgona")).contains(new GeoPoint(44.4949, 11.3426));
+		assertThat(gazetteer.resolve("Forli centro")).contains(new GeoPoint(44.2227, 12.0407));
+		assertThat(gazetteer.resolve("casa di Luca")).isEmpty();
+		assertThat(Gazetteer.distance("giovani", "giovanni", 2)).isEqualTo(1);
+		assertThat(Gazetteer.distance("bolgona", "bologna", 2)).isEqualTo(1);
+		assertThat(Gazetteer.distance("abcdef", "uvwxyz", 2)).isEqualTo(3);
+	}
+
+	private static CatalogEntry entry(String name, String cuisine, Set<String> supports, GeoPoint point) {
+		return new CatalogEntry(name, point != null ? "" : "Milano", cuisine, "€€", supports, point);
+	}
+}
@@ -0,0 +1,138 @@
+package com.server.eventi.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.eventi.config.EventProperties;
+import com.server.eventi.dto.RestaurantSuggestion;
+
+class RestaurantCatalogTests {
+
+	private static final String CSV = """
+			name,city,cuisine,price_level,supports
+			Trattoria Verde,Milano,Italiana,€€,gluten-free;Vegetariano
+			Sushi Line,Milano,giapponese,€€€,gluten-free|pesce
+			Veggie Mood,Milano,vegetariana,€€,vegano;gluten-free
+			"Da Mario, dal 1950",Sesto San Giovanni,italiana,€,vegetariano
+			,Milano,italiana,€,
+			Bistro Locale,,fusion,€€,vegetariano
+			""";
+
+	private final CatalogLoader loader = new CatalogLoader(new ObjectMapper());
+
+	@Test
+	void loadsCsvAndSkipsInvalidRows() throws IOException {
+		List<CatalogEntry> entries = loader.load("catalogo.csv", stream(CSV));
+
+		assertThat(entries).extracting(CatalogEntry::name)
+				.containsExactly("Trattoria Verde", "Sushi Line", "Veggie Mood", "Da Mario, dal 1950", "Bistro Locale");
+		assertThat(entries.get(0).cuisine()).isEqualTo("italiana");
+		assertThat(entries.get(0).supports()).containsExactly("gluten-free", "vegetariano");
+		assertThat(entries.get(1).supports()).containsExactly("gluten-free", "pesce");
+	}
+
+	@Test
+	void loadsJsonWithSupportsAsArrayOrString() throws IOException {
+		String json = """
+				[{"name": "A", "city": "Roma", "cuisine": "italiana", "price_level": "€", "supports": ["vegano", "bio"]},
+				 {"name": "B", "city": "Roma", "cuisine": "greca", "supports": "halal;bio"},
+				 {"city": "Roma", "cuisine": "greca"}]
+				""";
+		List<CatalogEntry> entries = loader.load("catalogo.json", stream(json));
+
+		assertThat(entries).extracting(CatalogEntry::name).containsExactly("A", "B");
+		assertThat(entries.get(1).supports()).containsExactly("halal", "bio");
+	}
+
+	@Test
+	void matchesTheLongestCityInTheLocation() throws IOException {
+		RestaurantCatalog catalog = new RestaurantCatalog(loader.load("catalogo.csv", stream(CSV)));
+
+		assertThat(names(catalog.suggest("Via Roma 3, Sesto San Giovanni (MI)", List.of(), Map.of(), 5)))
+				.containsExactly("Da Mario, dal 1950");
+		assertThat(names(catalog.suggest("MILANO centro", List.of(), Map.of(), 5)))
+				.containsExactly("Trattoria Verde", "Sushi Line", "Veggie Mood");
+		assertThat(names(catalog.suggest("Bergamo", List.of(), Map.of(), 5))).containsExactly("Bistro Locale");
+		assertThat(catalog.suggest("Milano", List.of(), Map.of(), 5).get(0).location()).isEqualTo("Milano");
+		assertThat(catalog.suggest(null, List.of(), Map.of(), 5).get(0).location()).isEqualTo("N/D");
+	}
+
+	@Test
+	void requiresEveryIntoleranceAndRanksByPreferenceCount() throws IOException {
+		RestaurantCatalog catalog = new RestaurantCatalog(loader.load("catalogo.csv", stream(CSV)));
+
+		assertThat(names(catalog.suggest("Milano", List.of("gluten-free", "vegano"), Map.of(), 5)))
+				.containsExactly("Veggie Mood");
+		assertThat(names(catalog.suggest("Milano", List.of("gluten-free"), Map.of("giapponese", 1, "vegetariana", 3), 5)))
+				.containsExactly("Veggie Mood", "Sushi Line", "Trattoria Verde");
+		assertThat(names(catalog.suggest("Milano", List.of("gluten-free"), Map.of("giapponese", 1, "vegetariana", 3), 2)))
+				.containsExactly("Veggie Mood", "Sushi Line");
+		// Nessun ristorante compatibile (o tag sconosciuto): si ripiega sulla citta' senza vincoli
+		assertThat(names(catalog.suggest("Milano", List.of("kosher"), Map.of("italiana", 1), 5)))
+				.containsExactly("Trattoria Verde", "Sushi Line", "Veggie Mood");
+	}
+
+	@Test
+	void supportsMoreThanSixtyFourTags() {
+		List<CatalogEntry> entries = new ArrayList<>();
+		for (int i = 0; i < 130; i++) {
+			entries.add(new CatalogEntry("R" + i, "Roma", "italiana", "€", Set.of("tag" + i, "comune"), null));
+		}
+		RestaurantCatalog catalog = new RestaurantCatalog(entries);
+
+		assertThat(names(catalog.suggest("Roma", List.of("tag129", "comune"), Map.of(), 5))).containsExactly("R129");
+		assertThat(catalog.suggest("Roma", List.of("comune"), Map.of(), 200)).hasSize(130);
+	}
+
+	@Test
+	void reloadsTheFileWhenItChanges(@TempDir Path dir) throws IOException {
+		Path file = dir.resolve("ristoranti.csv");
+		Files.writeString(file, CSV);
+		EventProperties properties = new EventProperties();
+		properties.getCatalog().setFile(file.toString());
+		RestaurantCatalog catalog = new RestaurantCatalog(properties, new ObjectMapper());
+		assertThat(catalog.size()).isEqualTo(5);
+		assertThat(catalog.reloadIfChanged()).isFalse();
+
+		Files.writeString(file, CSV + "Pizzeria Nuova,Milano,pizzeria,€,vegano\n");
+		assertThat(catalog.reloadIfChanged()).isTrue();
+		assertThat(names(catalog.suggest("Milano", List.of("vegano"), Map.of("pizzeria", 1), 5)))
+				.containsExactly("Pizzeria Nuova", "Veggie Mood");
+
+		// Un file rotto non sostituisce l'indice in uso
+		Files.writeString(file, "colonne,sbagliate\n");
+		assertThatIOException().isThrownBy(catalog::reloadIfChanged);
+		assertThat(catalog.reloadIfChanged()).isFalse();
+		assertThat(catalog.size()).isEqualTo(6);
+	}
+
+	@Test
+	void bundledCatalogCoversTheSampleCities() {
+		RestaurantCatalog catalog = new RestaurantCatalog(new EventProperties(), new ObjectMapper());
+
+		assertThat(catalog.size()).isEqualTo(7);
+		assertThat(names(catalog.suggest("Roma", List.of("vegano"), Map.of(), 5))).containsExactly("Taverna Bio");
+	}
+
+	private static List<String> names(List<RestaurantSuggestion> suggestions) {
+		return suggestions.stream().map(RestaurantSuggestion::name).toList();
+	}
+
+	private static ByteArrayInputStream stream(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
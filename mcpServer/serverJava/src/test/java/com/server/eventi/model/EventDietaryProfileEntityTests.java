@@ -0,0 +1,58 @@
+package com.server.eventi.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class EventDietaryProfileEntityTests {
+
+	@Test
+	void keepsTheIntoleranceUnionWhileParticipantsChange() {
+		EventDietaryProfileEntity profile = new EventDietaryProfileEntity(UUID.randomUUID());
+		profile.add(Set.of(1, 5), Set.of(2));
+		profile.add(Set.of(5), Set.of(2, 3));
+
+		assertThat(profile.getParticipants()).isEqualTo(2);
+		assertThat(profile.intolerances()).containsExactly(1, 5);
+		assertThat(profile.preferenceCounts()).isEqualTo(Map.of(2, 2, 3, 1));
+
+		// Il primo partecipante toglie l'intolleranza 1: la 5 resta per il secondo
+		profile.remove(Set.of(1, 5), Set.of(2));
+		profile.add(Set.of(5), Set.of());
+		assertThat(profile.intolerances()).containsExactly(5);
+		assertThat(profile.preferenceCounts()).isEqualTo(Map.of(2, 1, 3, 1));
+	}
+
+	@Test
+	void boundsDistinctTagsToTheColumnSize() {
+		EventDietaryProfileEntity profile = new EventDietaryProfileEntity(UUID.randomUUID());
+		Set<Integer> many = IntStream.range(0, EventDietaryProfileEntity.MAX_TAGS).map(i -> i + 9000).boxed()
+				.collect(Collectors.toSet());
+		profile.add(many, Set.of());
+
+		// Id oltre 8191 non sono un problema; lo e' un tag distinto in piu'
+		assertThatIllegalArgumentException().isThrownBy(() -> profile.add(Set.of(1), Set.of(2)));
+		assertThat(profile.getParticipants()).isEqualTo(1);
+		assertThat(profile.preferenceCounts()).isEmpty();
+		profile.add(Set.of(9000), Set.of());
+		assertThat(profile.intolerances()).hasSize(EventDietaryProfileEntity.MAX_TAGS);
+	}
+
+	@Test
+	void tagCountsRoundTripThroughTheColumn() {
+		TagCountsConverter converter = new TagCountsConverter();
+		Map<Integer, Integer> counts = Map.of(7, 3, 1, 1, 300, 12);
+
+		byte[] column = converter.convertToDatabaseColumn(counts);
+		assertThat(column).hasSize(counts.size() * 8);
+		assertThat(converter.convertToEntityAttribute(column)).isEqualTo(counts);
+		assertThat(converter.convertToEntityAttribute(null)).isEmpty();
+	}
+}
@@ -0,0 +1,121 @@
+package com.server.eventi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.server.eventi.dto.BillItem;
+import com.server.eventi.dto.BillSplit;
+import com.server.eventi.dto.ParticipantDetails;
+
+class BillSplitterTests {
+
+	private static final UUID EVENT = UUID.randomUUID();
+
+	private final ParticipantDetails luca = participant("Luca", 1.0);
+	private final ParticipantDetails anna = participant("Anna", 1.0);
+	private final ParticipantDetails marta = participant("marta", 1.0);
+
+	@Test
+	void equalSplitHandsOutRemainderCentsInNameOrder() {
+		BillSplit split = split(List.of(luca, anna, marta), "100", "equal", List.of(), List.of());
+
+		assertThat(split.shares()).extracting(BillSplit.Share::name).containsExactly("Anna", "Luca", "marta");
+		assertThat(split.shares()).extracting(BillSplit.Share::amountMinor).containsExactly(3334L, 3333L, 3333L);
+		assertThat(split.totalMinor()).isEqualTo(10000);
+		// Stesso risultato qualunque sia l'ordine di lettura dei partecipanti
+		assertThat(split(List.of(marta, anna, luca), "100", "equal", List.of(), List.of())).isEqualTo(split);
+	}
+
+	@Test
+	void missingModeItemsAndExclusionsDefaultToAnEqualSplit() {
+		BillSplit split = BillSplitter.split(EVENT, List.of(anna, luca, marta), "EUR", new BigDecimal("90"), null, null, null);
+
+		assertThat(split.mode()).isEqualTo("equal");
+		assertThat(split.shares()).extracting(BillSplit.Share::amountMinor).containsExactly(3000L, 3000L, 3000L);
+	}
+
+	@Test
+	void weightedSplitUsesLargestRemainders() {
+		ParticipantDetails heavy = participant("Bruno", 1.5);
+		BillSplit split = split(List.of(anna, heavy, luca), "10", "weighted", List.of(), List.of());
+
+		// Quote esatte 2.857.., 4.285.., 2.857..: il centesimo in piu' va ai resti maggiori, a parita' in ordine
+		assertThat(split.shares()).extracting(BillSplit.Share::amountMinor).containsExactly(286L, 428L, 286L);
+		assertThat(BillSplitter.distribute(10, new long[] {1, 1, 1, 3})).containsExactly(2, 2, 1, 5);
+		assertThat(BillSplitter.distribute(Long.MAX_VALUE / 2, new long[] {3, 5}))
+				.containsExactly(1_729_382_256_910_270_464L, 2_882_303_761_517_117_439L);
+	}
+
+	@Test
+	void itemsGoToTheirConsumersAndTheRestIsSharedAmongIncluded() {
+		List<BillItem> items = List.of(
+				new BillItem("pizza", new BigDecimal("9.50"), List.of("anna")),
+				new BillItem("vino", new BigDecimal("10"), List.of(luca.id().toString(), "Marta")),
+				new BillItem("pane", new BigDecimal("1"), List.of()));
+		BillSplit split = split(List.of(anna, luca, marta), "25", "items", items, List.of("Luca"));
+
+		// pane tra Anna e Marta; 4.50 di differenza (servizio) tra Anna e Marta
+		assertThat(split.shares()).extracting(BillSplit.Share::amountMinor).containsExactly(1225L, 500L, 775L);
+		assertThat(split.shares()).extracting(BillSplit.Share::excluded).containsExactly(false, true, false);
+		assertThat(split.shares().stream().mapToLong(BillSplit.Share::amountMinor).sum()).isEqualTo(2500);
+		assertThat(split(List.of(anna, luca), null, "items", items.subList(0, 1), List.of()).totalMinor()).isEqualTo(950);
+	}
+
+	@Test
+	void sharesAlwaysSumToTheTotalForManyParticipants() {
+		List<ParticipantDetails> many = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			many.add(participant("P" + i, 1.0 + (i % 7) * 0.25));
+		}
+		for (String mode : List.of("equal", "weighted")) {
+			BillSplit split = split(many, "12345.67", mode, List.of(), List.of());
+			assertThat(split.shares().stream().mapToLong(BillSplit.Share::amountMinor).sum()).isEqualTo(1_234_567);
+		}
+	}
+
+	@Test
+	void usesTheCurrencyMinorUnitsWithoutFloatingPoint() {
+		BillSplit yen = BillSplitter.split(EVENT, List.of(anna, luca), "JPY", new BigDecimal("1001"), "equal", List.of(), List.of());
+
+		assertThat(yen.fractionDigits()).isZero();
+		assertThat(yen.shares()).extracting(BillSplit.Share::amountMinor).containsExactly(501L, 500L);
+		assertThat(BillSplitter.appendAmount(new StringBuilder(), 4505, 2)).hasToString("45.05");
+		assertThat(BillSplitter.appendAmount(new StringBuilder(), 7, 3)).hasToString("0.007");
+		assertThat(BillSplitter.appendAmount(new StringBuilder(), 1200, 0)).hasToString("1200");
+	}
+
+	@Test
+	void rejectsInvalidInput() {
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna), "10.005", "equal", List.of(), List.of()))
+				.withMessageContaining("decimali");
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna), "-1", "equal", List.of(), List.of()));
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna), null, "equal", List.of(), List.of()))
+				.withMessageContaining("budget");
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna, luca), "5", "items",
+				List.of(new BillItem("pizza", BigDecimal.TEN, List.of())), List.of())).withMessageContaining("inferiore");
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna), "5", "equal", List.of(), List.of("anna")))
+				.withMessage("Tutti i partecipanti sono esclusi.");
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna, participant("ANNA", 1)), "5", "equal",
+				List.of(), List.of("Anna"))).withMessageContaining("indicare l'id");
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna), "5", "equal", List.of(), List.of("Gino")))
+				.withMessage("Partecipante non trovato: Gino");
+		assertThatIllegalArgumentException().isThrownBy(() -> split(List.of(anna), "5", "percent", List.of(), List.of()));
+	}
+
+	private static BillSplit split(List<ParticipantDetails> participants, String total, String mode, List<BillItem> items,
+			List<String> excluded) {
+		return BillSplitter.split(EVENT, participants, "EUR", total != null ? new BigDecimal(total) : null, mode, items, excluded);
+	}
+
+	private static ParticipantDetails participant(String name, double weight) {
+		return new ParticipantDetails(UUID.randomUUID(), name, Set.of(), Set.of(), weight);
+	}
+}
@@ -0,0 +1,123 @@
+package com.server.eventi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.server.eventi.config.JpaQueryCounter;
+import com.server.eventi.mcp.EventiMcpTools;
+import com.server.mcp.McpTool;
+
+// Round trip verso il database per tool, contati con JpaQueryCounter su H2: i tool di lettura fanno
+// LOAD_QUERIES SELECT (evento con partecipanti, intolleranze, preferenze, aggregato) qualunque sia il
+// numero di partecipanti, e nessuno finche' l'evento e' in cache.
+@SpringBootTest(properties = "mcp.stdio-enabled=false")
+class EventiQueryCountTests {
+
+	private static final long LOAD_QUERIES = 4;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Autowired
+	private EventiMcpTools tools;
+
+	@Autowired
+	private EventCache cache;
+
+	private String eventId;
+	private String annaId;
+
+	@BeforeEach
+	void createEvent() throws Exception {
+		String created = text(call("create_event", mapper.createObjectNode()
+				.put("name", "Cena").put("date", "2025-06-20 20:00").put("location", "Milano")));
+		eventId = id(created);
+		ObjectNode anna = args().put("name", "Anna");
+		anna.putArray("intolerances").add("gluten-free");
+		anna.putArray("preferences").add("italiana");
+		annaId = id(text(call("add_participant", anna)));
+		ObjectNode luca = args().put("name", "Luca").put("weight", 2);
+		luca.putArray("intolerances").add("vegetariano");
+		call("add_participant", luca);
+		call("add_participant", args().put("name", "Marta"));
+	}
+
+	@Test
+	void readToolsLoadTheEventOnce() throws Exception {
+		cache.invalidate(UUID.fromString(eventId));
+		assertThat(queries("event_summary", args())).isEqualTo(LOAD_QUERIES);
+		assertThat(queries("suggest_restaurants", args())).isZero();
+		assertThat(queries("split_bill", args().put("total_amount", 90))).isZero();
+
+		cache.invalidate(UUID.fromString(eventId));
+		assertThat(queries("suggest_restaurants", args())).isEqualTo(LOAD_QUERIES);
+		cache.invalidate(UUID.fromString(eventId));
+		assertThat(queries("split_bill", args().put("total_amount", 90).put("mode", "weighted"))).isEqualTo(LOAD_QUERIES);
+		assertThat(queries("event_summary", args())).isZero();
+	}
+
+	@Test
+	void summaryQueriesDoNotGrowWithParticipantsOrTags() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			ObjectNode guest = args().put("name", "Ospite " + i);
+			guest.putArray("intolerances").add("gluten-free").add("lattosio");
+			guest.putArray("preferences").add("italiana").add("giapponese").add("pesce");
+			call("add_participant", guest);
+		}
+		cache.invalidate(UUID.fromString(eventId));
+		AtomicLong count = new AtomicLong();
+		String summary = JpaQueryCounter.measure(() -> text(call("event_summary", args())), count::set);
+
+		assertThat(summary).contains("- Anna (intolleranze: gluten-free, preferenze: italiana, peso: 1.0)",
+				"- Luca (intolleranze: vegetariano, preferenze: nessuna, peso: 2.0)",
+				"- Marta (intolleranze: nessuna, preferenze: nessuna, peso: 1.0)",
+				"- Ospite 19 (");
+		assertThat(count.get()).isEqualTo(LOAD_QUERIES);
+	}
+
+	@Test
+	void writesInvalidateTheCachedEvent() throws Exception {
+		assertThat(text(call("event_summary", args()))).contains("Anna (intolleranze: gluten-free");
+		assertThat(queries("event_summary", args())).isZero();
+
+		ObjectNode update = args().put("participant_id", annaId);
+		update.putArray("intolerances").add("vegano");
+		call("update_preferences", update);
+		assertThat(text(call("event_summary", args()))).contains("Anna (intolleranze: vegano");
+
+		call("add_participant", args().put("name", "Paolo"));
+		assertThat(text(call("split_bill", args().put("total_amount", 100)))).contains("Paolo: 25.00");
+	}
+
+	private long queries(String tool, ObjectNode arguments) throws Exception {
+		AtomicLong count = new AtomicLong();
+		JpaQueryCounter.measure(() -> call(tool, arguments), count::set);
+		return count.get();
+	}
+
+	private JsonNode call(String name, ObjectNode arguments) throws Exception {
+		McpTool tool = tools.tools().stream().filter(t -> t.name().equals(name)).findFirst().orElseThrow();
+		return (JsonNode) tool.handler().call(arguments);
+	}
+
+	private ObjectNode args() {
+		return mapper.createObjectNode().put("event_id", eventId);
+	}
+
+	private static String text(JsonNode response) {
+		return response.at("/content/0/text").asText();
+	}
+
+	private static String id(String text) {
+		return text.substring(text.indexOf("id=") + 3, text.indexOf(')', text.indexOf("id=")));
+	}
+}
@@ -0,0 +1,72 @@
+package com.server.eventi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.server.eventi.dto.EventDetails;
+
+// Database creato dalla versione con i campi CSV: le colonne legacy esistono accanto alle tabelle dei tag.
+@SpringBootTest(properties = "mcp.stdio-enabled=false")
+class LegacyDietaryBackfillTests {
+
+	@Autowired
+	private EventiService service;
+
+	@Autowired
+	private LegacyDietaryBackfill backfill;
+
+	@Autowired
+	private DataSource dataSource;
+
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void addLegacyColumns() {
+		jdbc = new JdbcTemplate(dataSource);
+		jdbc.execute("alter table participants add column intolerances varchar(512)");
+		jdbc.execute("alter table participants add column preferences varchar(512)");
+	}
+
+	@AfterEach
+	void dropLegacyColumns() {
+		jdbc.execute("alter table participants drop column intolerances");
+		jdbc.execute("alter table participants drop column preferences");
+	}
+
+	@Test
+	void migratesCsvColumnsToTagsAndRebuildsTheEventProfile() throws Exception {
+		UUID eventId = service.createEvent("Cena", "2025-06-20 20:00", "Milano", null, null, null).getId();
+		service.addParticipant(eventId, "Nuova", List.of("vegano"), List.of(), null);
+		UUID legacyId = service.addParticipant(eventId, "Vecchio", List.of(), List.of(), null).getId();
+		jdbc.update("update participants set intolerances = ?, preferences = ? where name = ?",
+				"Glutine, lattosio,,", "italiana", "Vecchio");
+		assertThat(service.getEventDetails(eventId).intoleranceTags()).hasSize(1);
+
+		assertThat(backfill.run()).isEqualTo(1);
+
+		EventDetails event = service.getEventDetails(eventId);
+		assertThat(service.resolveTags(event.intoleranceTags()).values())
+				.containsExactlyInAnyOrder("glutine", "lattosio", "vegano");
+		Map<Integer, String> preferences = service.resolveTags(event.preferenceCounts().keySet());
+		assertThat(preferences.values()).containsExactly("italiana");
+		assertThat(event.participants()).filteredOn(p -> p.id().equals(legacyId)).singleElement()
+				.satisfies(p -> assertThat(p.intoleranceTags()).hasSize(2));
+		assertThat(jdbc.queryForObject("select count(*) from participants where intolerances is not null", Integer.class))
+				.isZero();
+
+		// Una tantum: al secondo avvio non resta nulla da migrare
+		assertThat(backfill.run()).isZero();
+	}
+}
@@ -0,0 +1,173 @@
+package com.server.mcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class McpDispatcherTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final McpProperties properties = new McpProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final McpMetrics metrics = new McpMetrics(meterRegistry);
+	private final McpTracing tracing = new McpTracing(properties, mapper);
+	private final McpResourceRegistry resources = new McpResourceRegistry(List.of(), mapper);
+	private final McpToolProvider echo = () -> List.of(McpTool.blocking("echo", "Ripete il testo",
+			mapper.createObjectNode().put("type", "object"), args -> Map.of("text", args.path("text").asText())));
+	private final McpDispatcher dispatcher = new McpDispatcher(
+			new McpToolRegistry(List.of(echo), resources, mapper, properties), resources, mapper, properties, metrics, tracing);
+
+	@Test
+	void precomputedResultsAreSplicedWithTheRequestId() throws Exception {
+		String toolsList = mapper.writeValueAsString(dispatch("{\"jsonrpc\":\"2.0\",\"id\":\"a-1\",\"method\":\"tools/list\"}"));
+		assertThat(mapper.readTree(toolsList)).isEqualTo(mapper.readTree("""
+				{"jsonrpc":"2.0","id":"a-1","result":{"tools":[
+				  {"name":"echo","description":"Ripete il testo","inputSchema":{"type":"object"}}]}}
+				"""));
+
+		String initialize = mapper.writeValueAsString(dispatch("{\"jsonrpc\":\"2.0\",\"id\":42,\"method\":\"initialize\"}"));
+		assertThat(mapper.readTree(initialize).path("id").asInt()).isEqualTo(42);
+		assertThat(mapper.readTree(initialize).at("/result/serverInfo/name").asText()).isEqualTo("demojava-mcp");
+	}
+
+	@Test
+	void callsToolsAndMapsErrors() throws Exception {
+		assertThat(dispatch("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\","
+				+ "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"ciao\"}}}").at("/result/text").asText())
+				.isEqualTo("ciao");
+		assertThat(dispatch("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"nope\"}}")
+				.at("/error/code").asInt()).isEqualTo(-32602);
+		assertThat(dispatch("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"resources/list\"}").at("/error/code").asInt())
+				.isEqualTo(-32601);
+	}
+
+	@Test
+	void reportsToolFailuresAsResultsAndNeverAnswersNotifications() throws Exception {
+		List<String> calls = new ArrayList<>();
+		McpToolProvider events = () -> List.of(McpTool.blocking("find_event", "Cerca un evento",
+				mapper.createObjectNode().put("type", "object"), args -> {
+					calls.add(args.path("id").asText());
+					throw new IllegalArgumentException("Evento non trovato: " + args.path("id").asText());
+				}));
+		McpDispatcher withEvents = new McpDispatcher(
+				new McpToolRegistry(List.of(events), resources, mapper, properties), resources, mapper, properties, metrics, tracing);
+
+		JsonNode failed = withEvents.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\","
+				+ "\"params\":{\"name\":\"find_event\",\"arguments\":{\"id\":\"x\"}}}"), new McpSession("test")).block();
+		assertThat(failed.has("error")).isFalse();
+		assertThat(failed.at("/result/isError").asBoolean()).isTrue();
+		assertThat(failed.at("/result/content/0/text").asText()).isEqualTo("Evento non trovato: x");
+		assertThat(meterRegistry.get("mcp.requests").tags("tool", "find_event", "outcome", "error").timer().count()).isEqualTo(1);
+
+		// Senza id e' una notifica, qualunque sia il metodo: nessuna risposta e nessuna esecuzione
+		assertThat(withEvents.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"method\":\"tools/call\","
+				+ "\"params\":{\"name\":\"find_event\",\"arguments\":{\"id\":\"y\"}}}"), new McpSession("test")).block()).isNull();
+		assertThat(withEvents.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"method\":\"ping\"}"), new McpSession("test")).block())
+				.isNull();
+		assertThat(calls).containsExactly("x");
+	}
+
+	@Test
+	void recordsLatencyAndErrorCodesPerMethodAndTool() throws Exception {
+		dispatch("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\","
+				+ "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"ciao\"}}}");
+		dispatch("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"nope\"}}");
+		dispatch("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"inventato/123\"}");
+
+		assertThat(meterRegistry.get("mcp.requests").tags("tool", "echo", "outcome", "ok").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("mcp.requests").tags("tool", "unknown", "outcome", "error").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("mcp.errors").tags("method", "tools/call", "code", "-32602").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("mcp.errors").tags("method", "unknown", "code", "-32601").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("mcp.requests.active").tags("tool", "echo").longTaskTimer().activeTasks()).isZero();
+	}
+
+	@Test
+	void returnsTimingBreakdownOnlyWhenRequested() throws Exception {
+		McpToolProvider traced = () -> List.of(McpTool.reactive("traced", "Tool con uno span interno",
+				mapper.createObjectNode().put("type", "object"),
+				args -> tracing.span("traced.work", () -> Map.of("text", "ok"))));
+		McpDispatcher withTracedTool = new McpDispatcher(
+				new McpToolRegistry(List.of(traced), resources, mapper, properties), resources, mapper, properties, metrics, tracing);
+
+		JsonNode plain = withTracedTool.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\","
+				+ "\"params\":{\"name\":\"traced\"}}"), new McpSession("test")).block();
+		assertThat(plain.at("/result/_meta").isMissingNode()).isTrue();
+
+		JsonNode timed = withTracedTool.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\","
+				+ "\"params\":{\"name\":\"traced\",\"_meta\":{\"timing\":true}}}"), new McpSession("test")).block();
+		JsonNode timing = timed.at("/result/_meta/timing");
+		assertThat(timed.at("/result/text").asText()).isEqualTo("ok");
+		assertThat(timing.path("traceId").asText()).hasSize(32);
+		assertThat(timing.path("spans")).hasSize(1);
+		assertThat(timing.at("/spans/0/name").asText()).isEqualTo("traced.work");
+		assertThat(timing.at("/spans/0/attributes/jsonrpc.id").asText()).isEqualTo("7");
+		assertThat(timing.at("/spans/0/attributes/mcp.tool").asText()).isEqualTo("traced");
+	}
+
+	@Test
+	void subscribedResourcesPushUpdatesUntilUnsubscribed() throws Exception {
+		Sinks.Many<Map<String, Object>> changes = Sinks.many().multicast().directBestEffort();
+		McpResourceProvider alerts = new McpResourceProvider() {
+			public List<McpResourceTemplate> templates() {
+				return List.of(new McpResourceTemplate("test://alerts/{area}", "Allerte", "Allerte di prova", "application/json"));
+			}
+
+			public List<McpResource> resources() {
+				return List.of(new McpResource("test://alerts/CA", "Allerte CA", null, "application/json"));
+			}
+
+			public boolean supports(String uri) {
+				return uri.startsWith("test://alerts/");
+			}
+
+			public Mono<McpResourceContents> read(String uri) {
+				return Mono.just(new McpResourceContents(uri, "application/json", "[]"));
+			}
+
+			public Flux<Map<String, Object>> updates(String uri) {
+				return changes.asFlux();
+			}
+		};
+		McpResourceRegistry registry = new McpResourceRegistry(List.of(alerts), mapper);
+		McpDispatcher withResources = new McpDispatcher(
+				new McpToolRegistry(List.of(echo), registry, mapper, properties), registry, mapper, properties, metrics, tracing);
+		McpSession session = new McpSession("test");
+		List<JsonNode> pushed = new ArrayList<>();
+		session.outbound().subscribe(pushed::add);
+
+		JsonNode initialize = mapper.readTree(mapper.writeValueAsString(withResources.dispatch(
+				mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\"}"), session).block()));
+		assertThat(initialize.at("/result/capabilities/resources/subscribe").asBoolean()).isTrue();
+		assertThat(withResources.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"resources/read\","
+				+ "\"params\":{\"uri\":\"test://alerts/CA\"}}"), session).block().at("/result/contents/0/text").asText())
+				.isEqualTo("[]");
+		withResources.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"resources/subscribe\","
+				+ "\"params\":{\"uri\":\"test://alerts/CA\"}}"), session).block();
+		changes.tryEmitNext(Map.of("removed", List.of("urn:1")));
+		withResources.dispatch(mapper.readTree("{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"resources/unsubscribe\","
+				+ "\"params\":{\"uri\":\"test://alerts/CA\"}}"), session).block();
+		changes.tryEmitNext(Map.of("removed", List.of("urn:2")));
+
+		assertThat(pushed).hasSize(1);
+		assertThat(pushed.get(0).path("method").asText()).isEqualTo("notifications/resources/updated");
+		assertThat(pushed.get(0).at("/params/uri").asText()).isEqualTo("test://alerts/CA");
+		assertThat(pushed.get(0).at("/params/removed/0").asText()).isEqualTo("urn:1");
+	}
+
+	private JsonNode dispatch(String request) throws Exception {
+		return dispatcher.dispatch(mapper.readTree(request), new McpSession("test")).block();
+	}
+}
@@ -0,0 +1,110 @@
+package com.server.mcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class McpFramingTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void contentLengthCountsBytesAcrossShortReads() throws Exception {
+		String body = "{\"id\":1,\"text\":\"caffè più città\"}";
+		byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+		String stream = "Content-Length: " + bodyBytes.length + "\r\n\r\n" + body
+				+ "{\"id\":2,\"text\":\"perché\"}\n";
+
+		McpFrameReader reader = new McpFrameReader(trickle(stream.getBytes(StandardCharsets.UTF_8)), 64);
+
+		McpFrameReader.Frame first = reader.next();
+		assertThat(first.contentLength()).isTrue();
+		assertThat(mapper.readTree(first.array(), first.offset(), first.length()).path("text").asText())
+				.isEqualTo("caffè più città");
+
+		McpFrameReader.Frame second = reader.next();
+		assertThat(second.contentLength()).isFalse();
+		assertThat(mapper.readTree(second.array(), second.offset(), second.length()).path("text").asText())
+				.isEqualTo("perché");
+
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void oversizedFramesAreSkippedAndReadingResumes() throws Exception {
+		String big = "{\"id\":1,\"text\":\"" + "x".repeat(200) + "\"}";
+		String stream = "Content-Length: " + big.length() + "\r\n\r\n" + big
+				+ "{\"id\":2}\n"
+				+ big + "\n"
+				+ "Content-Length: 8\r\n\r\n{\"id\":3}";
+
+		McpFrameReader reader = new McpFrameReader(trickle(stream.getBytes(StandardCharsets.UTF_8)), 64);
+
+		McpFrameReader.Frame skipped = reader.next();
+		assertThat(skipped.oversized()).isTrue();
+		assertThat(skipped.contentLength()).isTrue();
+		assertThat(skipped.length()).isEqualTo(big.length());
+		assertThat(id(reader.next())).isEqualTo(2);
+		McpFrameReader.Frame line = reader.next();
+		assertThat(line.oversized()).isTrue();
+		assertThat(line.contentLength()).isFalse();
+		assertThat(id(reader.next())).isEqualTo(3);
+		assertThat(reader.next()).isNull();
+	}
+
+	@Test
+	void writerFramesResponsesWithByteLength() throws Exception {
+		ByteArrayOutputStream sink = new ByteArrayOutputStream();
+		McpFrameWriter writer = new McpFrameWriter(Channels.newChannel(sink), mapper);
+		JsonNode message = mapper.createObjectNode().put("text", "attività già svolte");
+
+		writer.write(message, true);
+		writer.write(message, false);
+
+		byte[] json = mapper.writeValueAsBytes(message);
+		String expected = "Content-Length: " + json.length + "\r\n\r\n" + new String(json, StandardCharsets.UTF_8)
+				+ new String(json, StandardCharsets.UTF_8) + "\n";
+		assertThat(sink.toString(StandardCharsets.UTF_8)).isEqualTo(expected);
+	}
+
+	private int id(McpFrameReader.Frame frame) throws Exception {
+		assertThat(frame.oversized()).isFalse();
+		return mapper.readTree(frame.array(), frame.offset(), frame.length()).path("id").asInt();
+	}
+
+	// Canale che restituisce al massimo 3 byte per read, per simulare letture parziali dalla pipe.
+	private ReadableByteChannel trickle(byte[] data) {
+		return new ReadableByteChannel() {
+			private int pos;
+
+			@Override
+			public int read(ByteBuffer dst) {
+				if (pos >= data.length) {
+					return -1;
+				}
+				int n = Math.min(3, Math.min(dst.remaining(), data.length - pos));
+				dst.put(data, pos, n);
+				pos += n;
+				return n;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+}
@@ -0,0 +1,153 @@
+package com.server.mcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class McpHttpControllerTests {
+
+	private static final String ACCEPT_BOTH = "application/json, text/event-stream";
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final McpProperties properties = new McpProperties();
+	private final McpMetrics metrics = new McpMetrics(new SimpleMeterRegistry());
+	private final McpTracing tracing = new McpTracing(properties, mapper);
+	private final McpResourceRegistry resources = new McpResourceRegistry(List.of(), mapper);
+	private final McpToolProvider echo = () -> List.of(McpTool.blocking("echo", "Ripete il testo",
+			mapper.createObjectNode().put("type", "object"), args -> Map.of("text", args.path("text").asText())));
+	private final McpDispatcher dispatcher = new McpDispatcher(
+			new McpToolRegistry(List.of(echo), resources, mapper, properties), resources, mapper, properties, metrics, tracing);
+	private final McpHttpSessions sessions = new McpHttpSessions(properties);
+	private final MockMvc mvc = MockMvcBuilders
+			.standaloneSetup(new McpHttpController(dispatcher, sessions, mapper, properties))
+			.build();
+
+	@Test
+	void initializeOpensASessionUsedByLaterBatches() throws Exception {
+		MvcResult init = dispatch(request(null, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}"));
+		assertThat(init.getResponse().getStatus()).isEqualTo(200);
+		String sessionId = init.getResponse().getHeader(McpHttpController.SESSION_HEADER);
+		assertThat(sessionId).isNotBlank();
+
+		MvcResult batch = dispatch(request(sessionId, """
+				[{"jsonrpc":"2.0","id":2,"method":"tools/call","params":{"name":"echo","arguments":{"text":"ciao"}}},
+				 {"jsonrpc":"2.0","method":"notifications/initialized"},
+				 {"jsonrpc":"2.0","id":3,"method":"ping"}]
+				"""));
+		JsonNode responses = mapper.readTree(batch.getResponse().getContentAsByteArray());
+		assertThat(responses).hasSize(2);
+		assertThat(responses.get(0).at("/result/text").asText()).isEqualTo("ciao");
+		assertThat(responses.get(1).path("id").asInt()).isEqualTo(3);
+
+		MvcResult notification = dispatch(request(sessionId, "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}"));
+		assertThat(notification.getResponse().getStatus()).isEqualTo(202);
+	}
+
+	@Test
+	void rejectsMissingAndUnknownSessions() throws Exception {
+		assertThat(dispatch(request(null, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\"}"))
+				.getResponse().getStatus()).isEqualTo(400);
+		assertThat(dispatch(request("sconosciuta", "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\"}"))
+				.getResponse().getStatus()).isEqualTo(404);
+	}
+
+	@Test
+	void failedInitializeDoesNotKeepASession() throws Exception {
+		// initialize senza id e' una notifica: nessuna risposta, quindi nessuna sessione da restituire
+		MvcResult init = dispatch(request(null, "{\"jsonrpc\":\"2.0\",\"method\":\"initialize\",\"params\":{}}"));
+		assertThat(init.getResponse().getStatus()).isEqualTo(202);
+		assertThat(init.getResponse().getHeader(McpHttpController.SESSION_HEADER)).isNull();
+		assertThat(sessions.size()).isZero();
+	}
+
+	@Test
+	void concurrentCreatesNeverExceedMaxSessions() throws Exception {
+		properties.getHttp().setMaxSessions(4);
+		McpHttpSessions limited = new McpHttpSessions(properties);
+		ExecutorService pool = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<McpSession>> created = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				created.add(pool.submit(() -> {
+					start.await();
+					return limited.create();
+				}));
+			}
+			start.countDown();
+			int opened = 0;
+			for (Future<McpSession> session : created) {
+				opened += session.get() != null ? 1 : 0;
+			}
+			assertThat(opened).isEqualTo(4);
+			assertThat(limited.size()).isEqualTo(4);
+		} finally {
+			pool.shutdownNow();
+			limited.destroy();
+		}
+	}
+
+	@Test
+	void rejectsOriginsOutsideTheAllowList() throws Exception {
+		properties.getHttp().setAllowedOrigins(List.of("http://localhost:6274/"));
+		MockMvc guarded = MockMvcBuilders
+				.standaloneSetup(new McpHttpController(dispatcher, new McpHttpSessions(properties), mapper, properties))
+				.build();
+		String initialize = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}";
+
+		MvcResult rebinding = dispatch(guarded, request(null, initialize).header("Origin", "http://attacker.example"));
+		assertThat(rebinding.getResponse().getStatus()).isEqualTo(403);
+		assertThat(rebinding.getResponse().getHeader(McpHttpController.SESSION_HEADER)).isNull();
+		assertThat(guarded.perform(get("/mcp").accept(MediaType.TEXT_EVENT_STREAM).header("Origin", "null")
+				.header(McpHttpController.SESSION_HEADER, "qualsiasi")).andReturn().getResponse().getStatus()).isEqualTo(403);
+		assertThat(guarded.perform(delete("/mcp").header("Origin", "http://attacker.example")
+				.header(McpHttpController.SESSION_HEADER, "qualsiasi")).andReturn().getResponse().getStatus()).isEqualTo(403);
+
+		MvcResult inspector = dispatch(guarded, request(null, initialize).header("Origin", "http://LOCALHOST:6274"));
+		assertThat(inspector.getResponse().getStatus()).isEqualTo(200);
+		assertThat(mapper.readTree(inspector.getResponse().getContentAsByteArray()).at("/result/protocolVersion").asText())
+				.isEqualTo("2025-03-26");
+		// Senza Origin (client non browser) la richiesta passa
+		assertThat(dispatch(guarded, request(null, initialize)).getResponse().getStatus()).isEqualTo(200);
+	}
+
+	private MockHttpServletRequestBuilder request(String sessionId, String body) {
+		MockHttpServletRequestBuilder request = post("/mcp")
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(ACCEPT_BOTH)
+				.content(body);
+		return sessionId != null ? request.header(McpHttpController.SESSION_HEADER, sessionId) : request;
+	}
+
+	private MvcResult dispatch(MockHttpServletRequestBuilder request) throws Exception {
+		return dispatch(mvc, request);
+	}
+
+	private static MvcResult dispatch(MockMvc mvc, MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult started = mvc.perform(request).andExpect(status().is2xxSuccessful()).andReturn();
+		return mvc.perform(asyncDispatch(started)).andReturn();
+	}
+}
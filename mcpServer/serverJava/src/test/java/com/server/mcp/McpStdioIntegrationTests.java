@@ -0,0 +1,187 @@
+package com.server.mcp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Pilota un server MCP gia' costruito (eseguibile nativo o java -jar) via stdio, con NWS sostituito da
+// uno stub locale che serve risposte registrate da src/test/resources/nws.
+// Gira solo se mcp.stdio.command e' impostato, es. dal profilo native:
+//   mvn -Pnative verify
+//   mvn test -Dtest=McpStdioIntegrationTests -Dmcp.stdio.command="java -Dspring.profiles.active=stdio -jar target/demojava-0.0.1-SNAPSHOT.jar"
+@EnabledIfSystemProperty(named = "mcp.stdio.command", matches = ".+")
+class McpStdioIntegrationTests {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final AtomicInteger ids = new AtomicInteger();
+
+	private static HttpServer nws;
+	private static Process process;
+	private static OutputStream stdin;
+	private static BufferedReader stdout;
+
+	@BeforeAll
+	static void start() throws IOException {
+		nws = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		String base = "http://127.0.0.1:" + nws.getAddress().getPort();
+		nws.createContext("/points/", exchange -> reply(exchange, fixture("points.json").replace("{{base}}", base)));
+		nws.createContext("/gridpoints/", exchange -> reply(exchange, fixture("forecast.json")));
+		nws.createContext("/alerts/active/area/CA", exchange -> reply(exchange, fixture("alerts-ca.json")));
+		nws.start();
+
+		List<String> command = new ArrayList<>(List.of(System.getProperty("mcp.stdio.command").trim().split("\\s+")));
+		command.addAll(List.of("--weather.api-base=" + base, "--weather.alerts.poll-enabled=false",
+				"--weather.http.prewarm-connections=0", "--weather.gridpoint-index.enabled=false"));
+		process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+		stdin = process.getOutputStream();
+		stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+		call("initialize", mapper.createObjectNode());
+	}
+
+	@AfterAll
+	static void stop() throws InterruptedException {
+		if (process != null) {
+			process.destroy();
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+		if (nws != null) {
+			nws.stop(0);
+		}
+	}
+
+	@Test
+	void listsWeatherAndEventiTools() throws IOException {
+		JsonNode tools = call("tools/list", null).at("/result/tools");
+		List<String> names = new ArrayList<>();
+		tools.forEach(tool -> names.add(tool.path("name").asText()));
+		assertThat(names).contains("get_alerts", "get_forecast", "get_forecast_batch", "create_event", "split_bill");
+	}
+
+	@Test
+	void forecastComesFromRecordedNwsResponses() throws IOException {
+		String text = text(tool("get_forecast", mapper.createObjectNode().put("latitude", 38.8894).put("longitude", -77.0352)));
+		assertThat(text).contains("Ufficio: LWX", "Grid point: 97,71", "This Afternoon", "Temperatura: 88", "Friday");
+	}
+
+	@Test
+	void alertsComeFromRecordedNwsResponses() throws IOException {
+		String text = text(tool("get_alerts", mapper.createObjectNode().put("state", "CA")));
+		assertThat(text).contains("Evento: Heat Advisory", "Severita': Moderate", "San Fernando Valley");
+	}
+
+	@Test
+	void eventiToolsRoundTripThroughJpa() throws IOException {
+		String created = text(tool("create_event", mapper.createObjectNode()
+				.put("name", "Cena").put("date", "2025-06-20 20:00").put("location", "Milano")));
+		String eventId = created.substring(created.indexOf("id=") + 3, created.indexOf(')', created.indexOf("id=")));
+
+		ObjectNode anna = mapper.createObjectNode().put("event_id", eventId).put("name", "Anna");
+		anna.putArray("intolerances").add("gluten-free");
+		String added = text(tool("add_participant", anna));
+		assertThat(added).startsWith("Aggiunto Anna");
+		String annaId = added.substring(added.indexOf("id=") + 3, added.indexOf(')', added.indexOf("id=")));
+		assertThat(text(tool("add_participant", mapper.createObjectNode().put("event_id", eventId).put("name", "Luca"))))
+				.startsWith("Aggiunto Luca");
+
+		assertThat(text(tool("event_summary", mapper.createObjectNode().put("event_id", eventId))))
+				.contains("Evento: Cena", "- Anna (intolleranze: gluten-free", "- Luca");
+		assertThat(text(tool("suggest_restaurants", mapper.createObjectNode().put("event_id", eventId))))
+				.contains("Trattoria Verde");
+		assertThat(text(tool("split_bill", mapper.createObjectNode().put("event_id", eventId).put("total_amount", 90))))
+				.contains("Anna: 45.00 EUR", "Luca: 45.00 EUR", "Totale: 90.00 EUR");
+		String json = text(tool("split_bill", mapper.createObjectNode().put("event_id", eventId)
+				.put("total_amount", 100.01).put("format", "json")));
+		assertThat(json).contains("\"total\":100.01", "\"amount\":50.01", "\"amount\":50.00");
+		assertThat(mapper.readTree(json).path("shares").findValuesAsText("amount_minor")).containsExactly("5001", "5000");
+
+		// L'aggregato dell'evento segue le modifiche: solo Veggie Mood e' vegano a Milano
+		ObjectNode update = mapper.createObjectNode().put("event_id", eventId).put("participant_id", annaId);
+		update.putArray("intolerances").add("Vegano");
+		assertThat(text(tool("update_preferences", update))).startsWith("Aggiornato Anna");
+		assertThat(text(tool("suggest_restaurants", mapper.createObjectNode().put("event_id", eventId))))
+				.contains("Veggie Mood").doesNotContain("Trattoria Verde");
+	}
+
+	@Test
+	void eventsAreGeolocatedAndSuggestionsRankedByDistance() throws IOException {
+		// Luogo con un refuso: il gazetteer trova comunque Sesto San Giovanni
+		String created = text(tool("create_event", mapper.createObjectNode()
+				.put("name", "Pranzo").put("date", "2025-06-21 13:00").put("location", "Piazza Petazzi, Sesto San Giovani")));
+		assertThat(created).contains("Coordinate: 45.535, 9.2308");
+		String eventId = created.substring(created.indexOf("id=") + 3, created.indexOf(')', created.indexOf("id=")));
+
+		String near = text(tool("suggest_restaurants", mapper.createObjectNode().put("event_id", eventId).put("radius_km", 10)));
+		assertThat(near).startsWith("Trattoria Verde").contains("Veggie Mood", "distanza: 6.").doesNotContain("Sushi Line");
+		assertThat(text(tool("suggest_restaurants", mapper.createObjectNode().put("event_id", eventId).put("radius_km", 1))))
+				.contains("Bistro Locale").doesNotContain("distanza");
+	}
+
+	private static JsonNode tool(String name, ObjectNode arguments) throws IOException {
+		ObjectNode params = mapper.createObjectNode().put("name", name);
+		params.set("arguments", arguments);
+		JsonNode response = call("tools/call", params);
+		assertThat(response.has("error")).as("errore da %s: %s", name, response).isFalse();
+		return response;
+	}
+
+	private static String text(JsonNode response) {
+		return response.at("/result/content/0/text").asText();
+	}
+
+	// Le risposte possono arrivare fuori ordine o intercalate a notifiche: si legge fino all'id atteso.
+	private static synchronized JsonNode call(String method, JsonNode params) throws IOException {
+		int id = ids.incrementAndGet();
+		ObjectNode request = mapper.createObjectNode().put("jsonrpc", "2.0").put("id", id).put("method", method);
+		if (params != null) {
+			request.set("params", params);
+		}
+		stdin.write((mapper.writeValueAsString(request) + "\n").getBytes(StandardCharsets.UTF_8));
+		stdin.flush();
+		String line;
+		while ((line = stdout.readLine()) != null) {
+			JsonNode message = mapper.readTree(line);
+			if (message.path("id").asInt(-1) == id) {
+				return message;
+			}
+		}
+		throw new IllegalStateException("Processo MCP terminato prima di rispondere a " + method);
+	}
+
+	private static String fixture(String name) throws IOException {
+		try (InputStream in = McpStdioIntegrationTests.class.getResourceAsStream("/nws/" + name)) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static void reply(HttpExchange exchange, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/geo+json");
+		exchange.sendResponseHeaders(200, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+}
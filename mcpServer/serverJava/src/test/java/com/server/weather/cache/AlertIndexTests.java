@@ -0,0 +1,59 @@
+package com.server.weather.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.server.weather.model.Alert;
+import com.server.weather.model.AlertSeverity;
+
+class AlertIndexTests {
+
+	@Test
+	void queriesByStateAndZoneWithMinimumSeverity() {
+		Alert heat = alert("heat", "Moderate", "CAZ310", "CAZ311");
+		Alert flood = alert("flood", "Severe", "CAZ310", "NVZ002");
+		Alert fog = alert("fog", "Minor", "NYZ072");
+		AlertIndex index = new AlertIndex();
+		assertThat(index.isFresh(Duration.ofMinutes(5))).isFalse();
+
+		index.replace(List.of(heat, flood, fog));
+
+		assertThat(index.isFresh(Duration.ofMinutes(5))).isTrue();
+		assertThat(index.query(List.of("CA"), AlertSeverity.UNKNOWN)).containsExactly(flood, heat);
+		assertThat(index.query(List.of("CA"), AlertSeverity.SEVERE)).containsExactly(flood);
+		assertThat(index.query(List.of("CAZ311"), AlertSeverity.UNKNOWN)).containsExactly(heat);
+		assertThat(index.query(List.of("NY", "CA", "NV"), AlertSeverity.MINOR)).containsExactly(flood, heat, fog);
+		assertThat(index.query(List.of("TX"), AlertSeverity.UNKNOWN)).isEmpty();
+
+		index.confirm();
+		assertThat(index.stats().states()).isEqualTo(3);
+		assertThat(index.stats().notModified()).isEqualTo(1);
+	}
+
+	@Test
+	void publishesPerAreaDiffsOnRefresh() {
+		Alert heat = alert("heat", "Moderate", "CAZ310");
+		Alert flood = alert("flood", "Severe", "CAZ311");
+		Alert fog = alert("fog", "Minor", "NYZ072");
+		AlertIndex index = new AlertIndex();
+		List<AlertIndex.AlertDiff> diffs = new ArrayList<>();
+		index.changes("CA").subscribe(diffs::add);
+
+		index.replace(List.of(heat, fog));
+		index.replace(List.of(heat, fog));
+		index.replace(List.of(flood));
+
+		assertThat(diffs).containsExactly(
+				new AlertIndex.AlertDiff(List.of(heat), List.of()),
+				new AlertIndex.AlertDiff(List.of(flood), List.of("heat")));
+	}
+
+	private static Alert alert(String id, String severity, String... zones) {
+		return new Alert(id, "Area", severity, "Descrizione", "Istruzioni", id, List.of(zones));
+	}
+}
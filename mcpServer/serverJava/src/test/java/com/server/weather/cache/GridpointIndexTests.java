@@ -0,0 +1,115 @@
+package com.server.weather.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.server.weather.config.WeatherClientProperties;
+import com.server.weather.model.Gridpoint;
+
+class GridpointIndexTests {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void nearbyCoordinatesShareCellAndSurviveRestart() {
+		WeatherClientProperties properties = new WeatherClientProperties();
+		properties.getGridpointIndex().setFile(tempDir.resolve("gridpoints.idx").toString());
+		Gridpoint sanFrancisco = new Gridpoint("https://api.weather.gov/gridpoints/MTR/85,105/forecast", "MTR", 85, 105);
+
+		GridpointIndex index = new GridpointIndex(properties);
+		assertThat(index.lookup(37.7749, -122.4194)).isNull();
+		index.record(37.7749, -122.4194, sanFrancisco);
+		assertThat(index.lookup(37.7731, -122.4171)).isEqualTo(sanFrancisco);
+
+		GridpointIndex reloaded = new GridpointIndex(properties);
+		assertThat(reloaded.lookup(37.7749, -122.4194)).isEqualTo(sanFrancisco);
+		assertThat(reloaded.lookup(40.7128, -74.0060)).isNull();
+		assertThat(reloaded.stats().hitRatio()).isEqualTo(0.5);
+	}
+
+	@Test
+	void tornTrailingRecordIsTruncatedBeforeAppending() throws Exception {
+		WeatherClientProperties properties = new WeatherClientProperties();
+		Path file = tempDir.resolve("gridpoints.idx");
+		properties.getGridpointIndex().setFile(file.toString());
+		Gridpoint sanFrancisco = new Gridpoint("https://api.weather.gov/gridpoints/MTR/85,105/forecast", "MTR", 85, 105);
+		Gridpoint newYork = new Gridpoint("https://api.weather.gov/gridpoints/OKX/33,35/forecast", "OKX", 33, 35);
+
+		new GridpointIndex(properties).record(37.7749, -122.4194, sanFrancisco);
+		long aligned = Files.size(file);
+		// Crash a meta' di un append: 7 byte di un record da 20
+		Files.write(file, new byte[7], StandardOpenOption.APPEND);
+
+		GridpointIndex restarted = new GridpointIndex(properties);
+		assertThat(Files.size(file)).isEqualTo(aligned);
+		restarted.record(40.7128, -74.0060, newYork);
+
+		GridpointIndex reloaded = new GridpointIndex(properties);
+		assertThat(reloaded.lookup(37.7749, -122.4194)).isEqualTo(sanFrancisco);
+		assertThat(reloaded.lookup(40.7128, -74.0060)).isEqualTo(newYork);
+		assertThat(reloaded.stats().size()).isEqualTo(2);
+	}
+
+	@Test
+	void rebuildingASharedFileKeepsOtherWritersAligned() throws Exception {
+		Path file = tempDir.resolve("gridpoints.idx");
+		WeatherClientProperties properties = new WeatherClientProperties();
+		properties.getGridpointIndex().setFile(file.toString());
+		WeatherClientProperties coarse = new WeatherClientProperties();
+		coarse.getGridpointIndex().setFile(file.toString());
+		coarse.getGridpointIndex().setResolution(0.05);
+		Gridpoint sanFrancisco = new Gridpoint("https://api.weather.gov/gridpoints/MTR/85,105/forecast", "MTR", 85, 105);
+		Gridpoint newYork = new Gridpoint("https://api.weather.gov/gridpoints/OKX/33,35/forecast", "OKX", 33, 35);
+
+		GridpointIndex running = new GridpointIndex(properties);
+		running.record(37.7749, -122.4194, sanFrancisco);
+		// Un altro processo con un'altra risoluzione ricostruisce il file mentre il primo lo tiene aperto
+		GridpointIndex other = new GridpointIndex(coarse);
+		assertThat(Files.size(file)).isZero();
+		running.record(40.7128, -74.0060, newYork);
+		other.record(37.7749, -122.4194, sanFrancisco);
+
+		GridpointIndex reloaded = new GridpointIndex(properties);
+		assertThat(reloaded.lookup(40.7128, -74.0060)).isEqualTo(newYork);
+		assertThat(reloaded.stats().size()).isEqualTo(1);
+		assertThat(Files.size(file)).isEqualTo(16 + 20);
+	}
+
+	@Test
+	void pointsSharingACellAreWithinTheErrorBound() {
+		WeatherClientProperties properties = new WeatherClientProperties();
+		properties.getGridpointIndex().setFile("");
+		GridpointIndex index = new GridpointIndex(properties);
+		double resolution = properties.getGridpointIndex().getResolution();
+		double bound = GridpointIndex.errorBoundKm(resolution);
+		// Sotto la meta' di una cella NWS (2.5 km): al peggio si risponde con la cella adiacente
+		assertThat(bound).isLessThan(1.6);
+
+		Random random = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			double lat = 18 + random.nextDouble() * 53;
+			double lon = -170 + random.nextDouble() * 105;
+			double otherLat = lat + (random.nextDouble() - 0.5) * 2 * resolution;
+			double otherLon = lon + (random.nextDouble() - 0.5) * 2 * resolution;
+			if (index.cellKey(lat, lon) == index.cellKey(otherLat, otherLon)) {
+				assertThat(kilometers(lat, lon, otherLat, otherLon)).isLessThanOrEqualTo(bound);
+			}
+		}
+	}
+
+	private static double kilometers(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.pow(Math.sin(dLat / 2), 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+		return 2 * 6371.0088 * Math.asin(Math.sqrt(a));
+	}
+}
@@ -0,0 +1,56 @@
+package com.server.weather.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.server.weather.config.WeatherClientProperties;
+
+class NwsResponseCacheTests {
+
+	private static final Duration FALLBACK = Duration.ofMinutes(5);
+	private static final Duration MAX = Duration.ofHours(1);
+
+	@Test
+	void ttlFollowsCacheControlMinusAge() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setCacheControl("public, max-age=600, s-maxage=300");
+		headers.set(HttpHeaders.AGE, "60");
+		assertThat(CacheTtlPolicy.ttl(headers, FALLBACK, MAX)).isEqualTo(Duration.ofSeconds(240));
+	}
+
+	@Test
+	void ttlHonoursNoStoreExpiresAndFallback() {
+		HttpHeaders noStore = new HttpHeaders();
+		noStore.setCacheControl("no-store");
+		assertThat(CacheTtlPolicy.ttl(noStore, FALLBACK, MAX)).isZero();
+
+		HttpHeaders expires = new HttpHeaders();
+		expires.setDate(1_000_000_000L);
+		expires.setExpires(1_000_000_000L + 120_000L);
+		assertThat(CacheTtlPolicy.ttl(expires, FALLBACK, MAX)).isEqualTo(Duration.ofMinutes(2));
+
+		assertThat(CacheTtlPolicy.ttl(new HttpHeaders(), FALLBACK, MAX)).isEqualTo(FALLBACK);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedAndCountsHits() {
+		WeatherClientProperties properties = new WeatherClientProperties();
+		properties.getCache().setMaxEntries(2);
+		NwsResponseCache cache = new NwsResponseCache(properties);
+		var body = JsonNodeFactory.instance.objectNode();
+
+		cache.put("a", body, Duration.ofMinutes(1));
+		cache.put("b", body, Duration.ofMinutes(1));
+		assertThat(cache.getFresh("a")).isSameAs(body);
+		cache.put("c", body, Duration.ofMinutes(1));
+
+		assertThat(cache.getFresh("b")).isNull();
+		assertThat(cache.getFresh("c")).isSameAs(body);
+		assertThat(cache.stats()).isEqualTo(new NwsResponseCache.Stats(2, 1, 1, 2, 2));
+	}
+}
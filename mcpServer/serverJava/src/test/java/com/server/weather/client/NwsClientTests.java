@@ -0,0 +1,92 @@
+package com.server.weather.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.server.mcp.McpProperties;
+import com.server.mcp.McpTracing;
+import com.server.weather.cache.NwsResponseCache;
+import com.server.weather.config.WeatherClientProperties;
+import com.server.weather.model.ForecastPeriod;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class NwsClientTests {
+
+	private final AtomicInteger upstream = new AtomicInteger();
+	private HttpServer nws;
+	private NwsHttpPool httpPool;
+	private NwsClient client;
+	private String forecastUrl;
+
+	@BeforeEach
+	void start() throws IOException {
+		byte[] forecast;
+		try (InputStream in = NwsClientTests.class.getResourceAsStream("/nws/forecast.json")) {
+			forecast = in.readAllBytes();
+		}
+		nws = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		nws.createContext("/gridpoints/", exchange -> {
+			upstream.incrementAndGet();
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.getResponseHeaders().add("Content-Type", "application/geo+json");
+			exchange.sendResponseHeaders(200, forecast.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(forecast);
+			}
+		});
+		nws.start();
+		String base = "http://127.0.0.1:" + nws.getAddress().getPort();
+		forecastUrl = base + "/gridpoints/LWX/96,70/forecast";
+
+		WeatherClientProperties properties = new WeatherClientProperties();
+		properties.setApiBase(base);
+		properties.getHttp().setHttp2(false);
+		ObjectMapper mapper = new ObjectMapper();
+		httpPool = new NwsHttpPool(properties);
+		client = new NwsClient(WebClient.builder(), properties, mapper, new NwsResponseCache(properties),
+				new NwsRequestCoalescer(), new NwsResilience(properties), httpPool, new SimpleMeterRegistry(),
+				new McpTracing(new McpProperties(), mapper));
+	}
+
+	@AfterEach
+	void stop() {
+		httpPool.destroy();
+		nws.stop(0);
+	}
+
+	@Test
+	void differentPeriodCountsShareOneRequestAndTheLongestPrefixIsCached() {
+		var results = Mono.zip(client.fetchForecast(forecastUrl, 1), client.fetchForecast(forecastUrl, 2)).block();
+
+		assertThat(results.getT1()).extracting(ForecastPeriod::name).containsExactly("This Afternoon");
+		assertThat(results.getT2()).hasSize(2);
+		assertThat(upstream).hasValue(1);
+
+		// Il prefisso da 2 periodi copre anche chi ne chiede 1; per 3 serve una nuova richiesta
+		assertThat(client.fetchForecast(forecastUrl, 1).block()).hasSize(1);
+		assertThat(client.fetchForecast(forecastUrl, 2).block()).hasSize(2);
+		assertThat(upstream).hasValue(1);
+		List<ForecastPeriod> all = client.fetchForecast(forecastUrl, 3).block();
+		assertThat(all).hasSize(3);
+		assertThat(upstream).hasValue(2);
+	}
+}
@@ -0,0 +1,48 @@
+package com.server.weather.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+import com.server.weather.cache.NwsResponseCache;
+import com.server.weather.config.WeatherClientProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class NwsMeterBinderTests {
+
+	@Test
+	void exposesStatsAsMetersWithLocaleIndependentTags() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+		WeatherClientProperties properties = new WeatherClientProperties();
+		properties.getHttp().setHttp2(false);
+		NwsResilience resilience = new NwsResilience(properties);
+		NwsHttpPool httpPool = new NwsHttpPool(properties);
+		NwsResponseCache cache = new NwsResponseCache(properties);
+		NwsRequestCoalescer coalescer = new NwsRequestCoalescer();
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		try {
+			new NwsMeterBinder(resilience, httpPool, cache, coalescer).bindTo(registry);
+
+			coalescer.execute("/points/1,2", () -> resilience.execute(NwsEndpoint.POINTS, () -> Mono.just("ok"))).block();
+			cache.getFresh("/points/1,2");
+
+			// Con la locale turca "POINTS".toLowerCase() darebbe "poınts"
+			assertThat(registry.get("nws.resilience.calls").tag("endpoint", "points").functionCounter().count()).isEqualTo(1);
+			assertThat(registry.get("nws.resilience.breaker.state").tag("endpoint", "points").gauge().value()).isZero();
+			assertThat(resilience.stats().endpoints()).extracting(NwsResilience.EndpointStats::endpoint)
+					.containsExactly("points", "forecast", "alerts");
+			assertThat(registry.get("nws.coalescer.upstream").functionCounter().count()).isEqualTo(1);
+			assertThat(registry.get("nws.coalescer.in.flight").gauge().value()).isZero();
+			assertThat(registry.get("nws.cache.misses").functionCounter().count()).isEqualTo(1);
+			assertThat(registry.get("nws.http.pool.active").gauge().value()).isZero();
+		} finally {
+			Locale.setDefault(previous);
+			httpPool.destroy();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.server.weather.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+class NwsRequestCoalescerTests {
+
+	private final NwsRequestCoalescer coalescer = new NwsRequestCoalescer();
+
+	@Test
+	void concurrentCallersShareOneUpstreamRequest() {
+		AtomicInteger subscriptions = new AtomicInteger();
+		JsonNode body = JsonNodeFactory.instance.objectNode().put("ok", true);
+		Mono<JsonNode> slow = Mono.delay(Duration.ofMillis(100))
+				.map(tick -> body)
+				.doOnSubscribe(s -> subscriptions.incrementAndGet());
+
+		Mono<JsonNode> first = coalescer.execute("/alerts/active/area/CA", () -> slow);
+		Mono<JsonNode> second = coalescer.execute("/alerts/active/area/CA", () -> slow);
+
+		var results = Mono.zip(first, second).block();
+		assertThat(results.getT1()).isSameAs(body);
+		assertThat(results.getT2()).isSameAs(body);
+		assertThat(subscriptions).hasValue(1);
+		assertThat(coalescer.stats()).isEqualTo(new NwsRequestCoalescer.Stats(1, 1, 0));
+	}
+
+	@Test
+	void failuresReachEveryWaiterAndAreNotKept() {
+		Mono<JsonNode> failing = Mono.delay(Duration.ofMillis(50))
+				.then(Mono.error(new IllegalStateException("NWS down")));
+
+		Mono<JsonNode> first = coalescer.execute("/points/1,2", () -> failing);
+		Mono<JsonNode> second = coalescer.execute("/points/1,2", () -> failing);
+
+		assertThatThrownBy(first::block).hasMessage("NWS down");
+		assertThatThrownBy(second::block).hasMessage("NWS down");
+		assertThat(coalescer.stats().inFlight()).isZero();
+	}
+
+	@Test
+	void cancellingTheLastWaiterCancelsTheUpstreamExchange() {
+		AtomicBoolean disposed = new AtomicBoolean();
+		AtomicInteger exchanges = new AtomicInteger();
+		WebClient webClient = WebClient.builder()
+				.exchangeFunction(request -> Mono.<ClientResponse>never()
+						.doOnSubscribe(s -> exchanges.incrementAndGet())
+						.doOnCancel(() -> disposed.set(true)))
+				.build();
+		String key = "/gridpoints/MTR/85,105/forecast";
+
+		Disposable first = coalescer.execute(key, () -> webClient.get().uri("https://api.weather.gov" + key)
+				.retrieve().bodyToMono(String.class)).subscribe();
+		Disposable second = coalescer.execute(key, () -> Mono.<String>error(new AssertionError("non condivisa"))).subscribe();
+		assertThat(exchanges).hasValue(1);
+
+		// Un solo waiter che rinuncia non tocca la richiesta condivisa
+		first.dispose();
+		assertThat(disposed).isFalse();
+		assertThat(coalescer.stats().inFlight()).isEqualTo(1);
+
+		second.dispose();
+		assertThat(disposed).isTrue();
+		assertThat(coalescer.stats().inFlight()).isZero();
+	}
+}
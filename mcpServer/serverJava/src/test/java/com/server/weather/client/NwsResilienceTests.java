@@ -0,0 +1,90 @@
+package com.server.weather.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.server.weather.config.WeatherClientProperties;
+import com.server.weather.exception.CircuitOpenException;
+
+import reactor.core.publisher.Mono;
+
+class NwsResilienceTests {
+
+	@Test
+	void opensTheCircuitAfterRepeatedFailures() {
+		WeatherClientProperties properties = properties();
+		properties.getResilience().setMaxRetries(0);
+		NwsResilience resilience = new NwsResilience(properties);
+		AtomicInteger upstream = new AtomicInteger();
+
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> resilience.execute(NwsEndpoint.FORECAST, () -> {
+				upstream.incrementAndGet();
+				return Mono.error(new TimeoutException());
+			}).block()).hasCauseInstanceOf(TimeoutException.class);
+		}
+		assertThatThrownBy(() -> resilience.execute(NwsEndpoint.FORECAST, () -> {
+			upstream.incrementAndGet();
+			return Mono.just("ok");
+		}).block()).isInstanceOf(CircuitOpenException.class);
+
+		assertThat(upstream).hasValue(4);
+		assertThat(resilience.execute(NwsEndpoint.POINTS, () -> Mono.just("ok")).block()).isEqualTo("ok");
+		assertThat(resilience.stats().endpoints()).filteredOn(stats -> stats.endpoint().equals("forecast"))
+				.singleElement()
+				.satisfies(stats -> {
+					assertThat(stats.breaker()).isEqualTo("OPEN");
+					assertThat(stats.shortCircuited()).isEqualTo(1);
+				});
+	}
+
+	@Test
+	void retriesTransientErrorsOnlyWithinBudget() {
+		WeatherClientProperties properties = properties();
+		properties.getResilience().setRetryBudgetBurst(1);
+		properties.getResilience().setRetryBudgetRatio(0);
+		NwsResilience resilience = new NwsResilience(properties);
+		AtomicInteger upstream = new AtomicInteger();
+
+		String value = resilience.execute(NwsEndpoint.ALERTS, () -> upstream.incrementAndGet() == 1
+				? Mono.<String>error(WebClientResponseException.create(503, "Service Unavailable", null, null, null))
+				: Mono.just("ok")).block();
+		assertThat(value).isEqualTo("ok");
+		assertThat(upstream).hasValue(2);
+
+		// budget esaurito: il secondo 503 non viene ritentato
+		upstream.set(0);
+		assertThatThrownBy(() -> resilience.execute(NwsEndpoint.ALERTS, () -> {
+			upstream.incrementAndGet();
+			return Mono.<String>error(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+		}).block()).isInstanceOf(WebClientResponseException.class);
+		assertThat(upstream).hasValue(1);
+
+		// un 404 e' una risposta valida: niente retry
+		properties.getResilience().setRetryBudgetBurst(10);
+		NwsResilience fresh = new NwsResilience(properties);
+		upstream.set(0);
+		assertThatThrownBy(() -> fresh.execute(NwsEndpoint.POINTS, () -> {
+			upstream.incrementAndGet();
+			return Mono.<String>error(WebClientResponseException.create(404, "Not Found", null, null, null));
+		}).block()).isInstanceOf(WebClientResponseException.NotFound.class);
+		assertThat(upstream).hasValue(1);
+	}
+
+	private static WeatherClientProperties properties() {
+		WeatherClientProperties properties = new WeatherClientProperties();
+		WeatherClientProperties.Resilience resilience = properties.getResilience();
+		resilience.setBreakerWindow(4);
+		resilience.setBreakerMinimumCalls(4);
+		resilience.setRetryBackoff(Duration.ofMillis(1));
+		resilience.setHedgeEnabled(false);
+		return properties;
+	}
+}
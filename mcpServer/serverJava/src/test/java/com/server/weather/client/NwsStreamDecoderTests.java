@@ -0,0 +1,86 @@
+package com.server.weather.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.server.weather.exception.UpstreamServiceException;
+import com.server.weather.model.Alert;
+import com.server.weather.model.ForecastPeriod;
+
+import reactor.core.publisher.Flux;
+
+class NwsStreamDecoderTests {
+
+	private final JsonFactory jsonFactory = new JsonFactory();
+
+	@Test
+	void decodesAlertsAcrossChunksSkippingGeometry() {
+		String json = """
+				{"type":"FeatureCollection","features":[
+				  {"id":"a1","geometry":{"type":"Polygon","coordinates":[[[-120.1,36.2],[-120.3,36.4]]]},
+				   "properties":{"id":"urn:a1","event":"Heat Advisory","areaDesc":"Fresno","severity":"Moderate",
+				     "geocode":{"SAME":["006019"],"UGC":["CAZ310","CAZ311"]},
+				     "parameters":{"event":["ignored"]},"description":"Caldo è intenso","instruction":null}},
+				  {"id":"a2","geometry":null,"properties":{"event":"Flood Watch","severity":"Severe"}}
+				],"title":"Current watches"}
+				""";
+
+		List<Alert> alerts = NwsStreamDecoder.alerts(jsonFactory, chunks(json, 7)).collectList().block();
+
+		assertThat(alerts).containsExactly(
+				new Alert("Heat Advisory", "Fresno", "Moderate", "Caldo è intenso", "No specific instructions provided",
+						"urn:a1", List.of("CAZ310", "CAZ311")),
+				new Alert("Flood Watch", "Unknown", "Severe", "No description available", "No specific instructions provided",
+						null, List.of()));
+	}
+
+	@Test
+	void stopsAfterRequestedPeriods() {
+		StringBuilder json = new StringBuilder("{\"properties\":{\"periods\":[");
+		for (int i = 0; i < 14; i++) {
+			json.append(i > 0 ? "," : "")
+					.append("{\"number\":").append(i)
+					.append(",\"name\":\"P").append(i)
+					.append("\",\"temperature\":").append(60 + i)
+					.append(",\"temperatureUnit\":\"F\",\"windSpeed\":\"5 mph\",\"windDirection\":\"NW\"}");
+		}
+		// il resto del documento e' volutamente troncato: dopo il limite non viene piu' letto
+		json.append(",{\"name\":");
+
+		List<ForecastPeriod> periods = NwsStreamDecoder.forecastPeriods(jsonFactory, chunks(json.toString(), 64), 3)
+				.collectList().block();
+
+		assertThat(periods).extracting(ForecastPeriod::name).containsExactly("P0", "P1", "P2");
+		assertThat(periods.get(2)).isEqualTo(new ForecastPeriod("P2", "62°F", "5 mph NW", "Nessuna descrizione disponibile."));
+	}
+
+	@Test
+	void rejectsEmptyAndTruncatedBodies() {
+		assertThatThrownBy(() -> NwsStreamDecoder.alerts(jsonFactory, Flux.empty()).collectList().block())
+				.isInstanceOf(UpstreamServiceException.class)
+				.hasMessage("Risposta vuota da NWS.");
+		assertThatThrownBy(() -> NwsStreamDecoder.alerts(jsonFactory, chunks("{\"features\":[{\"properties\":", 5))
+				.collectList().block())
+				.isInstanceOf(UpstreamServiceException.class);
+	}
+
+	private static Flux<DataBuffer> chunks(String json, int size) {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		List<DataBuffer> buffers = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += size) {
+			buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(
+					Arrays.copyOfRange(bytes, offset, Math.min(bytes.length, offset + size))));
+		}
+		return Flux.fromIterable(buffers);
+	}
+}